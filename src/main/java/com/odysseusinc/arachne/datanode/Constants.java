@@ -86,6 +86,10 @@ public interface Constants {
             String LIST_REPORTS = "/api/v1/achilles/reports";
             String LIST_PERMISSIONS = "/api/v1/achilles/datanode/datasource/{id}/permissions";
             String PERMISSION = "/api/v1/achilles/datanode/datasource/{dataSourceId}/permissions/{id}";
+            String UPLOADS = "/api/v1/achilles/datanode/datasource/{id}/uploads";
+            String UPLOAD = "/api/v1/achilles/datanode/datasource/{id}/uploads/{uploadId}";
+            String UPLOAD_PART = "/api/v1/achilles/datanode/datasource/{id}/uploads/{uploadId}/parts/{part}";
+            String UPLOAD_COMPLETE = "/api/v1/achilles/datanode/datasource/{id}/uploads/{uploadId}/complete";
             String PARAM_DATANODE = "datanode";
         }
     }
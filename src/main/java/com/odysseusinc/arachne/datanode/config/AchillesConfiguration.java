@@ -23,6 +23,10 @@
 package com.odysseusinc.arachne.datanode.config;
 
 import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.config.properties.CdmConnectionPoolProperties;
+import feign.FeignException;
+import feign.RetryableException;
+import java.io.IOException;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,16 +40,36 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
-@EnableConfigurationProperties(AchillesProperties.class)
+@EnableConfigurationProperties({AchillesProperties.class, CdmConnectionPoolProperties.class})
 public class AchillesConfiguration {
 
     @Bean
     public RetryTemplate achillesRetryTemplate(AchillesProperties properties) {
 
-        RetryTemplate retryTemplate = new RetryTemplate();
-        AchillesProperties.RetryConfig retryConfig = properties.getRetry();
         Map<Class<? extends Throwable>, Boolean> retryableExceptions = new HashMap<>();
         retryableExceptions.put(RestClientException.class, true);
+        return retryTemplate(properties, retryableExceptions);
+    }
+
+    /**
+     * Retries network failures and server errors of a chunked upload, each attempt resumes the upload
+     */
+    @Bean
+    public RetryTemplate achillesUploadRetryTemplate(AchillesProperties properties) {
+
+        Map<Class<? extends Throwable>, Boolean> retryableExceptions = new HashMap<>();
+        retryableExceptions.put(RestClientException.class, true);
+        retryableExceptions.put(RetryableException.class, true);
+        retryableExceptions.put(FeignException.FeignServerException.class, true);
+        retryableExceptions.put(IOException.class, true);
+        return retryTemplate(properties, retryableExceptions);
+    }
+
+    private RetryTemplate retryTemplate(AchillesProperties properties,
+                                        Map<Class<? extends Throwable>, Boolean> retryableExceptions) {
+
+        RetryTemplate retryTemplate = new RetryTemplate();
+        AchillesProperties.RetryConfig retryConfig = properties.getRetry();
         SimpleRetryPolicy policy = new SimpleRetryPolicy(retryConfig.getMaxAttempts(),
                     retryableExceptions);
         retryTemplate.setRetryPolicy(policy);
@@ -22,9 +22,11 @@
 
 package com.odysseusinc.arachne.datanode.config.properties;
 
+import java.time.Duration;
 import javax.validation.constraints.NotNull;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 
@@ -42,6 +44,10 @@ public class AchillesProperties {
 
     private RetryConfig retry = new RetryConfig();
 
+    private ExecutorConfig executor = new ExecutorConfig();
+    private IncrementalConfig incremental = new IncrementalConfig();
+    private UploadConfig upload = new UploadConfig();
+
     public String getImageName() {
 
         return imageName;
@@ -72,6 +78,21 @@ public class AchillesProperties {
         return retry;
     }
 
+    public ExecutorConfig getExecutor() {
+
+        return executor;
+    }
+
+    public IncrementalConfig getIncremental() {
+
+        return incremental;
+    }
+
+    public UploadConfig getUpload() {
+
+        return upload;
+    }
+
     public static class AuthConfig {
         private String registryAddress;
         private String username;
@@ -165,4 +186,115 @@ public class AchillesProperties {
             this.multiplier = multiplier;
         }
     }
+
+    public static class ExecutorConfig {
+
+        private int maxConcurrency = 8;
+        private int maxPerDataSource = 4;
+        private int maxPerServer = 4;
+        private int reportParallelism = 2;
+
+        public int getMaxConcurrency() {
+
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public int getMaxPerDataSource() {
+
+            return maxPerDataSource;
+        }
+
+        public void setMaxPerDataSource(int maxPerDataSource) {
+
+            this.maxPerDataSource = maxPerDataSource;
+        }
+
+        public int getMaxPerServer() {
+
+            return maxPerServer;
+        }
+
+        public void setMaxPerServer(int maxPerServer) {
+
+            this.maxPerServer = maxPerServer;
+        }
+
+        public int getReportParallelism() {
+
+            return reportParallelism;
+        }
+
+        public void setReportParallelism(int reportParallelism) {
+
+            this.reportParallelism = reportParallelism;
+        }
+    }
+
+    public static class IncrementalConfig {
+
+        private boolean enabled = false;
+        private Duration maxAge = Duration.ofDays(7);
+
+        public boolean isEnabled() {
+
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+
+            this.enabled = enabled;
+        }
+
+        public Duration getMaxAge() {
+
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class UploadConfig {
+
+        private boolean chunked = false;
+        private DataSize partSize = DataSize.ofMegabytes(8);
+        private int parallelism = 2;
+
+        public boolean isChunked() {
+
+            return chunked;
+        }
+
+        public void setChunked(boolean chunked) {
+
+            this.chunked = chunked;
+        }
+
+        public DataSize getPartSize() {
+
+            return partSize;
+        }
+
+        public void setPartSize(DataSize partSize) {
+
+            this.partSize = partSize;
+        }
+
+        public int getParallelism() {
+
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+
+            this.parallelism = parallelism;
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package com.odysseusinc.arachne.datanode.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "cdm.pool")
+public class CdmConnectionPoolProperties {
+
+    private int maximumPoolSize = 4;
+    private int minimumIdle = 0;
+    private long connectionTimeout = 30000L;
+    private long idleTimeout = 60000L;
+    private long maxLifetime = 1800000L;
+    /**
+     * Time in millis a connection may stay borrowed before a possible leak is logged, 0 disables detection
+     */
+    private long leakDetectionThreshold = 0L;
+    private int statementCacheSize = 64;
+    /**
+     * Time in millis a replaced pool waits for its borrowed connections to be returned before it is closed
+     */
+    private long retireTimeout = 600000L;
+
+    public int getMaximumPoolSize() {
+
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public int getMinimumIdle() {
+
+        return minimumIdle;
+    }
+
+    public void setMinimumIdle(int minimumIdle) {
+
+        this.minimumIdle = minimumIdle;
+    }
+
+    public long getConnectionTimeout() {
+
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(long connectionTimeout) {
+
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public long getIdleTimeout() {
+
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getMaxLifetime() {
+
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(long maxLifetime) {
+
+        this.maxLifetime = maxLifetime;
+    }
+
+    public long getLeakDetectionThreshold() {
+
+        return leakDetectionThreshold;
+    }
+
+    public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    public int getStatementCacheSize() {
+
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public long getRetireTimeout() {
+
+        return retireTimeout;
+    }
+
+    public void setRetireTimeout(long retireTimeout) {
+
+        this.retireTimeout = retireTimeout;
+    }
+}
@@ -28,6 +28,7 @@ import static org.springframework.web.bind.annotation.RequestMethod.GET;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 
 import com.odysseusinc.arachne.commons.api.v1.dto.util.JsonResult;
+import com.odysseusinc.arachne.datanode.dto.achilles.AchillesExecutorStatsDTO;
 import com.odysseusinc.arachne.datanode.dto.achilles.AchillesJobDTO;
 import com.odysseusinc.arachne.datanode.exception.NotExistException;
 import com.odysseusinc.arachne.datanode.model.achilles.AchillesJob;
@@ -37,6 +38,7 @@ import com.odysseusinc.arachne.datanode.repository.AchillesJobRepository;
 import com.odysseusinc.arachne.datanode.repository.DataSourceRepository;
 import com.odysseusinc.arachne.datanode.service.AchillesService;
 import com.odysseusinc.arachne.datanode.service.DataNodeService;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesTaskExecutor;
 import com.odysseusinc.arachne.datanode.util.DataNodeUtils;
 import io.swagger.annotations.ApiOperation;
 import java.sql.Timestamp;
@@ -62,19 +64,22 @@ public class AchillesController {
     private final AchillesJobRepository achillesJobRepository;
     private final GenericConversionService conversionService;
     private final DataNodeService dataNodeService;
+    private final AchillesTaskExecutor achillesTaskExecutor;
 
     @Autowired
     public AchillesController(AchillesService achillesService,
                               DataSourceRepository dataSourceRepository,
                               AchillesJobRepository achillesJobRepository,
                               GenericConversionService conversionService,
-                              DataNodeService dataNodeService) {
+                              DataNodeService dataNodeService,
+                              AchillesTaskExecutor achillesTaskExecutor) {
 
         this.achillesService = achillesService;
         this.dataSourceRepository = dataSourceRepository;
         this.achillesJobRepository = achillesJobRepository;
         this.conversionService = conversionService;
         this.dataNodeService = dataNodeService;
+        this.achillesTaskExecutor = achillesTaskExecutor;
     }
 
     @ApiOperation("Start Achilles for datasource")
@@ -108,6 +113,13 @@ public class AchillesController {
         return new JsonResult<>(NO_ERROR, result);
     }
 
+    @ApiOperation("Get Achilles export executor queue and activity")
+    @RequestMapping(value = "executor", method = GET)
+    public JsonResult<AchillesExecutorStatsDTO> executorStats() {
+
+        return new JsonResult<>(NO_ERROR, achillesTaskExecutor.getStats());
+    }
+
     @ApiOperation("Get latest job status for given datasource")
     @RequestMapping(value = "{datasourceId}/status", method = GET)
     public JsonResult<AchillesJobDTO> status(@PathVariable("datasourceId") Long datasourceId) throws NotExistException {
@@ -22,11 +22,11 @@
 
 package com.odysseusinc.arachne.datanode.controller.admin;
 
-import com.odysseusinc.arachne.datanode.repository.AnalysisRepository;
 import com.odysseusinc.arachne.datanode.service.AnalysisService;
 import com.odysseusinc.arachne.datanode.service.AtlasService;
 import com.odysseusinc.arachne.datanode.service.DataNodeService;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineIntegrationService;
+import com.odysseusinc.arachne.datanode.service.SubmissionService;
 import com.odysseusinc.arachne.datanode.service.UserService;
 import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.web.bind.annotation.RestController;
@@ -37,12 +37,12 @@ public class AdminController extends BaseAdminController {
     public AdminController(UserService userService,
                            GenericConversionService conversionService,
                            AtlasService atlasService,
-                           AnalysisRepository analysisRepository,
+                           SubmissionService submissionService,
                            AnalysisService analysisService,
                            DataNodeService dataNodeService,
                            ExecutionEngineIntegrationService executionEngineIntegrationService) {
 
-        super(userService, conversionService, atlasService, analysisRepository, analysisService, dataNodeService,
+        super(userService, conversionService, atlasService, submissionService, analysisService, dataNodeService,
                 executionEngineIntegrationService);
     }
 }
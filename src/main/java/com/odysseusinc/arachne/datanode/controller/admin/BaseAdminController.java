@@ -30,21 +30,19 @@ import com.odysseusinc.arachne.datanode.dto.user.UserDTO;
 import com.odysseusinc.arachne.datanode.exception.AuthException;
 import com.odysseusinc.arachne.datanode.exception.BadRequestException;
 import com.odysseusinc.arachne.datanode.exception.PermissionDeniedException;
-import com.odysseusinc.arachne.datanode.model.analysis.Analysis;
 import com.odysseusinc.arachne.datanode.model.atlas.Atlas;
 import com.odysseusinc.arachne.datanode.model.user.User;
-import com.odysseusinc.arachne.datanode.repository.AnalysisRepository;
 import com.odysseusinc.arachne.datanode.service.AnalysisService;
 import com.odysseusinc.arachne.datanode.service.AtlasService;
 import com.odysseusinc.arachne.datanode.service.DataNodeService;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineIntegrationService;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineStatus;
+import com.odysseusinc.arachne.datanode.service.SubmissionService;
 import com.odysseusinc.arachne.datanode.service.UserService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
@@ -55,23 +53,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.security.Principal;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Consumer;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class BaseAdminController extends BaseController {
 
     public static final int SUGGEST_LIMIT = 10;
     public static final int DEFAULT_PAGE_SIZE = 10;
-    private final Map<String, Consumer<List<String>>> propertiesMap = new HashMap<>();
 
     protected GenericConversionService conversionService;
     protected AtlasService atlasService;
-    protected AnalysisRepository analysisRepository;
+    protected SubmissionService submissionService;
     protected AnalysisService analysisService;
     protected DataNodeService dataNodeService;
     protected ExecutionEngineIntegrationService executionEngineIntegrationService;
@@ -81,7 +73,7 @@ public abstract class BaseAdminController extends BaseController {
             UserService userService,
             GenericConversionService conversionService,
             AtlasService atlasService,
-            AnalysisRepository analysisRepository,
+            SubmissionService submissionService,
             AnalysisService analysisService,
             DataNodeService dataNodeService,
             ExecutionEngineIntegrationService executionEngineIntegrationService
@@ -89,11 +81,10 @@ public abstract class BaseAdminController extends BaseController {
         super(userService);
         this.conversionService = conversionService;
         this.atlasService = atlasService;
-        this.analysisRepository = analysisRepository;
+        this.submissionService = submissionService;
         this.analysisService = analysisService;
         this.dataNodeService = dataNodeService;
         this.executionEngineIntegrationService = executionEngineIntegrationService;
-        initProps();
     }
 
     @ApiOperation(value = "Get all admins", hidden = true)
@@ -187,25 +178,10 @@ public abstract class BaseAdminController extends BaseController {
     @ApiOperation(value = "list submissions")
     @GetMapping("/api/v1/admin/submissions")
     public Page<SubmissionDTO> list(@PageableDefault(value = DEFAULT_PAGE_SIZE, sort = "id",
-            direction = Sort.Direction.DESC) Pageable pageable) {
+            direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(name = "after", required = false) Long after) {
 
-        Pageable p;
-        if (!isCustomSort(pageable)) {
-            p = pageable;
-        } else {
-            p = buildPageRequest(pageable);
-        }
-        Page<Analysis> analyses;
-        if (isFinishedSort(pageable)) {
-            analyses = analysisRepository.findAllPagedOrderByFinished(p);
-        } else if (isSubmittedSort(pageable)) {
-            analyses = analysisRepository.findAllPagedOrderBySubmitted(p);
-        } else if (isStatusSort(pageable)) {
-            analyses = analysisRepository.findAllPagedOrderByState(p);
-        } else {
-            analyses = analysisRepository.findAll(p);
-        }
-        return analyses.map(analysis -> conversionService.convert(analysis, SubmissionDTO.class));
+        return submissionService.list(pageable, after);
     }
 
     @ApiOperation(value = "get execution engine status")
@@ -214,77 +190,6 @@ public abstract class BaseAdminController extends BaseController {
         return new EngineStatusResponse(executionEngineIntegrationService.getExecutionEngineStatus());
     }
 
-    protected Pageable buildPageRequest(Pageable pageable) {
-
-        if (pageable.getSort() == null) {
-            return pageable;
-        }
-        PageRequest result;
-        List<String> properties = new LinkedList<>();
-        Sort.Direction direction = Sort.Direction.ASC;
-        for (Sort.Order order : pageable.getSort()) {
-            direction = order.getDirection();
-            String property = order.getProperty();
-            if (propertiesMap.containsKey(property)) {
-                propertiesMap.get(property).accept(properties);
-            } else {
-                properties.add(property);
-            }
-        }
-        result = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), direction,
-                properties.toArray(new String[properties.size()]));
-
-        return result;
-    }
-
-    private boolean isCustomSort(final Pageable pageable) {
-
-        return isSortOf(pageable, propertiesMap::containsKey);
-    }
-
-    private boolean isStatusSort(final Pageable pageable) {
-
-        return isSortOf(pageable, "status"::equals);
-    }
-
-    private boolean isSubmittedSort(final Pageable pageable) {
-
-        return isSortOf(pageable, "submitted"::equals);
-    }
-
-    private boolean isFinishedSort(final Pageable pageable) {
-
-        return isSortOf(pageable, "finished"::equals);
-    }
-
-    private boolean isSortOf(final Pageable pageable, Function<String, Boolean> predicate) {
-
-        if (pageable.getSort() == null) {
-            return false;
-        }
-        for (Sort.Order order : pageable.getSort()) {
-            if (predicate.apply(order.getProperty())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    protected void initProps() {
-
-        propertiesMap.put("author.fullName", p -> {
-            p.add("author.firstName");
-            p.add("author.lastName");
-        });
-        propertiesMap.put("fullName", p -> {
-            p.add("author.firstName");
-            p.add("author.lastName");
-        });
-        propertiesMap.put("analysis", p -> p.add("title"));
-        propertiesMap.put("study", p -> p.add("studyTitle"));
-        propertiesMap.put("status", p -> p.add("journal.state"));
-    }
-    
     private class EngineStatusResponse {
         public EngineStatusResponse(final ExecutionEngineStatus status) {
             this.status = status;
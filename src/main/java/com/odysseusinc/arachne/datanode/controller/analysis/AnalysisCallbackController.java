@@ -24,6 +24,7 @@ package com.odysseusinc.arachne.datanode.controller.analysis;
 
 import com.odysseusinc.arachne.datanode.service.AnalysisResultsService;
 import com.odysseusinc.arachne.datanode.service.AnalysisService;
+import com.odysseusinc.arachne.datanode.service.impl.AnalysisStatusBuffer;
 import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -32,8 +33,9 @@ public class AnalysisCallbackController extends BaseCallbackAnalysisController {
 
     public AnalysisCallbackController(GenericConversionService conversionService,
                                       AnalysisService analysisService,
-                                      AnalysisResultsService analysisResultsService) {
+                                      AnalysisResultsService analysisResultsService,
+                                      AnalysisStatusBuffer statusBuffer) {
 
-        super(conversionService, analysisService, analysisResultsService);
+        super(conversionService, analysisService, analysisResultsService, statusBuffer);
     }
 }
@@ -36,14 +36,15 @@ import com.odysseusinc.arachne.datanode.model.analysis.AnalysisOrigin;
 import com.odysseusinc.arachne.datanode.model.user.User;
 import com.odysseusinc.arachne.datanode.service.AnalysisResultsService;
 import com.odysseusinc.arachne.datanode.service.AnalysisService;
+import com.odysseusinc.arachne.datanode.service.AnalysisStdoutService;
 import com.odysseusinc.arachne.datanode.service.UserService;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -73,6 +74,7 @@ import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -85,17 +87,20 @@ public class AnalysisController {
     private static final String ERROR_MESSAGE = "Failed to save analysis files";
     private final AnalysisService analysisService;
     private final AnalysisResultsService analysisResultsService;
+    private final AnalysisStdoutService stdoutService;
     private final UserService userService;
 
     private final GenericConversionService conversionService;
 
     public AnalysisController(AnalysisService analysisService,
                               AnalysisResultsService analysisResultsService,
+                              AnalysisStdoutService stdoutService,
                               UserService userService,
                               GenericConversionService conversionService) {
 
         this.analysisService = analysisService;
         this.analysisResultsService = analysisResultsService;
+        this.stdoutService = stdoutService;
         this.userService = userService;
         this.conversionService = conversionService;
     }
@@ -143,8 +148,8 @@ public class AnalysisController {
         List<AnalysisFile> resultFiles = analysisResultsService.getAnalysisResults(analysis);
         Path stdoutDir = Files.createTempDirectory("node_analysis");
         Path stdoutFile = stdoutDir.resolve("stdout.txt");
-        try(Writer writer = new FileWriter(stdoutFile.toFile())) {
-            IOUtils.write(analysis.getStdout(), writer);
+        try(Writer writer = Files.newBufferedWriter(stdoutFile, StandardCharsets.UTF_8)) {
+            stdoutService.writeTo(analysis.getId(), writer);
         }
 
         String filename = MessageFormat.format("{0}-a{1,number,#}-results", analysis.getType().getCode(), analysis.getId());
@@ -176,6 +181,24 @@ public class AnalysisController {
         }
     }
 
+    /**
+     * Part of the analysis stdout starting at the given character offset, or its tail if no offset is given
+     */
+    @RequestMapping(
+            method = RequestMethod.GET,
+            path = "{id}/stdout",
+            produces = MediaType.TEXT_PLAIN_VALUE
+    )
+    public String getStdout(@PathVariable("id") Long analysisId,
+                            @RequestParam(value = "offset", required = false) Long offset,
+                            @RequestParam(value = "length", defaultValue = "65536") Integer length) {
+
+        analysisService.findAnalysis(analysisId).orElseThrow(() -> new NotExistException(Analysis.class));
+        return Objects.isNull(offset)
+                ? stdoutService.tail(analysisId, length)
+                : stdoutService.read(analysisId, offset, length);
+    }
+
     @RequestMapping(
             method = RequestMethod.GET,
             path = "/types",
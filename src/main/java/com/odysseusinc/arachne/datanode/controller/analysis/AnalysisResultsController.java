@@ -37,7 +37,7 @@ public class AnalysisResultsController {
         ContentDisposition disposition = ContentDisposition.attachment().filename(filename).build();
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
-                .header(HttpHeaders.CONTENT_TYPE, Files.probeContentType(Paths.get(resource.toString())))
+                .header(HttpHeaders.CONTENT_TYPE, Files.probeContentType(Paths.get(filename)))
                 .body(resource);
     }
 
@@ -25,12 +25,12 @@ package com.odysseusinc.arachne.datanode.controller.analysis;
 import com.odysseusinc.arachne.datanode.model.analysis.Analysis;
 import com.odysseusinc.arachne.datanode.service.AnalysisService;
 import com.odysseusinc.arachne.datanode.service.AnalysisResultsService;
+import com.odysseusinc.arachne.datanode.service.impl.AnalysisStatusBuffer;
 import com.odysseusinc.arachne.datanode.util.AnalysisUtils;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisExecutionStatusDTO;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisResultDTO;
 import java.io.File;
 import java.io.IOException;
-import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.support.GenericConversionService;
@@ -49,6 +49,7 @@ public abstract class BaseCallbackAnalysisController {
     protected final GenericConversionService conversionService;
     protected final AnalysisService analysisService;
     private final AnalysisResultsService analysisResultsService;
+    private final AnalysisStatusBuffer statusBuffer;
 
     @Value("${files.store.path}")
     private String filesStorePath;
@@ -56,11 +57,13 @@ public abstract class BaseCallbackAnalysisController {
     @Autowired
     public BaseCallbackAnalysisController(GenericConversionService conversionService,
                                           AnalysisService analysisService,
-                                          AnalysisResultsService analysisResultsService) {
+                                          AnalysisResultsService analysisResultsService,
+                                          AnalysisStatusBuffer statusBuffer) {
 
         this.conversionService = conversionService;
         this.analysisService = analysisService;
         this.analysisResultsService = analysisResultsService;
+        this.statusBuffer = statusBuffer;
     }
 
     @PostMapping(value = UPDATE_URI, consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
@@ -76,11 +79,9 @@ public abstract class BaseCallbackAnalysisController {
         doUpdateSubmission(status, password);
     }
 
-    protected Optional<Analysis> doUpdateSubmission(AnalysisExecutionStatusDTO status, String password) {
+    protected void doUpdateSubmission(AnalysisExecutionStatusDTO status, String password) {
 
-        Long id = status.getId();
-        String stdout = status.getStdout();
-        return analysisService.updateStatus(id, stdout, password);
+        statusBuffer.submit(status.getId(), password, status.getStdout());
     }
 
     @PostMapping(value = RESULT_URI, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -100,6 +101,8 @@ public abstract class BaseCallbackAnalysisController {
 
     protected Analysis doSaveResults(AnalysisResultDTO result, File resultDir) {
 
+        // status updates received before the results must not be applied after them
+        statusBuffer.flushBeforeResults(result.getId());
         Analysis analysis = conversionService.convert(result, Analysis.class);
         return analysisResultsService.saveResults(analysis, resultDir);
     }
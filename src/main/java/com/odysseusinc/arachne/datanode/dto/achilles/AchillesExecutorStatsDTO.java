@@ -0,0 +1,105 @@
+package com.odysseusinc.arachne.datanode.dto.achilles;
+
+import java.util.Map;
+
+public class AchillesExecutorStatsDTO {
+    private int maxConcurrency;
+    private int maxPerDataSource;
+    private int maxPerServer;
+    private int active;
+    private int queued;
+    private long completed;
+    private Map<Long, Integer> activeByDataSource;
+    private Map<Long, Integer> queuedByDataSource;
+    private Map<String, Integer> activeByServer;
+
+    public int getMaxConcurrency() {
+
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxPerDataSource() {
+
+        return maxPerDataSource;
+    }
+
+    public void setMaxPerDataSource(int maxPerDataSource) {
+
+        this.maxPerDataSource = maxPerDataSource;
+    }
+
+    public int getMaxPerServer() {
+
+        return maxPerServer;
+    }
+
+    public void setMaxPerServer(int maxPerServer) {
+
+        this.maxPerServer = maxPerServer;
+    }
+
+    public int getActive() {
+
+        return active;
+    }
+
+    public void setActive(int active) {
+
+        this.active = active;
+    }
+
+    public int getQueued() {
+
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+
+        this.queued = queued;
+    }
+
+    public long getCompleted() {
+
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+
+        this.completed = completed;
+    }
+
+    public Map<Long, Integer> getActiveByDataSource() {
+
+        return activeByDataSource;
+    }
+
+    public void setActiveByDataSource(Map<Long, Integer> activeByDataSource) {
+
+        this.activeByDataSource = activeByDataSource;
+    }
+
+    public Map<Long, Integer> getQueuedByDataSource() {
+
+        return queuedByDataSource;
+    }
+
+    public void setQueuedByDataSource(Map<Long, Integer> queuedByDataSource) {
+
+        this.queuedByDataSource = queuedByDataSource;
+    }
+
+    public Map<String, Integer> getActiveByServer() {
+
+        return activeByServer;
+    }
+
+    public void setActiveByServer(Map<String, Integer> activeByServer) {
+
+        this.activeByServer = activeByServer;
+    }
+}
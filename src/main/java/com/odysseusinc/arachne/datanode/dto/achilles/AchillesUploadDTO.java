@@ -0,0 +1,83 @@
+package com.odysseusinc.arachne.datanode.dto.achilles;
+
+import java.util.List;
+
+public class AchillesUploadDTO {
+    private String uploadId;
+    private String fileName;
+    private long size;
+    private long partSize;
+    private int partCount;
+    private String checksum;
+    private List<Integer> receivedParts;
+
+    public String getUploadId() {
+
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+
+        this.uploadId = uploadId;
+    }
+
+    public String getFileName() {
+
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+
+        this.fileName = fileName;
+    }
+
+    public long getSize() {
+
+        return size;
+    }
+
+    public void setSize(long size) {
+
+        this.size = size;
+    }
+
+    public long getPartSize() {
+
+        return partSize;
+    }
+
+    public void setPartSize(long partSize) {
+
+        this.partSize = partSize;
+    }
+
+    public int getPartCount() {
+
+        return partCount;
+    }
+
+    public void setPartCount(int partCount) {
+
+        this.partCount = partCount;
+    }
+
+    public String getChecksum() {
+
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+
+        this.checksum = checksum;
+    }
+
+    public List<Integer> getReceivedParts() {
+
+        return receivedParts;
+    }
+
+    public void setReceivedParts(List<Integer> receivedParts) {
+
+        this.receivedParts = receivedParts;
+    }
+}
@@ -16,7 +16,7 @@ import lombok.Setter;
 @Getter
 @Setter
 public class EnvironmentDescriptor {
-    @SequenceGenerator(name = "descriptor_id_seq", sequenceName = "descriptor_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "descriptor_id_seq", sequenceName = "descriptor_id_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "descriptor_id_seq")
     @Id
     @Column(name = "id")
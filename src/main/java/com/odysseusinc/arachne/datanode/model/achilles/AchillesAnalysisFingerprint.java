@@ -0,0 +1,101 @@
+package com.odysseusinc.arachne.datanode.model.achilles;
+
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Row count and content hash of an Achilles analysis as of the last export sent to Central
+ */
+@Entity
+@Table(name = "achilles_analysis_fingerprints")
+public class AchillesAnalysisFingerprint {
+    @Id
+    @SequenceGenerator(name = "achilles_analysis_fingerprints_pk_sequence", sequenceName = "achilles_analysis_fingerprints_id_seq", allocationSize = 1)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "achilles_analysis_fingerprints_pk_sequence")
+    private Long id;
+    @NotNull
+    @ManyToOne
+    @JoinColumn(name = "datasource_id")
+    private DataSource dataSource;
+    @Column(name = "analysis_id", nullable = false)
+    private Integer analysisId;
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+    @Column(name = "content_hash", nullable = false)
+    private Long contentHash;
+    @Column(name = "updated", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updated;
+
+    public Long getId() {
+
+        return id;
+    }
+
+    public void setId(Long id) {
+
+        this.id = id;
+    }
+
+    public DataSource getDataSource() {
+
+        return dataSource;
+    }
+
+    public void setDataSource(DataSource dataSource) {
+
+        this.dataSource = dataSource;
+    }
+
+    public Integer getAnalysisId() {
+
+        return analysisId;
+    }
+
+    public void setAnalysisId(Integer analysisId) {
+
+        this.analysisId = analysisId;
+    }
+
+    public Long getRowCount() {
+
+        return rowCount;
+    }
+
+    public void setRowCount(Long rowCount) {
+
+        this.rowCount = rowCount;
+    }
+
+    public Long getContentHash() {
+
+        return contentHash;
+    }
+
+    public void setContentHash(Long contentHash) {
+
+        this.contentHash = contentHash;
+    }
+
+    public Date getUpdated() {
+
+        return updated;
+    }
+
+    public void setUpdated(Date updated) {
+
+        this.updated = updated;
+    }
+}
@@ -44,7 +44,7 @@ import javax.validation.constraints.NotNull;
 @Table(name = "achilles_jobs")
 public class AchillesJob {
     @Id
-    @SequenceGenerator(name = "achilles_jobs_pk_sequence", sequenceName = "achilles_jobs_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "achilles_jobs_pk_sequence", sequenceName = "achilles_jobs_id_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "achilles_jobs_pk_sequence")
     private Long id;
     @NotNull
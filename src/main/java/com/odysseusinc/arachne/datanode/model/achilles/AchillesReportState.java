@@ -0,0 +1,89 @@
+package com.odysseusinc.arachne.datanode.model.achilles;
+
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Fingerprint of the inputs of an Achilles report as of the last export sent to Central
+ */
+@Entity
+@Table(name = "achilles_report_states")
+public class AchillesReportState {
+    @Id
+    @SequenceGenerator(name = "achilles_report_states_pk_sequence", sequenceName = "achilles_report_states_id_seq", allocationSize = 1)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "achilles_report_states_pk_sequence")
+    private Long id;
+    @NotNull
+    @ManyToOne
+    @JoinColumn(name = "datasource_id")
+    private DataSource dataSource;
+    @Column(name = "report", nullable = false)
+    private String report;
+    @Column(name = "fingerprint", nullable = false)
+    private String fingerprint;
+    @Column(name = "updated", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updated;
+
+    public Long getId() {
+
+        return id;
+    }
+
+    public void setId(Long id) {
+
+        this.id = id;
+    }
+
+    public DataSource getDataSource() {
+
+        return dataSource;
+    }
+
+    public void setDataSource(DataSource dataSource) {
+
+        this.dataSource = dataSource;
+    }
+
+    public String getReport() {
+
+        return report;
+    }
+
+    public void setReport(String report) {
+
+        this.report = report;
+    }
+
+    public String getFingerprint() {
+
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+
+        this.fingerprint = fingerprint;
+    }
+
+    public Date getUpdated() {
+
+        return updated;
+    }
+
+    public void setUpdated(Date updated) {
+
+        this.updated = updated;
+    }
+}
@@ -37,7 +37,7 @@ import lombok.Setter;
 @Table(name = "analyses")
 public class Analysis {
 
-    @SequenceGenerator(name = "analyses_id_seq", sequenceName = "analyses_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "analyses_id_seq", sequenceName = "analyses_id_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analyses_id_seq")
     @Id
     private Long id;
@@ -65,7 +65,8 @@ public class Analysis {
     private List<AnalysisStateEntry> stateHistory = new ArrayList<>();
     @OneToMany(cascade = {CascadeType.ALL}, mappedBy = "analysis")
     private List<AnalysisFile> analysisFiles = new ArrayList<>();
-    @Column(name = "stdout")
+    // stdout received with the results, stored by AnalysisStdoutService
+    @Transient
     private String stdout;
     @Column(name = "result_status")
     @Enumerated(value = EnumType.STRING)
@@ -81,6 +82,14 @@ public class Analysis {
             @AttributeOverride(name = "lastName", column = @Column(name = "author_last_name"))
     })
     private AnalysisAuthor author;
+    // maintained by a trigger on analysis_state_journal
+    @Column(name = "current_state", insertable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private AnalysisState currentState;
+    @Column(name = "current_state_date", insertable = false, updatable = false)
+    private Date currentStateDate;
+    @Column(name = "latest_state_id", insertable = false, updatable = false)
+    private Long latestStateId;
     @Transient
     private AnalysisState state;
     @Transient
@@ -16,7 +16,7 @@ import javax.persistence.Table;
 public class AnalysisFile {
 
     @Id
-    @SequenceGenerator(name = "analysis_files_pk_sequence", sequenceName = "analysis_files_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "analysis_files_pk_sequence", sequenceName = "analysis_files_id_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_files_pk_sequence")
     private Long id;
     @Column(name = "type")
@@ -31,6 +31,10 @@ public class AnalysisFile {
     private Long retries = 0L;
     @ManyToOne
     private Analysis analysis;
+    // null until the manifest of the file is built
+    @Column(name = "archive_type")
+    @Enumerated(value = EnumType.STRING)
+    private AnalysisFileArchiveType archiveType;
 
     public AnalysisFile() {
 
@@ -102,4 +106,14 @@ public class AnalysisFile {
 
         this.analysis = analysis;
     }
+
+    public AnalysisFileArchiveType getArchiveType() {
+
+        return archiveType;
+    }
+
+    public void setArchiveType(AnalysisFileArchiveType archiveType) {
+
+        this.archiveType = archiveType;
+    }
 }
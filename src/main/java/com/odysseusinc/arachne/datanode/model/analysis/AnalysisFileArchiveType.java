@@ -0,0 +1,19 @@
+package com.odysseusinc.arachne.datanode.model.analysis;
+
+/**
+ * What a result file turned out to be when its manifest was built
+ */
+public enum AnalysisFileArchiveType {
+    /**
+     * Not a ZIP archive, served as is
+     */
+    NONE,
+    /**
+     * ZIP archive in a single file, its entries can be read at their offsets
+     */
+    ZIP,
+    /**
+     * Main file of a split ZIP archive, its entries are read through zip4j
+     */
+    SPLIT_ZIP
+}
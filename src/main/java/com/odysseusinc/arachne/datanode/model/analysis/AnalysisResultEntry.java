@@ -0,0 +1,157 @@
+package com.odysseusinc.arachne.datanode.model.analysis;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * Entry of a result archive, recorded once when the results are received so the archive is not
+ * reopened to list it or to find a file in it.
+ */
+@Entity
+@Table(name = "analysis_result_entries")
+public class AnalysisResultEntry {
+    @Id
+    @SequenceGenerator(name = "analysis_result_entries_pk_sequence", sequenceName = "analysis_result_entries_id_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_result_entries_pk_sequence")
+    private Long id;
+    @Column(name = "analysis_file_id", nullable = false)
+    private Long analysisFileId;
+    @Column(name = "name", nullable = false)
+    private String name;
+    @Column(name = "size", nullable = false)
+    private Long size;
+    @Column(name = "compressed_size", nullable = false)
+    private Long compressedSize;
+    // offset of the local file header, the entry data follows it
+    @Column(name = "local_header_offset", nullable = false)
+    private Long localHeaderOffset;
+    @Column(name = "compression_method", nullable = false)
+    private Integer compressionMethod;
+    @Column(name = "content_type")
+    private String contentType;
+    @Column(name = "directory", nullable = false)
+    private boolean directory;
+    @Column(name = "encrypted", nullable = false)
+    private boolean encrypted;
+    @Column(name = "error_report", nullable = false)
+    private boolean errorReport;
+
+    public AnalysisResultEntry() {
+
+    }
+
+    public Long getId() {
+
+        return id;
+    }
+
+    public void setId(Long id) {
+
+        this.id = id;
+    }
+
+    public Long getAnalysisFileId() {
+
+        return analysisFileId;
+    }
+
+    public void setAnalysisFileId(Long analysisFileId) {
+
+        this.analysisFileId = analysisFileId;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public void setName(String name) {
+
+        this.name = name;
+    }
+
+    public Long getSize() {
+
+        return size;
+    }
+
+    public void setSize(Long size) {
+
+        this.size = size;
+    }
+
+    public Long getCompressedSize() {
+
+        return compressedSize;
+    }
+
+    public void setCompressedSize(Long compressedSize) {
+
+        this.compressedSize = compressedSize;
+    }
+
+    public Long getLocalHeaderOffset() {
+
+        return localHeaderOffset;
+    }
+
+    public void setLocalHeaderOffset(Long localHeaderOffset) {
+
+        this.localHeaderOffset = localHeaderOffset;
+    }
+
+    public Integer getCompressionMethod() {
+
+        return compressionMethod;
+    }
+
+    public void setCompressionMethod(Integer compressionMethod) {
+
+        this.compressionMethod = compressionMethod;
+    }
+
+    public String getContentType() {
+
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+
+        this.contentType = contentType;
+    }
+
+    public boolean isDirectory() {
+
+        return directory;
+    }
+
+    public void setDirectory(boolean directory) {
+
+        this.directory = directory;
+    }
+
+    public boolean isEncrypted() {
+
+        return encrypted;
+    }
+
+    public void setEncrypted(boolean encrypted) {
+
+        this.encrypted = encrypted;
+    }
+
+    public boolean isErrorReport() {
+
+        return errorReport;
+    }
+
+    public void setErrorReport(boolean errorReport) {
+
+        this.errorReport = errorReport;
+    }
+}
@@ -20,7 +20,7 @@ import javax.persistence.Table;
 public class AnalysisStateEntry {
 
     @Id
-    @SequenceGenerator(name = "analyses_state_pk_sequence", sequenceName = "analysis_state_journal_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "analyses_state_pk_sequence", sequenceName = "analysis_state_journal_id_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analyses_state_pk_sequence")
     private Long id;
     @Column(name = "date")
@@ -0,0 +1,106 @@
+package com.odysseusinc.arachne.datanode.model.analysis;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * Piece of the analysis stdout. Only the last chunk is ever changed, it is topped up before new chunks are
+ * appended. The offsets are the positions of the first character of the chunk and of the one following it
+ * in the whole stdout.
+ */
+@Entity
+@Table(name = "analysis_stdout_chunks")
+public class AnalysisStdoutChunk {
+    @Id
+    @SequenceGenerator(name = "analysis_stdout_chunks_pk_sequence", sequenceName = "analysis_stdout_chunks_id_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_stdout_chunks_pk_sequence")
+    private Long id;
+    @Column(name = "analysis_id", nullable = false)
+    private Long analysisId;
+    @Column(name = "seq", nullable = false)
+    private Integer seq;
+    @Column(name = "start_offset", nullable = false)
+    private Long startOffset;
+    @Column(name = "end_offset", nullable = false)
+    private Long endOffset;
+    @Column(name = "content", nullable = false)
+    private String content;
+
+    public AnalysisStdoutChunk() {
+
+    }
+
+    public AnalysisStdoutChunk(Long analysisId, Integer seq, Long startOffset, String content) {
+
+        this.analysisId = analysisId;
+        this.seq = seq;
+        this.startOffset = startOffset;
+        this.endOffset = startOffset + content.length();
+        this.content = content;
+    }
+
+    public Long getId() {
+
+        return id;
+    }
+
+    public void setId(Long id) {
+
+        this.id = id;
+    }
+
+    public Long getAnalysisId() {
+
+        return analysisId;
+    }
+
+    public void setAnalysisId(Long analysisId) {
+
+        this.analysisId = analysisId;
+    }
+
+    public Integer getSeq() {
+
+        return seq;
+    }
+
+    public void setSeq(Integer seq) {
+
+        this.seq = seq;
+    }
+
+    public Long getStartOffset() {
+
+        return startOffset;
+    }
+
+    public void setStartOffset(Long startOffset) {
+
+        this.startOffset = startOffset;
+    }
+
+    public Long getEndOffset() {
+
+        return endOffset;
+    }
+
+    public void setEndOffset(Long endOffset) {
+
+        this.endOffset = endOffset;
+    }
+
+    public String getContent() {
+
+        return content;
+    }
+
+    public void setContent(String content) {
+
+        this.content = content;
+    }
+}
@@ -0,0 +1,13 @@
+package com.odysseusinc.arachne.datanode.repository;
+
+import com.odysseusinc.arachne.datanode.model.achilles.AchillesAnalysisFingerprint;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.util.List;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface AchillesAnalysisFingerprintRepository extends CrudRepository<AchillesAnalysisFingerprint, Long> {
+
+    @Transactional(readOnly = true)
+    List<AchillesAnalysisFingerprint> findByDataSource(DataSource dataSource);
+}
@@ -0,0 +1,13 @@
+package com.odysseusinc.arachne.datanode.repository;
+
+import com.odysseusinc.arachne.datanode.model.achilles.AchillesReportState;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.util.List;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface AchillesReportStateRepository extends CrudRepository<AchillesReportState, Long> {
+
+    @Transactional(readOnly = true)
+    List<AchillesReportState> findByDataSource(DataSource dataSource);
+}
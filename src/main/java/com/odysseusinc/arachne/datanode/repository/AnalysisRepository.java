@@ -23,12 +23,13 @@
 package com.odysseusinc.arachne.datanode.repository;
 
 import com.odysseusinc.arachne.datanode.model.analysis.Analysis;
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisState;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -37,80 +38,28 @@ public interface AnalysisRepository extends JpaRepository<Analysis, Long> {
     Optional<Analysis> findById(Long id);
 
     @Query(nativeQuery = true, value =
-            "SELECT analyses.* "
-                    + "FROM analyses "
-                    + " JOIN analysis_state_journal AS journal ON journal.analysis_id = analyses.id "
-                    + " JOIN (SELECT analysis_id, max(date) AS latest FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS FOO ON journal.date = FOO.latest AND journal.analysis_id=FOO.analysis_id "
-                    + " WHERE analyses.id = :id AND analyses.callback_password = :password AND journal.state = 'EXECUTING'")
-    Optional<Analysis> findOneExecuting(@Param("id") Long id, @Param("password") String password);
+            "SELECT analyses.* FROM analyses "
+                    + " WHERE analyses.id IN (:ids) AND analyses.current_state = 'EXECUTING'")
+    List<Analysis> findAllExecuting(@Param("ids") Collection<Long> ids);
 
-    @Query(nativeQuery = true, value =
-            "SELECT analyses.* "
-            + "FROM analyses "
-            + " JOIN analysis_state_journal AS journal ON journal.analysis_id = analyses.id "
-            + " JOIN (SELECT analysis_id, max(date) AS latest FROM analysis_state_journal "
-            + " GROUP BY analysis_id) AS FOO ON journal.date = FOO.latest AND journal.analysis_id=FOO.analysis_id "
-            + " WHERE journal.state = :state AND analyses.central_id IS NOT NULL")
-    List<Analysis> findAllByState(@Param("state") String state);
-
-    @Query(nativeQuery = true, value =
-            "SELECT analyses.* "
-                    + "FROM analyses "
-                    + " JOIN analysis_state_journal AS journal ON journal.analysis_id = analyses.id "
-                    + " JOIN (SELECT analysis_id, max(date) AS latest FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS FOO ON journal.date = FOO.latest AND journal.analysis_id=FOO.analysis_id "
-                    + " WHERE journal.state NOT IN (:states)")
-    List<Analysis> findAllByNotStateIn(@Param("states") List<String> states);
+    @Query("SELECT a.callbackPassword FROM Analysis a WHERE a.id = :id AND a.currentState = :state")
+    Optional<String> findCallbackPasswordByIdAndState(@Param("id") Long id, @Param("state") AnalysisState state);
 
     @Query(nativeQuery = true, value =
-            "SELECT analyses.* "
-            + " FROM analyses "
-            + " JOIN analysis_state_journal AS journal ON journal.analysis_id = analyses.id "
-            + " JOIN (SELECT analysis_id, max(date) AS latest FROM analysis_state_journal "
-            + " GROUP BY analysis_id) AS FOO ON journal.date = FOO.latest AND journal.analysis_id=FOO.analysis_id "
-            + " WHERE journal.state = :state AND journal.date < :time")
-    List<Analysis> findAllExecutingMoreThan(@Param("state") String state, @Param("time") Date time);
+            "SELECT analyses.* FROM analyses "
+            + " WHERE analyses.current_state = :state AND analyses.central_id IS NOT NULL")
+    List<Analysis> findAllByState(@Param("state") String state);
 
-    @Query(nativeQuery = true, value =
-            "select a.* from analyses a "
-                    + " JOIN analysis_state_journal AS journal ON journal.analysis_id = a.id "
-                    + " JOIN (SELECT analysis_id, max(date) AS latest FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS FOO ON journal.date = FOO.latest AND journal.analysis_id=FOO.analysis_id"
-                    + " \n--#pageable\n",
-        countQuery = "select count(a.*) from analyses a "
-                + " JOIN analysis_state_journal AS journal ON journal.analysis_id = a.id "
-                + " JOIN (SELECT analysis_id, max(date) AS latest FROM analysis_state_journal "
-                + " GROUP BY analysis_id) AS FOO ON journal.date = FOO.latest AND journal.analysis_id=FOO.analysis_id")
-    Page<Analysis> findAllPagedOrderByState(Pageable pageable);
+    @Query("SELECT a.id FROM Analysis a WHERE a.currentState NOT IN (:states) ORDER BY a.id")
+    List<Long> findIdsByStateNotIn(@Param("states") Collection<AnalysisState> states);
 
-    @Query(nativeQuery = true, value =
-            "select a.* from analyses a "
-                    + " JOIN analysis_state_journal AS journal ON journal.analysis_id = a.id "
-                    + " JOIN (SELECT analysis_id, min(date) AS submitted FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS SUB ON journal.date = SUB.submitted AND journal.analysis_id=SUB.analysis_id"
-                    + " \n--#pageable\n",
-            countQuery = "select count(a.*) from analyses a "
-                    + " JOIN analysis_state_journal AS journal ON journal.analysis_id = a.id "
-                    + " JOIN (SELECT analysis_id, min(date) AS submitted FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS SUB ON journal.date = SUB.submitted AND journal.analysis_id=SUB.analysis_id")
-    Page<Analysis> findAllPagedOrderBySubmitted(Pageable pageable);
+    @Query("SELECT a.id FROM Analysis a WHERE a.currentState = :state AND a.currentStateDate < :time ORDER BY a.id")
+    List<Long> findIdsByStateBefore(@Param("state") AnalysisState state, @Param("time") Date time);
 
+    @Modifying
     @Query(nativeQuery = true, value =
-            "select a.*, "
-                    + "case journal.state "
-                    + "  when 'EXECUTING' then null "
-                    + "  when 'EXECUTION_READY' then null "
-                    + "  when 'CREATED' then null"
-                    + "  else journal.date "
-                    + "end as finished FROM analyses a "
-                    + " JOIN analysis_state_journal AS journal ON journal.analysis_id = a.id "
-                    + " JOIN (SELECT analysis_id, max(date) AS finished FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS SUB ON journal.date = SUB.finished AND journal.analysis_id=SUB.analysis_id"
-                    + " \n--#pageable\n",
-            countQuery = "select count(a.*) from analyses a "
-                    + " JOIN analysis_state_journal AS journal ON journal.analysis_id = a.id "
-                    + " JOIN (SELECT analysis_id, max(date) AS finished FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS SUB ON journal.date = SUB.finished AND journal.analysis_id=SUB.analysis_id")
-    Page<Analysis> findAllPagedOrderByFinished(Pageable pageable);
+            "UPDATE analyses SET result_status = :status "
+                    + " WHERE analyses.id IN (:ids) AND analyses.current_state NOT IN (:states)")
+    int updateResultStatusByStateNotIn(@Param("ids") Collection<Long> ids, @Param("states") Collection<String> states,
+                                       @Param("status") String status);
 }
@@ -0,0 +1,13 @@
+package com.odysseusinc.arachne.datanode.repository;
+
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisResultEntry;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AnalysisResultEntryRepository extends JpaRepository<AnalysisResultEntry, Long> {
+
+    List<AnalysisResultEntry> findAllByAnalysisFileIdOrderById(Long analysisFileId);
+
+    Optional<AnalysisResultEntry> findFirstByAnalysisFileIdAndName(Long analysisFileId, String name);
+}
@@ -23,17 +23,48 @@
 package com.odysseusinc.arachne.datanode.repository;
 
 import com.odysseusinc.arachne.datanode.model.analysis.AnalysisStateEntry;
+import java.util.Collection;
+import java.util.Date;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface AnalysisStateJournalRepository extends JpaRepository<AnalysisStateEntry, Long> {
+
+    String INSERT_STATE_SQL = "INSERT INTO analysis_state_journal (id, date, state, reason, analysis_id) "
+            + " SELECT nextval('analysis_state_journal_id_seq'), :date, :state, :reason, analyses.id FROM analyses ";
+
     @Query(value =
             " SELECT journal.* FROM analysis_state_journal AS journal "
-                    + " JOIN (SELECT analysis_id, max(date) AS latest FROM analysis_state_journal "
-                    + " GROUP BY analysis_id) AS FOO ON journal.date = FOO.latest AND journal.analysis_id=FOO.analysis_id "
-                    + " WHERE journal.analysis_Id = :id",
+                    + " JOIN analyses ON analyses.latest_state_id = journal.id "
+                    + " WHERE analyses.id = :id",
             nativeQuery = true)
     Optional<AnalysisStateEntry> findLatestByAnalysisId(@Param("id") Long analysisId);
+
+    /**
+     * Moves the analyses still in the given state since before the given time to a new state
+     *
+     * @return number of analyses moved
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = INSERT_STATE_SQL
+            + " WHERE analyses.id IN (:ids) AND analyses.current_state = :currentState"
+            + " AND analyses.current_state_date < :before")
+    int insertStateByStateBefore(@Param("ids") Collection<Long> ids, @Param("currentState") String currentState,
+                                 @Param("before") Date before, @Param("state") String state,
+                                 @Param("reason") String reason, @Param("date") Date date);
+
+    /**
+     * Moves the analyses not in any of the given states to a new state
+     *
+     * @return number of analyses moved
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = INSERT_STATE_SQL
+            + " WHERE analyses.id IN (:ids) AND analyses.current_state NOT IN (:states)")
+    int insertStateByStateNotIn(@Param("ids") Collection<Long> ids, @Param("states") Collection<String> states,
+                                @Param("state") String state, @Param("reason") String reason,
+                                @Param("date") Date date);
 }
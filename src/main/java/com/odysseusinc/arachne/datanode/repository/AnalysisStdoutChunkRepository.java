@@ -0,0 +1,25 @@
+package com.odysseusinc.arachne.datanode.repository;
+
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisStdoutChunk;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AnalysisStdoutChunkRepository extends JpaRepository<AnalysisStdoutChunk, Long> {
+
+    Optional<AnalysisStdoutChunk> findFirstByAnalysisIdOrderBySeqDesc(Long analysisId);
+
+    List<AnalysisStdoutChunk> findTop16ByAnalysisIdAndSeqGreaterThanOrderBySeq(Long analysisId, Integer seq);
+
+    @Query("SELECT c FROM AnalysisStdoutChunk c "
+            + " WHERE c.analysisId = :analysisId AND c.endOffset > :from AND c.startOffset < :to "
+            + " ORDER BY c.seq")
+    List<AnalysisStdoutChunk> findRange(@Param("analysisId") Long analysisId, @Param("from") Long from, @Param("to") Long to);
+
+    @Modifying
+    @Query("DELETE FROM AnalysisStdoutChunk c WHERE c.analysisId = :analysisId")
+    void deleteByAnalysisId(@Param("analysisId") Long analysisId);
+}
@@ -26,12 +26,22 @@ import com.odysseusinc.arachne.commons.api.v1.dto.CommonAnalysisType;
 import com.odysseusinc.arachne.datanode.model.atlas.Atlas;
 import com.odysseusinc.arachne.datanode.model.atlas.CommonEntity;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface CommonEntityRepository extends CrudRepository<CommonEntity, Long> {
     Optional<CommonEntity> getByOriginIdAndLocalIdAndAnalysisType(Long originId, Integer localId, CommonAnalysisType analysisType);
 
+    List<CommonEntity> findByOriginIdAndAnalysisTypeAndLocalIdIn(Long originId, CommonAnalysisType analysisType, Collection<Integer> localIds);
+
     Optional<CommonEntity> findByGuid(String guid);
+
+    @Query(nativeQuery = true, value = "SELECT e.* FROM common_entity e "
+            + "JOIN common_entity_guid_alias a ON a.common_entity_id = e.id WHERE a.guid = :guid")
+    Optional<CommonEntity> findByAliasGuid(@Param("guid") String guid);
 }
@@ -43,7 +43,12 @@ public interface AnalysisService {
 
     Analysis persist(Analysis analysis);
 
-    Optional<Analysis> updateStatus(Long id, String stdoutDiff, String password);
+    void updateStatuses(List<AnalysisStatusUpdate> updates);
+
+    /**
+     * @return callback password of the analysis if it is executing
+     */
+    Optional<String> findExecutingCallbackPassword(Long id);
 
     void invalidateExecutingLong();
 
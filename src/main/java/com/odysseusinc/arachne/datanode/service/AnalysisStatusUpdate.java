@@ -0,0 +1,75 @@
+package com.odysseusinc.arachne.datanode.service;
+
+import java.util.Date;
+
+/**
+ * Status callbacks of a running analysis received since the last flush, merged into one update
+ */
+public class AnalysisStatusUpdate {
+
+    private final Long analysisId;
+    private final String password;
+    private final StringBuilder stdout = new StringBuilder();
+    private Date received;
+    private int attempts;
+
+    public AnalysisStatusUpdate(Long analysisId, String password) {
+
+        this.analysisId = analysisId;
+        this.password = password;
+    }
+
+    public AnalysisStatusUpdate append(String stdoutDiff, Date received) {
+
+        if (stdoutDiff != null) {
+            stdout.append(stdoutDiff);
+        }
+        this.received = received;
+        return this;
+    }
+
+    /**
+     * Appends the callbacks merged into an update received later
+     */
+    public AnalysisStatusUpdate append(AnalysisStatusUpdate later) {
+
+        stdout.append(later.stdout);
+        received = later.received;
+        return this;
+    }
+
+    public Long getAnalysisId() {
+
+        return analysisId;
+    }
+
+    public String getPassword() {
+
+        return password;
+    }
+
+    public String getStdout() {
+
+        return stdout.toString();
+    }
+
+    public int getStdoutLength() {
+
+        return stdout.length();
+    }
+
+    public Date getReceived() {
+
+        return received;
+    }
+
+    public int getAttempts() {
+
+        return attempts;
+    }
+
+    public int failed() {
+
+        return ++attempts;
+    }
+}
@@ -0,0 +1,25 @@
+package com.odysseusinc.arachne.datanode.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Stdout of analyses, stored as appended chunks. Offsets and lengths are in characters.
+ */
+public interface AnalysisStdoutService {
+
+    void append(Long analysisId, String stdout);
+
+    /**
+     * Replaces the whole stdout, e.g. with the final one sent along with the results
+     */
+    void replace(Long analysisId, String stdout);
+
+    long length(Long analysisId);
+
+    String read(Long analysisId, long offset, int length);
+
+    String tail(Long analysisId, int length);
+
+    void writeTo(Long analysisId, Writer writer) throws IOException;
+}
@@ -0,0 +1,13 @@
+package com.odysseusinc.arachne.datanode.service;
+
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.util.datasource.ConnectionProvider;
+
+/**
+ * Keeps a pool of JDBC connections per CDM data source. Connections returned by
+ * {@link #getConnection(DataSource)} go back to the pool when closed.
+ */
+public interface CdmConnectionRegistry extends ConnectionProvider {
+
+    void invalidate(DataSource dataSource);
+}
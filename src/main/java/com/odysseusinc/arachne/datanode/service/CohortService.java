@@ -25,6 +25,7 @@ package com.odysseusinc.arachne.datanode.service;
 import com.odysseusinc.arachne.commons.types.DBMSType;
 import com.odysseusinc.arachne.datanode.service.impl.CohortServiceImpl;
 import java.io.File;
+import java.util.List;
 import java.util.Map;
 
 public interface CohortService {
@@ -40,5 +41,11 @@ public interface CohortService {
     String translateSQL(String sourceStatement, Map<String, String> parameters,
                         DBMSType dbmsType, String sessionId, String tempSchema, CohortServiceImpl.TranslateOptions options);
 
+    /**
+     * Translates statements sharing the dialect, session and placeholders, e.g. an analysis and its satellites
+     */
+    List<String> translateSQL(List<String> sourceStatements, Map<String, String> parameters,
+                              DBMSType dbmsType, String sessionId, String tempSchema, CohortServiceImpl.TranslateOptions options);
+
     String translateSql(String dbmsType, String sessionId, String tempSchema, String renderedSQL);
 }
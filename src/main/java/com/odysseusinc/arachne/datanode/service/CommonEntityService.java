@@ -25,10 +25,19 @@ package com.odysseusinc.arachne.datanode.service;
 import com.odysseusinc.arachne.commons.api.v1.dto.CommonAnalysisType;
 import com.odysseusinc.arachne.datanode.model.atlas.CommonEntity;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CommonEntityService {
     CommonEntity getOrCreate(Long originId, Integer localId, CommonAnalysisType analysisType);
 
+    /**
+     * Resolves the GUIDs of the entities of one Atlas and type, registering the missing ones
+     *
+     * @return GUIDs by local id
+     */
+    Map<Integer, String> getOrCreateGuids(Long originId, CommonAnalysisType analysisType, Collection<Integer> localIds);
+
     Optional<CommonEntity> findByGuid(String guid);
 }
@@ -0,0 +1,17 @@
+package com.odysseusinc.arachne.datanode.service;
+
+import com.odysseusinc.arachne.datanode.dto.submission.SubmissionDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Read model of the submissions list, built from the columns shown in the list only.
+ */
+public interface SubmissionService {
+
+    /**
+     * @param after id of the last submission of the previous page. When the sort allows it, the page is
+     *              read after that submission instead of skipping the rows of the preceding pages
+     */
+    Page<SubmissionDTO> list(Pageable pageable, Long after);
+}
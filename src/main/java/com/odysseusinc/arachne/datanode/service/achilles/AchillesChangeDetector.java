@@ -0,0 +1,268 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.model.achilles.AchillesAnalysisFingerprint;
+import com.odysseusinc.arachne.datanode.model.achilles.AchillesReportState;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.repository.AchillesAnalysisFingerprintRepository;
+import com.odysseusinc.arachne.datanode.repository.AchillesReportStateRepository;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesExportPlan.AnalysisFingerprint;
+import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Decides which Achilles reports have to be recomputed.
+ * <p>
+ * Every analysis of achilles_results and achilles_results_dist is fingerprinted by its row count and
+ * an order independent hash of its rows. A report depends on the analysis ids referenced by its SQL
+ * templates, so it is skipped when the templates and all these analyses are the same as in the last
+ * export sent to Central. Reports whose templates do not reference analysis ids are always recomputed,
+ * and so is every report once its state is older than {@code achilles.incremental.max-age}, which also
+ * picks up vocabulary changes that are not visible in the Achilles tables.
+ */
+@Component
+public class AchillesChangeDetector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AchillesChangeDetector.class);
+    private static final Pattern ANALYSIS_ID_PATTERN
+            = Pattern.compile("analysis_id\\s*(?:=\\s*(\\d+)|in\\s*\\(([\\d\\s,]+)\\))", Pattern.CASE_INSENSITIVE);
+    private static final String[] RESULT_TABLES = {"achilles_results", "achilles_results_dist"};
+    private static final String ANALYSIS_ID = "analysis_id";
+    private static final int FETCH_SIZE = 10000;
+    private static final HashFunction ROW_HASH = Hashing.murmur3_128();
+
+    private final SqlUtils sqlUtils;
+    private final CdmConnectionRegistry connectionRegistry;
+    private final AchillesAnalysisFingerprintRepository analysisFingerprintRepository;
+    private final AchillesReportStateRepository reportStateRepository;
+    private final AchillesProperties properties;
+
+    public AchillesChangeDetector(SqlUtils sqlUtils,
+                                  CdmConnectionRegistry connectionRegistry,
+                                  AchillesAnalysisFingerprintRepository analysisFingerprintRepository,
+                                  AchillesReportStateRepository reportStateRepository,
+                                  AchillesProperties properties) {
+
+        this.sqlUtils = sqlUtils;
+        this.connectionRegistry = connectionRegistry;
+        this.analysisFingerprintRepository = analysisFingerprintRepository;
+        this.reportStateRepository = reportStateRepository;
+        this.properties = properties;
+    }
+
+    public AchillesExportPlan plan(DataSource dataSource, Iterable<AchillesReportTask> tasks)
+            throws SQLException, IOException {
+
+        Map<Integer, AnalysisFingerprint> analyses = collectFingerprints(dataSource);
+        logChangedAnalyses(dataSource, analyses);
+        Map<String, AchillesReportState> states = reportStateRepository.findByDataSource(dataSource).stream()
+                .collect(Collectors.toMap(AchillesReportState::getReport, Function.identity()));
+        Date expiry = new Date(System.currentTimeMillis() - properties.getIncremental().getMaxAge().toMillis());
+        AchillesExportPlan plan = new AchillesExportPlan(analyses);
+        for (AchillesReportTask task : tasks) {
+            String fingerprint = reportFingerprint(dataSource, task, analyses);
+            AchillesReportState state = states.get(task.getName());
+            boolean unchanged = Objects.nonNull(fingerprint) && Objects.nonNull(state)
+                    && fingerprint.equals(state.getFingerprint())
+                    && state.getUpdated().after(expiry);
+            plan.add(task, fingerprint, unchanged);
+        }
+        LOGGER.info("Achilles export of {}: {} report(s) changed, {} unchanged",
+                dataSource, plan.getChanged().size(), plan.getUnchanged().size());
+        return plan;
+    }
+
+    /**
+     * Remembers the fingerprints of an export once Central has accepted it
+     */
+    @Transactional
+    public void commit(DataSource dataSource, AchillesExportPlan plan) {
+
+        Date now = new Date();
+        Map<String, AchillesReportState> states = reportStateRepository.findByDataSource(dataSource).stream()
+                .collect(Collectors.toMap(AchillesReportState::getReport, Function.identity()));
+        for (AchillesReportTask task : plan.getChanged()) {
+            String fingerprint = plan.getFingerprint(task.getName());
+            AchillesReportState state = states.get(task.getName());
+            if (Objects.isNull(fingerprint)) {
+                if (Objects.nonNull(state)) {
+                    reportStateRepository.delete(state);
+                }
+                continue;
+            }
+            if (Objects.isNull(state)) {
+                state = new AchillesReportState();
+                state.setDataSource(dataSource);
+                state.setReport(task.getName());
+            }
+            state.setFingerprint(fingerprint);
+            state.setUpdated(now);
+            reportStateRepository.save(state);
+        }
+
+        Map<Integer, AnalysisFingerprint> analyses = new HashMap<>(plan.getAnalyses());
+        for (AchillesAnalysisFingerprint stored : analysisFingerprintRepository.findByDataSource(dataSource)) {
+            AnalysisFingerprint current = analyses.remove(stored.getAnalysisId());
+            if (Objects.isNull(current)) {
+                analysisFingerprintRepository.delete(stored);
+            } else if (!current.sameAs(toFingerprint(stored))) {
+                stored.setRowCount(current.getRowCount());
+                stored.setContentHash(current.getContentHash());
+                stored.setUpdated(now);
+                analysisFingerprintRepository.save(stored);
+            }
+        }
+        analyses.forEach((analysisId, current) -> {
+            AchillesAnalysisFingerprint created = new AchillesAnalysisFingerprint();
+            created.setDataSource(dataSource);
+            created.setAnalysisId(analysisId);
+            created.setRowCount(current.getRowCount());
+            created.setContentHash(current.getContentHash());
+            created.setUpdated(now);
+            analysisFingerprintRepository.save(created);
+        });
+    }
+
+    /**
+     * @return hash of the templates and the analyses they read or null if the inputs are unknown
+     */
+    String reportFingerprint(DataSource dataSource, AchillesReportTask task,
+                             Map<Integer, AnalysisFingerprint> analyses) throws IOException {
+
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(task.getName(), StandardCharsets.UTF_8)
+                .putString(StringUtils.defaultString(dataSource.getCdmSchema()), StandardCharsets.UTF_8)
+                .putString(StringUtils.defaultString(dataSource.getResultSchema()), StandardCharsets.UTF_8);
+        SortedSet<Integer> analysisIds = new TreeSet<>();
+        for (String template : task.getSqlTemplates()) {
+            String sql = sqlUtils.readSql(template);
+            Set<Integer> templateIds = analysisIds(sql);
+            if (templateIds.isEmpty()) {
+                return null;
+            }
+            analysisIds.addAll(templateIds);
+            hasher.putString(sql, StandardCharsets.UTF_8);
+        }
+        for (Integer analysisId : analysisIds) {
+            AnalysisFingerprint fingerprint = analyses.getOrDefault(analysisId, new AnalysisFingerprint());
+            hasher.putInt(analysisId)
+                    .putLong(fingerprint.getRowCount())
+                    .putLong(fingerprint.getContentHash());
+        }
+        return hasher.hash().toString();
+    }
+
+    static Set<Integer> analysisIds(String sql) {
+
+        Set<Integer> ids = new TreeSet<>();
+        Matcher matcher = ANALYSIS_ID_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            if (Objects.nonNull(matcher.group(1))) {
+                ids.add(Integer.valueOf(matcher.group(1)));
+            } else {
+                for (String id : matcher.group(2).split(",")) {
+                    if (StringUtils.isNotBlank(id)) {
+                        ids.add(Integer.valueOf(id.trim()));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private Map<Integer, AnalysisFingerprint> collectFingerprints(DataSource dataSource) throws SQLException {
+
+        String schema = StringUtils.defaultIfEmpty(dataSource.getResultSchema(), dataSource.getCdmSchema());
+        Map<Integer, AnalysisFingerprint> fingerprints = new HashMap<>();
+        try (Connection connection = connectionRegistry.getConnection(dataSource)) {
+            connection.setAutoCommit(false);
+            for (String table : RESULT_TABLES) {
+                try (ResultSet tables = connection.getMetaData().getTables(null, schema, table, null)) {
+                    if (!tables.next()) {
+                        LOGGER.debug("Table {}.{} was not found", schema, table);
+                        continue;
+                    }
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.setFetchSize(FETCH_SIZE);
+                    try (ResultSet resultSet = statement.executeQuery(String.format("select * from %s.%s", schema, table))) {
+                        hashRows(resultSet, fingerprints);
+                    }
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    private void hashRows(ResultSet resultSet, Map<Integer, AnalysisFingerprint> fingerprints) throws SQLException {
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        int analysisColumn = 0;
+        for (int i = 1; i <= columnCount; i++) {
+            if (ANALYSIS_ID.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                analysisColumn = i;
+            }
+        }
+        if (analysisColumn == 0) {
+            throw new SQLException("Column analysis_id was not found");
+        }
+        while (resultSet.next()) {
+            Hasher hasher = ROW_HASH.newHasher();
+            for (int i = 1; i <= columnCount; i++) {
+                String value = resultSet.getString(i);
+                if (Objects.isNull(value)) {
+                    hasher.putInt(-1);
+                } else {
+                    hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+                }
+            }
+            fingerprints.computeIfAbsent(resultSet.getInt(analysisColumn), id -> new AnalysisFingerprint())
+                    .add(hasher.hash().asLong());
+        }
+    }
+
+    private void logChangedAnalyses(DataSource dataSource, Map<Integer, AnalysisFingerprint> analyses) {
+
+        if (LOGGER.isDebugEnabled()) {
+            Map<Integer, AnalysisFingerprint> stored = analysisFingerprintRepository.findByDataSource(dataSource).stream()
+                    .collect(Collectors.toMap(AchillesAnalysisFingerprint::getAnalysisId, this::toFingerprint));
+            Set<Integer> changed = analyses.entrySet().stream()
+                    .filter(entry -> !entry.getValue().sameAs(stored.get(entry.getKey())))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            LOGGER.debug("Achilles analyses changed since the last export of {}: {}", dataSource, changed);
+        }
+    }
+
+    private AnalysisFingerprint toFingerprint(AchillesAnalysisFingerprint stored) {
+
+        return new AnalysisFingerprint(stored.getRowCount(), stored.getContentHash());
+    }
+}
@@ -0,0 +1,132 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Split of the Achilles export into reports to recompute and reports Central already has
+ */
+public class AchillesExportPlan {
+
+    public static final String MANIFEST_FILE = "manifest.json";
+
+    private final List<AchillesReportTask> changed = new ArrayList<>();
+    private final List<AchillesReportTask> unchanged = new ArrayList<>();
+    private final Map<String, String> fingerprints = new HashMap<>();
+    private final Map<Integer, AnalysisFingerprint> analyses;
+
+    AchillesExportPlan(Map<Integer, AnalysisFingerprint> analyses) {
+
+        this.analyses = analyses;
+    }
+
+    public static AchillesExportPlan full(List<AchillesReportTask> tasks) {
+
+        AchillesExportPlan plan = new AchillesExportPlan(Collections.emptyMap());
+        plan.changed.addAll(tasks);
+        return plan;
+    }
+
+    void add(AchillesReportTask task, String fingerprint, boolean isUnchanged) {
+
+        (isUnchanged ? unchanged : changed).add(task);
+        if (fingerprint != null) {
+            fingerprints.put(task.getName(), fingerprint);
+        }
+    }
+
+    public List<AchillesReportTask> getChanged() {
+
+        return changed;
+    }
+
+    public List<AchillesReportTask> getUnchanged() {
+
+        return unchanged;
+    }
+
+    public boolean isIncremental() {
+
+        return !unchanged.isEmpty();
+    }
+
+    public List<String> getUnchangedOutputs() {
+
+        return unchanged.stream()
+                .flatMap(task -> task.getOutputs().stream())
+                .collect(Collectors.toList());
+    }
+
+    String getFingerprint(String report) {
+
+        return fingerprints.get(report);
+    }
+
+    Map<Integer, AnalysisFingerprint> getAnalyses() {
+
+        return analyses;
+    }
+
+    /**
+     * Lists files and directories of the previous export which Central should keep as they are
+     */
+    public void writeManifest(ResultArchive archive) throws IOException {
+
+        archive.writeJson(MANIFEST_FILE, writer -> {
+            writer.beginObject();
+            writer.name("incremental").value(true);
+            writer.name("unchanged").beginArray();
+            for (String output : getUnchangedOutputs()) {
+                writer.value(output);
+            }
+            writer.endArray();
+            writer.endObject();
+        });
+    }
+
+    static class AnalysisFingerprint {
+
+        private long rowCount;
+        private long contentHash;
+
+        AnalysisFingerprint() {
+
+        }
+
+        AnalysisFingerprint(long rowCount, long contentHash) {
+
+            this.rowCount = rowCount;
+            this.contentHash = contentHash;
+        }
+
+        /**
+         * Row hashes are summed, so the fingerprint does not depend on the order rows are read in
+         */
+        void add(long rowHash) {
+
+            rowCount++;
+            contentHash += rowHash;
+        }
+
+        long getRowCount() {
+
+            return rowCount;
+        }
+
+        long getContentHash() {
+
+            return contentHash;
+        }
+
+        boolean sameAs(AnalysisFingerprint other) {
+
+            return other != null && rowCount == other.rowCount && contentHash == other.contentHash;
+        }
+    }
+}
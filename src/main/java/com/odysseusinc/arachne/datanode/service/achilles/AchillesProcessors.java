@@ -22,27 +22,26 @@
 
 package com.odysseusinc.arachne.datanode.service.achilles;
 
+import com.odysseusinc.arachne.datanode.util.datasource.ColumnReader;
+import com.odysseusinc.arachne.datanode.util.datasource.ColumnVector;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptRowCursor;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptRowProcessor;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultSetContainer;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultSetProcessor;
-import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class AchillesProcessors {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(AchillesProcessors.class);
-
     private AchillesProcessors(){
     }
 
@@ -60,24 +59,26 @@ public class AchillesProcessors {
 
         List<String> includes = Arrays.asList(includeColumns);
         return resultSet -> {
-            Map<String, List> data = new HashMap<>();
             ResultSetMetaData metaData = resultSet.getMetaData();
             Map<String, Integer> columns = getResultSetColumns(metaData, includes);
+            Map<String, List> data = new HashMap<>();
+            int[] indexes = new int[columns.size()];
+            ColumnVector[] vectors = new ColumnVector[columns.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                indexes[i] = column.getValue();
+                vectors[i] = ColumnVector.forSqlType(metaData.getColumnType(column.getValue()));
+                data.put(column.getKey(), vectors[i++]);
+            }
+            boolean empty = true;
             while (resultSet.next()) {
-                columns.keySet().forEach(column -> {
-                    List<Object> value = new LinkedList<>();
-                    try {
-                        if (includes.isEmpty() || includes.contains(column)) {
-                            value.add(getColumnValue(resultSet, column, columns.get(column)));
-                        }
-                    } catch (SQLException e) {
-                        LOGGER.error("Failed to retrieve column data {}", column, e);
-                    }
-                    data.merge(column, value, (list, newValue) -> {
-                        list.addAll(newValue);
-                        return list;
-                    });
-                });
+                empty = false;
+                for (int c = 0; c < vectors.length; c++) {
+                    vectors[c].read(resultSet, indexes[c]);
+                }
+            }
+            if (empty) {
+                data.clear();
             }
             return new ResultSetContainer<>(data, null);
         };
@@ -123,84 +124,81 @@ public class AchillesProcessors {
         };
     }
 
+    /**
+     * @return upper case column name to column index
+     */
     private static Map<String, Integer> getResultSetColumns(ResultSetMetaData metaData, List<String> includes) throws SQLException {
 
-        includes = includes.stream().map(String::toUpperCase).collect(Collectors.toList());
+        Set<String> included = includes.stream().map(String::toUpperCase).collect(Collectors.toSet());
         Map<String, Integer> columns = new HashMap<>();
         for (int i = 1; i <= metaData.getColumnCount(); i++) {
             String columnName = metaData.getColumnName(i).toUpperCase();
-            if (includes.isEmpty() || includes.contains(columnName)) {
-                columns.put(columnName, metaData.getColumnType(i));
+            if (included.isEmpty() || included.contains(columnName)) {
+                columns.putIfAbsent(columnName, i);
             }
         }
         return columns;
     }
 
-    public static <K> ResultSetProcessor<Map> plainResultSet(String primaryKey, String... includeColumns) {
+    public static ConceptRowProcessor plainRows(String primaryKey, String... includeColumns) {
 
-        List<String> includes = new LinkedList<>(Arrays.asList(includeColumns));
+        List<String> includes = new ArrayList<>(Arrays.asList(includeColumns));
         if (!includes.isEmpty()) {
             includes.add(primaryKey);
         }
+        final Map<String, Object> defaultValue = Arrays.stream(includeColumns)
+                .collect(HashMap::new, (m, v) -> m.put(v.toUpperCase(), ""), HashMap::putAll);
         return resultSet -> {
-            Map<K, List<Map>> data = new HashMap<>();
-            Map<String, Integer> columns = getResultSetColumns(resultSet.getMetaData(), includes);
-            while (resultSet.next()) {
-                K key = (K) getColumnValue(resultSet, primaryKey, columns.getOrDefault(primaryKey.toUpperCase(), Types.VARCHAR));
-                Map values = columns.entrySet().stream()
-                        .filter(e -> !Objects.equals(e.getKey(), primaryKey))
-                        .collect(Collectors.toMap(
-                                Map.Entry::getKey,
-                                e -> {
-                                    try {
-                                        return getColumnValue(resultSet, e.getKey(), e.getValue());
-                                    } catch (SQLException ignored) {
-                                        return null;
-                                    }
-                                }
-                        ));
-                List<Map> list = new LinkedList<>();
-                list.add(values);
-                data.merge(key, list, (old, v) -> {
-                    old.addAll(v);
-                    return old;
-                });
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            Map<String, Integer> resultColumns = getResultSetColumns(metaData, includes);
+            Integer keyIndex = resultColumns.get(primaryKey.toUpperCase());
+            final ColumnReader keyReader = Objects.nonNull(keyIndex)
+                    ? ColumnReader.forSqlType(keyIndex, metaData.getColumnType(keyIndex))
+                    : ColumnReader.forSqlType(resultSet.findColumn(primaryKey), Types.VARCHAR);
+            final List<String> columns = resultColumns.keySet().stream()
+                    .filter(column -> !Objects.equals(column, primaryKey))
+                    .collect(Collectors.toList());
+            final ColumnReader[] readers = new ColumnReader[columns.size()];
+            for (int i = 0; i < readers.length; i++) {
+                int index = resultColumns.get(columns.get(i));
+                readers[i] = ColumnReader.forSqlType(index, metaData.getColumnType(index));
             }
-            final Map<String, Object> defaultMap = Arrays.stream(includeColumns)
-                    .collect(HashMap::new, (m, v) -> m.put(v.toUpperCase(), ""), HashMap::putAll);
-            return new ResultSetContainer<>(data, Collections.singletonList(defaultMap));
-        };
-    }
+            return new ConceptRowCursor() {
 
-    private static Object getColumnValue(ResultSet resultSet, String columnName, int type) throws SQLException {
-
-        Object result;
-        switch (type) {
-            case Types.INTEGER:
-            case Types.TINYINT:
-            case Types.SMALLINT:
-                result = resultSet.getInt(columnName);
-                break;
-            case Types.VARCHAR:
-            case Types.CHAR:
-            case Types.LONGNVARCHAR:
-                result = resultSet.getString(columnName);
-                break;
-            case Types.FLOAT:
-            case Types.DOUBLE:
-            case Types.REAL:
-            case Types.DECIMAL:
-            case Types.NUMERIC:
-                result = resultSet.getDouble(columnName);
-                break;
-            case Types.BIGINT:
-                result = resultSet.getLong(columnName);
-                break;
-            default:
-                result = resultSet.getString(columnName);
-                LOGGER.warn("using default string type for mapping column: {} type: {} value: {}",columnName, type, result);
-                break;
-        }
-        return result;
+                @Override
+                public List<String> getColumns() {
+
+                    return columns;
+                }
+
+                @Override
+                public Map<String, Object> getDefaultValue() {
+
+                    return defaultValue;
+                }
+
+                @Override
+                public boolean next() throws SQLException {
+
+                    return resultSet.next();
+                }
+
+                @Override
+                public Object getKey() throws SQLException {
+
+                    return keyReader.read(resultSet);
+                }
+
+                @Override
+                public Object[] getValues() throws SQLException {
+
+                    Object[] values = new Object[readers.length];
+                    for (int i = 0; i < readers.length; i++) {
+                        values[i] = readers[i].read(resultSet);
+                    }
+                    return values;
+                }
+            };
+        };
     }
 }
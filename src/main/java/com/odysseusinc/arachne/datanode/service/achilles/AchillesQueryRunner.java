@@ -0,0 +1,155 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the queries of a single report with at most {@code achilles.executor.report-parallelism}
+ * of them in flight. The report runs as a task of {@link AchillesTaskExecutor} and holds one connection
+ * of the data source; every further concurrent query takes a query slot of the executor, so queries
+ * count against the same per data source and per server limits as reports. When no slot is free the
+ * remaining queries run one after another on the connection of the report.
+ */
+@Component
+public class AchillesQueryRunner implements QueryRunner {
+
+    private final int parallelism;
+    private final AchillesTaskExecutor taskExecutor;
+    private final ThreadPoolExecutor workers;
+
+    public AchillesQueryRunner(AchillesProperties properties, AchillesTaskExecutor taskExecutor) {
+
+        AchillesProperties.ExecutorConfig config = properties.getExecutor();
+        this.parallelism = Math.max(1, config.getReportParallelism());
+        this.taskExecutor = taskExecutor;
+        int poolSize = Math.max(1, config.getMaxConcurrency()) * parallelism;
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setDaemon(false)
+                        .setThreadFactory(Executors.defaultThreadFactory())
+                        .setNameFormat("achilles-query-%d")
+                        .build());
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void runAll(DataSource dataSource, List<Task> tasks) throws SQLException, IOException {
+
+        if (parallelism == 1 || tasks.size() <= 1) {
+            SEQUENTIAL.runAll(dataSource, tasks);
+            return;
+        }
+        CompletionService<Boolean> completion = new ExecutorCompletionService<>(workers);
+        List<SlotTask> running = new ArrayList<>(tasks.size());
+        int submitted = 0;
+        int inFlight = 0;
+        boolean reportSlotBusy = false;
+        try {
+            while (submitted < tasks.size() || inFlight > 0) {
+                while (submitted < tasks.size() && inFlight < parallelism) {
+                    boolean querySlot = reportSlotBusy;
+                    if (querySlot && !taskExecutor.tryAcquireQuerySlot(dataSource)) {
+                        break;
+                    }
+                    reportSlotBusy = true;
+                    SlotTask task = new SlotTask(dataSource, tasks.get(submitted++), querySlot);
+                    task.future = completion.submit(task);
+                    running.add(task);
+                    inFlight++;
+                }
+                boolean usedQuerySlot = completion.take().get();
+                inFlight--;
+                if (!usedQuerySlot) {
+                    reportSlotBusy = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Report queries were interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            running.forEach(SlotTask::cancel);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        workers.shutdownNow();
+    }
+
+    /**
+     * Query releasing its slot when it completes or when it is cancelled before it starts
+     */
+    private class SlotTask implements Callable<Boolean> {
+
+        private final DataSource dataSource;
+        private final Task task;
+        private final boolean querySlot;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private Future<Boolean> future;
+
+        private SlotTask(DataSource dataSource, Task task, boolean querySlot) {
+
+            this.dataSource = dataSource;
+            this.task = task;
+            this.querySlot = querySlot;
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+
+            if (started.compareAndSet(false, true)) {
+                try {
+                    task.run();
+                } finally {
+                    release();
+                }
+            }
+            return querySlot;
+        }
+
+        private void cancel() {
+
+            future.cancel(true);
+            if (started.compareAndSet(false, true)) {
+                release();
+            }
+        }
+
+        private void release() {
+
+            if (querySlot) {
+                taskExecutor.releaseQuerySlot(dataSource);
+            }
+        }
+    }
+}
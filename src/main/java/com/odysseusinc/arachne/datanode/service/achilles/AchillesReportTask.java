@@ -0,0 +1,44 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Part of the Achilles export: the SQL templates it reads and the files or directories it
+ * produces, relative to the export root
+ */
+public class AchillesReportTask {
+
+    private final String name;
+    private final List<String> sqlTemplates;
+    private final List<String> outputs;
+    private final Callable<Integer> callable;
+
+    public AchillesReportTask(String name, List<String> sqlTemplates, List<String> outputs, Callable<Integer> callable) {
+
+        this.name = name;
+        this.sqlTemplates = sqlTemplates;
+        this.outputs = outputs;
+        this.callable = callable;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public List<String> getSqlTemplates() {
+
+        return sqlTemplates;
+    }
+
+    public List<String> getOutputs() {
+
+        return outputs;
+    }
+
+    public Callable<Integer> getCallable() {
+
+        return callable;
+    }
+}
@@ -0,0 +1,187 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.dto.achilles.AchillesUploadDTO;
+import com.odysseusinc.arachne.datanode.service.client.portal.CentralSystemClient;
+import feign.FeignException;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Uploads an Achilles archive to Central in fixed size parts read straight from disk.
+ * <p>
+ * Parts acknowledged by Central are remembered between retry attempts, a retry asks Central which parts
+ * it has received and sends only the missing ones. At most part size multiplied by parallelism bytes
+ * are held in memory.
+ */
+@Component
+public class AchillesResultUploader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AchillesResultUploader.class);
+
+    private final CentralSystemClient centralSystemClient;
+    private final RetryTemplate retryTemplate;
+    private final AchillesProperties properties;
+
+    public AchillesResultUploader(CentralSystemClient centralSystemClient,
+                                  @Qualifier("achillesUploadRetryTemplate") RetryTemplate retryTemplate,
+                                  AchillesProperties properties) {
+
+        this.centralSystemClient = centralSystemClient;
+        this.retryTemplate = retryTemplate;
+        this.properties = properties;
+    }
+
+    public void upload(Long centralId, File archive) throws Exception {
+
+        long partSize = Math.max(1, properties.getUpload().getPartSize().toBytes());
+        long size = archive.length();
+        AchillesUploadDTO request = new AchillesUploadDTO();
+        request.setFileName(archive.getName());
+        request.setSize(size);
+        request.setPartSize(partSize);
+        request.setPartCount((int) Math.max(1, (size + partSize - 1) / partSize));
+        request.setChecksum(com.google.common.io.Files.asByteSource(archive).hash(Hashing.sha256()).toString());
+
+        Session session = new Session(centralId, archive, request);
+        retryTemplate.execute((RetryCallback<Void, Exception>) retryContext -> {
+            if (retryContext.getRetryCount() > 0) {
+                LOGGER.info("Resuming upload {} of {}, attempt {}", session.uploadId, archive.getName(),
+                        retryContext.getRetryCount() + 1);
+            }
+            session.resume();
+            session.sendMissingParts();
+            centralSystemClient.completeAchillesUpload(centralId, session.uploadId, request);
+            return null;
+        });
+        LOGGER.debug("Upload {} of {} completed in {} part(s)", session.uploadId, archive.getName(), request.getPartCount());
+    }
+
+    private class Session {
+
+        private final Long centralId;
+        private final File archive;
+        private final AchillesUploadDTO request;
+        private final Set<Integer> acknowledged = ConcurrentHashMap.newKeySet();
+        private String uploadId;
+
+        private Session(Long centralId, File archive, AchillesUploadDTO request) {
+
+            this.centralId = centralId;
+            this.archive = archive;
+            this.request = request;
+        }
+
+        /**
+         * Starts a new upload or syncs acknowledged parts with Central, an upload Central no longer knows
+         * is started over
+         */
+        private void resume() {
+
+            if (Objects.nonNull(uploadId)) {
+                try {
+                    acknowledge(centralSystemClient.getAchillesUpload(centralId, uploadId));
+                    return;
+                } catch (FeignException.NotFound e) {
+                    LOGGER.warn("Upload {} has expired on Central, starting over", uploadId);
+                    acknowledged.clear();
+                }
+            }
+            AchillesUploadDTO started = centralSystemClient.startAchillesUpload(centralId, request);
+            uploadId = started.getUploadId();
+            acknowledge(started);
+        }
+
+        private void acknowledge(AchillesUploadDTO status) {
+
+            if (Objects.nonNull(status.getReceivedParts())) {
+                acknowledged.addAll(status.getReceivedParts());
+            }
+        }
+
+        private void sendMissingParts() throws Exception {
+
+            List<Integer> missing = new ArrayList<>();
+            for (int part = 0; part < request.getPartCount(); part++) {
+                if (!acknowledged.contains(part)) {
+                    missing.add(part);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            int parallelism = Math.max(1, Math.min(properties.getUpload().getParallelism(), missing.size()));
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+                    .setThreadFactory(Executors.defaultThreadFactory())
+                    .setNameFormat("achilles-upload-%d")
+                    .build());
+            try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+                List<Future<?>> futures = new ArrayList<>(missing.size());
+                for (Integer part : missing) {
+                    futures.add(executor.submit(() -> {
+                        sendPart(channel, part);
+                        return null;
+                    }));
+                }
+                // every part is let to finish, so a retry sees all parts Central has acknowledged
+                Exception failure = null;
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        if (Objects.isNull(failure)) {
+                            failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                        }
+                    }
+                }
+                if (Objects.nonNull(failure)) {
+                    throw failure;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Upload of " + archive.getName() + " was interrupted");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private void sendPart(FileChannel channel, int part) throws IOException {
+
+            long offset = part * request.getPartSize();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(request.getPartSize(), request.getSize() - offset));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of " + archive.getName() + " at part " + part);
+                }
+            }
+            byte[] content = buffer.array();
+            @SuppressWarnings("deprecation")
+            String md5 = Base64.getEncoder().encodeToString(Hashing.md5().hashBytes(content).asBytes());
+            centralSystemClient.sendAchillesUploadPart(centralId, uploadId, part, md5, content);
+            acknowledged.add(part);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.config.properties.CdmConnectionPoolProperties;
+import com.odysseusinc.arachne.datanode.dto.achilles.AchillesExecutorStatsDTO;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared executor for Achilles export queries.
+ * <p>
+ * Tasks are queued per data source and dispatched round-robin, so a data source with many reports
+ * cannot starve the others. A task starts only when the global, per data source and per database
+ * server limits all allow it, bounding the load put on a single warehouse.
+ * <p>
+ * The per data source and per server limits count connections: a running task holds one, and the
+ * concurrent queries of a report take additional {@link #tryAcquireQuerySlot(DataSource) query slots}
+ * from the same limits. The per data source limit never exceeds the CDM connection pool size, so a
+ * query does not wait for a pooled connection.
+ */
+@Component
+public class AchillesTaskExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AchillesTaskExecutor.class);
+    private static final Pattern SERVER_PATTERN = Pattern.compile("(?://|@)([^/;?:@]+(?::\\d+)?)");
+
+    private final int maxConcurrency;
+    private final int maxPerDataSource;
+    private final int maxPerServer;
+    private final ExecutorService workers;
+    private final Map<Long, Deque<Task<?>>> queues = new LinkedHashMap<>();
+    private final Map<Long, Integer> activeByDataSource = new HashMap<>();
+    private final Map<String, Integer> activeByServer = new HashMap<>();
+    private int active;
+    private long completed;
+
+    public AchillesTaskExecutor(AchillesProperties properties, CdmConnectionPoolProperties poolProperties) {
+
+        AchillesProperties.ExecutorConfig config = properties.getExecutor();
+        this.maxConcurrency = Math.max(1, config.getMaxConcurrency());
+        this.maxPerDataSource = Math.max(1, Math.min(config.getMaxPerDataSource(), poolProperties.getMaximumPoolSize()));
+        this.maxPerServer = Math.max(1, config.getMaxPerServer());
+        this.workers = Executors.newFixedThreadPool(maxConcurrency, new ThreadFactoryBuilder()
+                .setDaemon(false)
+                .setThreadFactory(Executors.defaultThreadFactory())
+                .setNameFormat("achilles-pool-%d")
+                .build());
+    }
+
+    public <T> Future<T> submit(DataSource dataSource, Callable<T> callable) {
+
+        Objects.requireNonNull(dataSource, "dataSource is required");
+        Task<T> task = new Task<>(dataSource.getId(), serverKey(dataSource), callable);
+        synchronized (this) {
+            queues.computeIfAbsent(task.dataSourceId, id -> new ArrayDeque<>()).add(task);
+            dispatch();
+        }
+        return task;
+    }
+
+    /**
+     * Submits all tasks and waits for their completion, queued tasks are cancelled on interruption
+     */
+    public <T> List<Future<T>> invokeAll(DataSource dataSource, List<? extends Callable<T>> callables)
+            throws InterruptedException {
+
+        List<Future<T>> futures = new ArrayList<>(callables.size());
+        try {
+            for (Callable<T> callable : callables) {
+                futures.add(submit(dataSource, callable));
+            }
+            for (Future<T> future : futures) {
+                if (!future.isDone()) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException | CancellationException ignored) {
+                        // reported by the caller through the future
+                    }
+                }
+            }
+            return futures;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a connection of the data source for an additional query of a running task, when the
+     * limits allow it right away. The caller must {@link #releaseQuerySlot(DataSource) release} it.
+     */
+    public synchronized boolean tryAcquireQuerySlot(DataSource dataSource) {
+
+        Long dataSourceId = dataSource.getId();
+        String server = serverKey(dataSource);
+        if (activeByDataSource.getOrDefault(dataSourceId, 0) >= maxPerDataSource
+                || activeByServer.getOrDefault(server, 0) >= maxPerServer) {
+            return false;
+        }
+        activeByDataSource.merge(dataSourceId, 1, Integer::sum);
+        activeByServer.merge(server, 1, Integer::sum);
+        return true;
+    }
+
+    public synchronized void releaseQuerySlot(DataSource dataSource) {
+
+        release(dataSource.getId(), serverKey(dataSource));
+        dispatch();
+    }
+
+    public synchronized AchillesExecutorStatsDTO getStats() {
+
+        AchillesExecutorStatsDTO stats = new AchillesExecutorStatsDTO();
+        stats.setMaxConcurrency(maxConcurrency);
+        stats.setMaxPerDataSource(maxPerDataSource);
+        stats.setMaxPerServer(maxPerServer);
+        stats.setActive(active);
+        stats.setCompleted(completed);
+        Map<Long, Integer> queuedByDataSource = new HashMap<>();
+        queues.forEach((id, queue) -> queuedByDataSource.put(id, queue.size()));
+        stats.setQueued(queuedByDataSource.values().stream().mapToInt(Integer::intValue).sum());
+        stats.setQueuedByDataSource(queuedByDataSource);
+        stats.setActiveByDataSource(new HashMap<>(activeByDataSource));
+        stats.setActiveByServer(new HashMap<>(activeByServer));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+
+        workers.shutdownNow();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            LOGGER.warn("Achilles tasks did not finish in time");
+        }
+    }
+
+    /**
+     * Starts queued tasks while limits allow, visiting data sources in turn.
+     * The data source served last is moved to the end of the queue order.
+     */
+    private void dispatch() {
+
+        boolean started = true;
+        while (started && active < maxConcurrency) {
+            started = false;
+            Iterator<Map.Entry<Long, Deque<Task<?>>>> iterator = queues.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Deque<Task<?>>> entry = iterator.next();
+                Deque<Task<?>> queue = entry.getValue();
+                queue.removeIf(Future::isDone);
+                if (queue.isEmpty()) {
+                    iterator.remove();
+                    continue;
+                }
+                Task<?> task = queue.peek();
+                if (activeByDataSource.getOrDefault(task.dataSourceId, 0) >= maxPerDataSource
+                        || activeByServer.getOrDefault(task.server, 0) >= maxPerServer) {
+                    continue;
+                }
+                queue.poll();
+                iterator.remove();
+                if (!queue.isEmpty()) {
+                    queues.put(entry.getKey(), queue);
+                }
+                start(task);
+                started = true;
+                break;
+            }
+        }
+    }
+
+    private void start(Task<?> task) {
+
+        active++;
+        activeByDataSource.merge(task.dataSourceId, 1, Integer::sum);
+        activeByServer.merge(task.server, 1, Integer::sum);
+        workers.execute(task);
+    }
+
+    private synchronized void finish(Task<?> task) {
+
+        active--;
+        completed++;
+        release(task.dataSourceId, task.server);
+        dispatch();
+    }
+
+    private void release(Long dataSourceId, String server) {
+
+        activeByDataSource.computeIfPresent(dataSourceId, (id, count) -> count > 1 ? count - 1 : null);
+        activeByServer.computeIfPresent(server, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    static String serverKey(DataSource dataSource) {
+
+        String connectionString = StringUtils.defaultString(dataSource.getConnectionString());
+        Matcher matcher = SERVER_PATTERN.matcher(connectionString);
+        return matcher.find() ? matcher.group(1).toLowerCase() : connectionString;
+    }
+
+    private class Task<T> extends FutureTask<T> {
+
+        private final Long dataSourceId;
+        private final String server;
+
+        private Task(Long dataSourceId, String server, Callable<T> callable) {
+
+            super(callable);
+            this.dataSourceId = dataSourceId;
+            this.server = server;
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                super.run();
+            } finally {
+                finish(this);
+            }
+        }
+    }
+}
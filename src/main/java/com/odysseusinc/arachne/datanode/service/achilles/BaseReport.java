@@ -24,11 +24,13 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 
 import com.google.common.base.MoreObjects;
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
-import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,17 +38,21 @@ public abstract class BaseReport implements ReportRunner {
 
     protected final Logger LOGGER = LoggerFactory.getLogger(ReportRunner.class);
     protected final SqlUtils sqlUtils;
+    protected final CdmConnectionRegistry connectionRegistry;
+    protected final QueryRunner queryRunner;
 
-    public BaseReport(SqlUtils sqlUtils) {
+    public BaseReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
         this.sqlUtils = sqlUtils;
+        this.connectionRegistry = connectionRegistry;
+        this.queryRunner = queryRunner;
     }
 
     @Override
-    public Integer runReports(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public Integer runReports(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
         LOGGER.info("Starting report: {}", this);
         try {
-            return execReport(dataSource, targetDir, concepts);
+            return execReport(dataSource, archive, target, concepts);
         }catch (IOException | SQLException e){
             LOGGER.error("Report failed: {}", this, e);
             throw e;
@@ -55,7 +61,7 @@ public abstract class BaseReport implements ReportRunner {
         }
     }
 
-    protected abstract Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException;
+    protected abstract Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException;
 
     @Override
     public String toString() {
@@ -24,19 +24,21 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.Constants.CDM.CONCEPT_ID;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.concept_id;
-import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainResultSet;
+import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainRows;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.group;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
-import com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors;
-import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -49,35 +51,41 @@ public class ConditionEraReport extends BaseReport {
     public static final String CONDITIONERA_AGE_AT_FIRST_DIAGNOSIS_SQL = "classpath:/achilles/data/export/conditionera/sqlAgeAtFirstDiagnosis.sql";
 
     @Autowired
-    public ConditionEraReport(SqlUtils sqlUtils) {
+    public ConditionEraReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                CONDITIONERA_PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                CONDITIONERA_PREVALENCE_BY_MONTH_SQL,
+                CONDITIONERA_AGE_AT_FIRST_DIAGNOSIS_SQL,
+                CONDITIONERA_LENGTH_OF_ERA);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String prevalenceByGenderAgeQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITIONERA_PREVALENCE_BY_GENDER_AGE_YEAR_SQL);
         String prevalenceByMonthQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITIONERA_PREVALENCE_BY_MONTH_SQL);
         String ageQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITIONERA_AGE_AT_FIRST_DIAGNOSIS_SQL);
         String lengthQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITIONERA_LENGTH_OF_ERA);
-        return DataSourceUtils.<Map<Integer, String>>withDataSource(dataSource)
-                .run(QueryProcessors.statement(prevalenceByGenderAgeQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR",
-                        plainResultSet(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp"))
-                .run(QueryProcessors.statement(prevalenceByMonthQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_MONTH",
-                        plainResultSet(concept_id, "x_calendar_month", "y_prevalence_1000pp"))
-                .run(QueryProcessors.statement(ageQuery))
-                .forMapResults(concepts, CONCEPT_ID, "AGE_AT_FIRST_DIAGNOSIS",
-                        plainResultSet(concept_id, "category", "min_value", "p10_value",
-                                "p25_value", "median_value", "p75_value", "p90_value", "max_value"))
-                .run(QueryProcessors.statement(lengthQuery))
-                .forMapResults(concepts, CONCEPT_ID, "LENGTH_OF_ERA",
-                        plainResultSet(concept_id, "category", "min_value", "p10_value",
-                                "p25_value", "median_value", "p75_value", "p90_value", "max_value"))
-                .transform(ResultTransformers.toJsonMap(concepts))
-                .write(ResultWriters.toMultipleFiles(targetDir, "condition_%d.json", concepts))
+        return DataSourceUtils.withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, concepts, Arrays.asList(
+                        group(CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGenderAgeQuery,
+                                plainRows(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_MONTH", prevalenceByMonthQuery,
+                                plainRows(concept_id, "x_calendar_month", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "AGE_AT_FIRST_DIAGNOSIS", ageQuery,
+                                plainRows(concept_id, "category", "min_value", "p10_value",
+                                        "p25_value", "median_value", "p75_value", "p90_value", "max_value")),
+                        group(CONCEPT_ID, "LENGTH_OF_ERA", lengthQuery,
+                                plainRows(concept_id, "category", "min_value", "p10_value",
+                                        "p25_value", "median_value", "p75_value", "p90_value", "max_value"))))
+                .writeGroups(ResultWriters.toConceptJsonEntries(archive, target, "condition_%d.json"))
                 .getResultsCount();
     }
 }
@@ -24,19 +24,21 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.Constants.CDM.CONCEPT_ID;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.concept_id;
-import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainResultSet;
+import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainRows;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.group;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
-import com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors;
-import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -49,34 +51,40 @@ public class ConditionReport extends BaseReport {
     public static final String CONDITION_AGE_AT_FIRST_DIAGNOSIS_SQL = "classpath:/achilles/data/export/condition/sqlAgeAtFirstDiagnosis.sql";
 
     @Autowired
-    public ConditionReport(SqlUtils sqlUtils) {
+    public ConditionReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                CONDITION_PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                CONDITION_PREVALENCE_BY_MONTH_SQL,
+                CONDITION_CONDITIONS_BY_TYPE_SQL,
+                CONDITION_AGE_AT_FIRST_DIAGNOSIS_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String prevalenceByGenderAgeQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITION_PREVALENCE_BY_GENDER_AGE_YEAR_SQL);
         String prevalenceByMonthQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITION_PREVALENCE_BY_MONTH_SQL);
         String conditionByTypeQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITION_CONDITIONS_BY_TYPE_SQL);
         String ageQuery = sqlUtils.transformSqlTemplate(dataSource, CONDITION_AGE_AT_FIRST_DIAGNOSIS_SQL);
-        return DataSourceUtils.<Map<Integer, String>>withDataSource(dataSource)
-                .run(QueryProcessors.statement(prevalenceByGenderAgeQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR",
-                        plainResultSet(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp"))
-                .run(QueryProcessors.statement(prevalenceByMonthQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_MONTH",
-                        plainResultSet(concept_id, "x_calendar_month", "y_prevalence_1000pp"))
-                .run(QueryProcessors.statement(conditionByTypeQuery))
-                .forMapResults(concepts, "CONDITION_CONCEPT_ID", "CONDITIONS_BY_TYPE",
-                        plainResultSet("condition_concept_id", "concept_name", "count_value"))
-                .run(QueryProcessors.statement(ageQuery))
-                .forMapResults(concepts, CONCEPT_ID, "AGE_AT_FIRST_DIAGNOSIS",
-                        plainResultSet(concept_id, "category", "min_value", "p10_value",
-                                "p25_value", "median_value", "p75_value", "p90_value", "max_value"))
-                .transform(ResultTransformers.toJsonMap(concepts))
-                .write(ResultWriters.toMultipleFiles(targetDir, "condition_%d.json", concepts))
+        return DataSourceUtils.withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, concepts, Arrays.asList(
+                        group(CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGenderAgeQuery,
+                                plainRows(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_MONTH", prevalenceByMonthQuery,
+                                plainRows(concept_id, "x_calendar_month", "y_prevalence_1000pp")),
+                        group("CONDITION_CONCEPT_ID", "CONDITIONS_BY_TYPE", conditionByTypeQuery,
+                                plainRows("condition_concept_id", "concept_name", "count_value")),
+                        group(CONCEPT_ID, "AGE_AT_FIRST_DIAGNOSIS", ageQuery,
+                                plainRows(concept_id, "category", "min_value", "p10_value",
+                                        "p25_value", "median_value", "p75_value", "p90_value", "max_value"))))
+                .writeGroups(ResultWriters.toConceptJsonEntries(archive, target, "condition_%d.json"))
                 .getResultsCount();
     }
 }
@@ -24,29 +24,45 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.ageAtFirstResultSet;
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.resultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers.toJson;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toFile;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.map;
+import static com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers.toJsonStream;
+import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toJsonEntry;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.JsonStream;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DashboardReport extends BaseReport {
 
-    public DashboardReport(SqlUtils sqlUtils) {
+    public DashboardReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                PersonReport.PERSON_POPULATION_SQL,
+                PersonReport.PERSON_GENDER_SQL,
+                ObservationPeriodReport.OBSERVATIONPERIOD_AGEATFIRST_SQL,
+                ObservationPeriodReport.OBSERVATIONPERIOD_CUMULATIVEDURATION_SQL,
+                ObservationPeriodReport.OBSERVATIONPERIOD_OBSERVEDBYMONTH_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String summaryQuery = sqlUtils.transformSqlTemplate(dataSource, PersonReport.PERSON_POPULATION_SQL);
         String genderQuery = sqlUtils.transformSqlTemplate(dataSource, PersonReport.PERSON_GENDER_SQL);
@@ -54,19 +70,15 @@ public class DashboardReport extends BaseReport {
         String durationQuery = sqlUtils.transformSqlTemplate(dataSource, ObservationPeriodReport.OBSERVATIONPERIOD_CUMULATIVEDURATION_SQL);
         String byMonthQuery = sqlUtils.transformSqlTemplate(dataSource, ObservationPeriodReport.OBSERVATIONPERIOD_OBSERVEDBYMONTH_SQL);
 
-        return DataSourceUtils.<String>withDataSource(dataSource)
-                .run(statement(summaryQuery))
-                .mapResults("SUMMARY", resultSet())
-                .run(statement(genderQuery))
-                .mapResults("GENDER_DATA", resultSet())
-                .run(statement(ageFirstQuery))
-                .mapResults("AGE_AT_FIRST_OBSERVATION_HISTOGRAM", ageAtFirstResultSet())
-                .run(statement(durationQuery))
-                .mapResults("CUMULATIVE_DURATION", resultSet())
-                .run(statement(byMonthQuery))
-                .mapResults("OBSERVED_BY_MONTH", resultSet())
-                .transform(toJson())
-                .write(toFile(targetDir))
+        return DataSourceUtils.<JsonStream>withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, Arrays.asList(
+                        map("SUMMARY", summaryQuery, resultSet()),
+                        map("GENDER_DATA", genderQuery, resultSet()),
+                        map("AGE_AT_FIRST_OBSERVATION_HISTOGRAM", ageFirstQuery, ageAtFirstResultSet()),
+                        map("CUMULATIVE_DURATION", durationQuery, resultSet()),
+                        map("OBSERVED_BY_MONTH", byMonthQuery, resultSet())))
+                .transform(toJsonStream())
+                .write(toJsonEntry(archive, target))
                 .getResultsCount();
     }
 }
@@ -23,16 +23,21 @@
 package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.resultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers.toJson;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toFile;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.map;
+import static com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers.toJsonStream;
+import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toJsonEntry;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.JsonStream;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import org.springframework.stereotype.Component;
 
@@ -43,27 +48,34 @@ public class DataDensityReport extends BaseReport {
     public static final String DATADENSITY_RECORDSPERPERSON_SQL = "classpath:/achilles/data/export/datadensity/recordsperperson.sql";
     public static final String DATADENSITY_CONCEPTSPERPERSON_SQL = "classpath:/achilles/data/export/datadensity/conceptsperperson.sql";
 
-    public DataDensityReport(SqlUtils sqlUtils) {
+    public DataDensityReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetPath, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                DATADENSITY_TOTALRECORDS_SQL,
+                DATADENSITY_RECORDSPERPERSON_SQL,
+                DATADENSITY_CONCEPTSPERPERSON_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String totalQuery = sqlUtils.transformSqlTemplate(dataSource, DATADENSITY_TOTALRECORDS_SQL);
         String recordsPerPersonQuery = sqlUtils.transformSqlTemplate(dataSource, DATADENSITY_RECORDSPERPERSON_SQL);
         String conceptPerPersonQuery = sqlUtils.transformSqlTemplate(dataSource, DATADENSITY_CONCEPTSPERPERSON_SQL);
 
-        return DataSourceUtils.<String>withDataSource(dataSource)
-                .run(statement(totalQuery))
-                .mapResults("TOTAL_RECORDS", resultSet())
-                .run(statement(recordsPerPersonQuery))
-                .mapResults("RECORDS_PER_PERSON", resultSet())
-                .run(statement(conceptPerPersonQuery))
-                .mapResults("CONCEPTS_PER_PERSON", resultSet())
-                .transform(toJson())
-                .write(toFile(targetPath))
+        return DataSourceUtils.<JsonStream>withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, Arrays.asList(
+                        map("TOTAL_RECORDS", totalQuery, resultSet()),
+                        map("RECORDS_PER_PERSON", recordsPerPersonQuery, resultSet()),
+                        map("CONCEPTS_PER_PERSON", conceptPerPersonQuery, resultSet())))
+                .transform(toJsonStream())
+                .write(toJsonEntry(archive, target))
                 .getResultsCount();
     }
 }
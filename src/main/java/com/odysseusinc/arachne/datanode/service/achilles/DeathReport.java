@@ -23,16 +23,21 @@
 package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.resultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.map;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.JsonStream;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import org.springframework.stereotype.Component;
 
@@ -44,29 +49,36 @@ public class DeathReport extends BaseReport {
     public static final String DEATH_PREVALENCE_BY_GENDER_AGE_YEAR_SQL = "classpath:/achilles/data/export/death/sqlPrevalenceByGenderAgeYear.sql";
     public static final String DEATH_PREVALENCE_BY_MONTH_SQL = "classpath:/achilles/data/export/death/sqlPrevalenceByMonth.sql";
 
-    public DeathReport(SqlUtils sqlUtils) {
+    public DeathReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetPath, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                DEATH_AGE_AT_FIRST_EXPOSURE_SQL,
+                DEATH_DRUGS_BY_TYPE_SQL,
+                DEATH_PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                DEATH_PREVALENCE_BY_MONTH_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String ageQuery = sqlUtils.transformSqlTemplate(dataSource, DEATH_AGE_AT_FIRST_EXPOSURE_SQL);
         String deathByTypeQuery = sqlUtils.transformSqlTemplate(dataSource, DEATH_DRUGS_BY_TYPE_SQL);
         String prevalenceByGenderQuery = sqlUtils.transformSqlTemplate(dataSource, DEATH_PREVALENCE_BY_GENDER_AGE_YEAR_SQL);
         String prevalenceByMonthQuery = sqlUtils.transformSqlTemplate(dataSource, DEATH_PREVALENCE_BY_MONTH_SQL);
-        return DataSourceUtils.<String>withDataSource(dataSource)
-                .run(statement(ageQuery))
-                .mapResults("AGE_AT_DEATH", resultSet())
-                .run(statement(deathByTypeQuery))
-                .mapResults("DEATH_BY_TYPE", resultSet())
-                .run(statement(prevalenceByGenderQuery))
-                .mapResults("PREVALENCE_BY_GENDER_AGE_YEAR", resultSet())
-                .run(statement(prevalenceByMonthQuery))
-                .mapResults("PREVALENCE_BY_MONTH", resultSet())
-                .transform(ResultTransformers.toJson())
-                .write(ResultWriters.toFile(targetPath))
+        return DataSourceUtils.<JsonStream>withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, Arrays.asList(
+                        map("AGE_AT_DEATH", ageQuery, resultSet()),
+                        map("DEATH_BY_TYPE", deathByTypeQuery, resultSet()),
+                        map("PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGenderQuery, resultSet()),
+                        map("PREVALENCE_BY_MONTH", prevalenceByMonthQuery, resultSet())))
+                .transform(ResultTransformers.toJsonStream())
+                .write(ResultWriters.toJsonEntry(archive, target))
                 .getResultsCount();
     }
 }
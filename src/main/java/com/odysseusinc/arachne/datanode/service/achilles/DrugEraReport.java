@@ -24,18 +24,20 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.Constants.CDM.CONCEPT_ID;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.concept_id;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.group;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
-import com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors;
-import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -47,33 +49,39 @@ public class DrugEraReport extends BaseReport {
     public static final String DRUGERA_LENGTH_OF_ERA_SQL = "classpath:/achilles/data/export/drugera/sqlLengthOfEra.sql";
 
     @Autowired
-    public DrugEraReport(SqlUtils sqlUtils) {
+    public DrugEraReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                DRUGERA_AGE_AT_FIRST_EXPOSURE_SQL,
+                DRUGERA_PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                DRUGERA_PREVALENCE_BY_MONTH_SQL,
+                DRUGERA_LENGTH_OF_ERA_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String ageExposureQuery = sqlUtils.transformSqlTemplate(dataSource, DRUGERA_AGE_AT_FIRST_EXPOSURE_SQL);
         String prevalenceByGenderQuery = sqlUtils.transformSqlTemplate(dataSource, DRUGERA_PREVALENCE_BY_GENDER_AGE_YEAR_SQL);
         String prevalenceByMonth = sqlUtils.transformSqlTemplate(dataSource, DRUGERA_PREVALENCE_BY_MONTH_SQL);
         String lengthQuery = sqlUtils.transformSqlTemplate(dataSource, DRUGERA_LENGTH_OF_ERA_SQL);
-        return DataSourceUtils.<Map<Integer, String>>withDataSource(dataSource)
-                .run(QueryProcessors.statement(ageExposureQuery))
-                .forMapResults(concepts, CONCEPT_ID, "AGE_AT_FIRST_EXPOSURE",
-                        AchillesProcessors.plainResultSet(concept_id, "category", "min_value", "p10_value", "p25_value", "median_value", "p75_value", "p90_value", "max_value"))
-                .run(QueryProcessors.statement(prevalenceByGenderQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR",
-                        AchillesProcessors.plainResultSet(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp"))
-                .run(QueryProcessors.statement(prevalenceByMonth))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_MONTH",
-                        AchillesProcessors.plainResultSet(concept_id, "x_calendar_month", "y_prevalence_1000pp"))
-                .run(QueryProcessors.statement(lengthQuery))
-                .forMapResults(concepts, CONCEPT_ID, "LENGTH_OF_ERA",
-                        AchillesProcessors.plainResultSet(concept_id, "category", "min_value", "p10_value", "p25_value", "median_value", "p75_value", "p90_value", "max_value"))
-                .transform(ResultTransformers.toJsonMap(concepts))
-                .write(ResultWriters.toMultipleFiles(targetDir, "drug_%d.json", concepts))
+        return DataSourceUtils.withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, concepts, Arrays.asList(
+                        group(CONCEPT_ID, "AGE_AT_FIRST_EXPOSURE", ageExposureQuery,
+                                AchillesProcessors.plainRows(concept_id, "category", "min_value", "p10_value", "p25_value", "median_value", "p75_value", "p90_value", "max_value")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGenderQuery,
+                                AchillesProcessors.plainRows(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_MONTH", prevalenceByMonth,
+                                AchillesProcessors.plainRows(concept_id, "x_calendar_month", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "LENGTH_OF_ERA", lengthQuery,
+                                AchillesProcessors.plainRows(concept_id, "category", "min_value", "p10_value", "p25_value", "median_value", "p75_value", "p90_value", "max_value"))))
+                .writeGroups(ResultWriters.toConceptJsonEntries(archive, target, "drug_%d.json"))
                 .getResultsCount();
     }
 }
@@ -25,20 +25,22 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.CONCEPT_ID;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.concept_id;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.DRUG_CONCEPT_ID;
-import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainResultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
+import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainRows;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.group;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
-import com.odysseusinc.arachne.datanode.util.datasource.ResultSetProcessor;
-import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptRowProcessor;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -53,13 +55,27 @@ public class DrugReport extends BaseReport {
     public static final String DRUG_QUANTITY_DISTRIBUTION_SQL = "classpath:/achilles/data/export/drug/sqlQuantityDistribution.sql";
     public static final String DRUG_REFILLS_DISTRIBUTION_SQL = "classpath:/achilles/data/export/drug/sqlRefillsDistribution.sql";
 
-    public DrugReport(SqlUtils sqlUtils) {
+    public DrugReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                DRUG_AGE_AT_FIRST_EXPOSURE_SQL,
+                DRUG_DAYS_SUPPLY_DISTRIBUTION_SQL,
+                DRUG_DRUGS_BY_TYPE_SQL,
+                DRUG_PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                DRUG_PREVALENCE_BY_MONTH_SQL,
+                DRUG_FREQUENCY_DISTRIBUTION_SQL,
+                DRUG_QUANTITY_DISTRIBUTION_SQL,
+                DRUG_REFILLS_DISTRIBUTION_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String ageQuery = sqlUtils.transformSqlTemplate(dataSource, DRUG_AGE_AT_FIRST_EXPOSURE_SQL);
         String daysSupplyQuery = sqlUtils.transformSqlTemplate(dataSource, DRUG_DAYS_SUPPLY_DISTRIBUTION_SQL);
@@ -69,37 +85,29 @@ public class DrugReport extends BaseReport {
         String frequencyQuery = sqlUtils.transformSqlTemplate(dataSource, DRUG_FREQUENCY_DISTRIBUTION_SQL);
         String quantityQuery = sqlUtils.transformSqlTemplate(dataSource, DRUG_QUANTITY_DISTRIBUTION_SQL);
         String refillsQuery = sqlUtils.transformSqlTemplate(dataSource, DRUG_REFILLS_DISTRIBUTION_SQL);
-        final ResultSetProcessor<Map> plainResultSet = plainResultSet("drug_concept_id",
+        final ConceptRowProcessor distributionRows = plainRows("drug_concept_id",
                 "category", "min_value", "p10_value", "p25_value", "median_value", "p75_value",
                 "p90_value", "max_value");
-        return DataSourceUtils.<Map<Integer, String>>withDataSource(dataSource)
-                .run(statement(ageQuery))
-                .forMapResults(concepts, DRUG_CONCEPT_ID, "AGE_AT_FIRST_EXPOSURE",
-                        plainResultSet)
-                .run(statement(daysSupplyQuery))
-                .forMapResults(concepts, DRUG_CONCEPT_ID, "DAYS_SUPPLY_DISTRIBUTION",
-                        plainResultSet)
-                .run(statement(drugsByTypeQuery))
-                .forMapResults(concepts, DRUG_CONCEPT_ID, "DRUGS_BY_TYPE",
-                        plainResultSet("drug_concept_id", "concept_name", "count_value"))
-                .run(statement(prevalenceByGenderQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR",
-                        plainResultSet(concept_id,
-                                "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp"))
-                .run(statement(prevalenceByMonthQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_MONTH",
-                        plainResultSet(concept_id, "x_calendar_month", "y_prevalence_1000pp"))
-                .run(statement(frequencyQuery))
-                .forMapResults(concepts, CONCEPT_ID, "DRUG_FREQUENCY_DISTRIBUTION",
-                        plainResultSet(concept_id, "y_num_persons", "x_count"))
-                .run(statement(quantityQuery))
-                .forMapResults(concepts, DRUG_CONCEPT_ID, "QUANTITY_DISTRIBUTION",
-                        plainResultSet)
-                .run(statement(refillsQuery))
-                .forMapResults(concepts, DRUG_CONCEPT_ID, "REFILLS_DISTRIBUTION",
-                        plainResultSet)
-                .transform(ResultTransformers.toJsonMap(concepts))
-                .write(ResultWriters.toMultipleFiles(targetDir, "drug_%d.json", concepts))
+        return DataSourceUtils.withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, concepts, Arrays.asList(
+                        group(DRUG_CONCEPT_ID, "AGE_AT_FIRST_EXPOSURE", ageQuery,
+                                distributionRows),
+                        group(DRUG_CONCEPT_ID, "DAYS_SUPPLY_DISTRIBUTION", daysSupplyQuery,
+                                distributionRows),
+                        group(DRUG_CONCEPT_ID, "DRUGS_BY_TYPE", drugsByTypeQuery,
+                                plainRows("drug_concept_id", "concept_name", "count_value")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGenderQuery,
+                                plainRows(concept_id,
+                                        "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_MONTH", prevalenceByMonthQuery,
+                                plainRows(concept_id, "x_calendar_month", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "DRUG_FREQUENCY_DISTRIBUTION", frequencyQuery,
+                                plainRows(concept_id, "y_num_persons", "x_count")),
+                        group(DRUG_CONCEPT_ID, "QUANTITY_DISTRIBUTION", quantityQuery,
+                                distributionRows),
+                        group(DRUG_CONCEPT_ID, "REFILLS_DISTRIBUTION", refillsQuery,
+                                distributionRows)))
+                .writeGroups(ResultWriters.toConceptJsonEntries(archive, target, "drug_%d.json"))
                 .getResultsCount();
     }
 }
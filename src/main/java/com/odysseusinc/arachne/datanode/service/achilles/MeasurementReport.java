@@ -36,19 +36,21 @@ import static com.odysseusinc.arachne.datanode.Constants.CDM.p10_value;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.p25_value;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.p75_value;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.p90_value;
-import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainResultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers.toJsonMap;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toMultipleFiles;
+import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainRows;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.group;
+import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toConceptJsonEntries;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -67,13 +69,29 @@ public class MeasurementReport extends BaseReport {
     public static final String VALUES_RELATIVE_TO_NORM_SQL = "classpath:/achilles/data/export/measurement/sqlValuesRelativeToNorm.sql";
 
     @Autowired
-    public MeasurementReport(SqlUtils sqlUtils) {
+    public MeasurementReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                PREVALENCE_BY_MONTH_SQL,
+                FREQUENCY_DISTRIBUTION_SQL,
+                MEASUREMENTS_BY_TYPE_SQL,
+                AGE_AT_FIRST_OCCURRENCE_SQL,
+                RECORDS_BY_UNIT_SQL,
+                MEASUREMENT_VALUE_DISTRIBUTION_SQL,
+                LOWER_LIMIT_DISTRIBUTION_SQL,
+                UPPER_LIMIT_DISTRIBUTION_SQL,
+                VALUES_RELATIVE_TO_NORM_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String prevalenceByGender = sqlUtils.transformSqlTemplate(dataSource, PREVALENCE_BY_GENDER_AGE_YEAR_SQL);
         String prevalenceByMonth = sqlUtils.transformSqlTemplate(dataSource, PREVALENCE_BY_MONTH_SQL);
@@ -86,43 +104,33 @@ public class MeasurementReport extends BaseReport {
         String upperLimit = sqlUtils.transformSqlTemplate(dataSource, UPPER_LIMIT_DISTRIBUTION_SQL);
         String valuesRelative = sqlUtils.transformSqlTemplate(dataSource, VALUES_RELATIVE_TO_NORM_SQL);
 
-        return DataSourceUtils.<Map<Integer, String>>withDataSource(dataSource)
-                .run(statement(prevalenceByGender))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR",
-                        plainResultSet(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp"))
-                .run(statement(prevalenceByMonth))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_MONTH",
-                        plainResultSet(concept_id, "x_calendar_month", "y_prevalence_1000pp"))
-                .run(statement(frequency))
-                .forMapResults(concepts, CONCEPT_ID, "FREQUENCY_DISTRIBUTION",
-                        plainResultSet(concept_id, "y_num_persons", "x_count"))
-                .run(statement(byType))
-                .forMapResults(concepts, MEASUREMENT_CONCEPT_ID, "MEASUREMENTS_BY_TYPE",
-                        plainResultSet(measurement_concept_id, concept_name, count_value))
-                .run(statement(ageAtFirst))
-                .forMapResults(concepts, CONCEPT_ID, "AGE_AT_FIRST_OCCURRENCE",
-                        plainResultSet(concept_id, category, min_value, p10_value,
-                                p25_value, median_value, p75_value, p90_value, max_value))
-                .run(statement(recordByUnit))
-                .forMapResults(concepts, MEASUREMENT_CONCEPT_ID, "RECORDS_BY_UNIT",
-                        plainResultSet(measurement_concept_id, concept_name, count_value))
-                .run(statement(valueDist))
-                .forMapResults(concepts, CONCEPT_ID, "MEASUREMENT_VALUE_DISTRIBUTION",
-                        plainResultSet(concept_id, category, min_value, p10_value,
-                                p25_value, median_value, p75_value, p90_value, max_value))
-                .run(statement(lowerLimit))
-                .forMapResults(concepts, CONCEPT_ID, "LOWER_LIMIT_DISTRIBUTION",
-                        plainResultSet(concept_id, category, min_value, p10_value,
-                                p25_value, median_value, p75_value, p90_value, max_value))
-                .run(statement(upperLimit))
-                .forMapResults(concepts, CONCEPT_ID, "UPPER_LIMIT_DISTRIBUTION",
-                        plainResultSet(concept_id, category, min_value, p10_value,
-                                p25_value, median_value, p75_value, p90_value, max_value))
-                .run(statement(valuesRelative))
-                .forMapResults(concepts, MEASUREMENT_CONCEPT_ID, "VALUES_RELATIVE_TO_NORM",
-                        plainResultSet(measurement_concept_id, concept_name, count_value))
-                .transform(toJsonMap(concepts))
-                .write(toMultipleFiles(targetDir, "measurement_%d.json", concepts))
+        return DataSourceUtils.withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, concepts, Arrays.asList(
+                        group(CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGender,
+                                plainRows(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_MONTH", prevalenceByMonth,
+                                plainRows(concept_id, "x_calendar_month", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "FREQUENCY_DISTRIBUTION", frequency,
+                                plainRows(concept_id, "y_num_persons", "x_count")),
+                        group(MEASUREMENT_CONCEPT_ID, "MEASUREMENTS_BY_TYPE", byType,
+                                plainRows(measurement_concept_id, concept_name, count_value)),
+                        group(CONCEPT_ID, "AGE_AT_FIRST_OCCURRENCE", ageAtFirst,
+                                plainRows(concept_id, category, min_value, p10_value,
+                                        p25_value, median_value, p75_value, p90_value, max_value)),
+                        group(MEASUREMENT_CONCEPT_ID, "RECORDS_BY_UNIT", recordByUnit,
+                                plainRows(measurement_concept_id, concept_name, count_value)),
+                        group(CONCEPT_ID, "MEASUREMENT_VALUE_DISTRIBUTION", valueDist,
+                                plainRows(concept_id, category, min_value, p10_value,
+                                        p25_value, median_value, p75_value, p90_value, max_value)),
+                        group(CONCEPT_ID, "LOWER_LIMIT_DISTRIBUTION", lowerLimit,
+                                plainRows(concept_id, category, min_value, p10_value,
+                                        p25_value, median_value, p75_value, p90_value, max_value)),
+                        group(CONCEPT_ID, "UPPER_LIMIT_DISTRIBUTION", upperLimit,
+                                plainRows(concept_id, category, min_value, p10_value,
+                                        p25_value, median_value, p75_value, p90_value, max_value)),
+                        group(MEASUREMENT_CONCEPT_ID, "VALUES_RELATIVE_TO_NORM", valuesRelative,
+                                plainRows(measurement_concept_id, concept_name, count_value))))
+                .writeGroups(toConceptJsonEntries(archive, target, "measurement_%d.json"))
                 .getResultsCount();
     }
 }
@@ -26,16 +26,21 @@ import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcesso
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.resultSet;
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.statsDataResultSet;
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.statsResultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.map;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.JsonStream;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -56,13 +61,30 @@ public class ObservationPeriodReport extends BaseReport {
     public static final String OBSERVATIONPERIOD_PERIODSPERPERSON_SQL = "classpath:/achilles/data/export/observationperiod/periodsperperson.sql";
 
     @Autowired
-    public ObservationPeriodReport(SqlUtils sqlUtils) {
+    public ObservationPeriodReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts)
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                OBSERVATIONPERIOD_AGEATFIRST_SQL,
+                OBSERVATIONPERIOD_AGEBYGENDER_SQL,
+                OBSERVATIONPERIOD_OBSERVATIONLENGTH_STATS_SQL,
+                OBSERVATIONPERIOD_OBSERVATIONLENGTH_DATA_SQL,
+                OBSERVATIONPERIOD_CUMULATIVEDURATION_SQL,
+                OBSERVATIONPERIOD_OBSERVATIONLENGTHBYGENDER_SQL,
+                OBSERVATIONPERIOD_OBSERVATIONLENGTHBYAGE_SQL,
+                OBSERVATIONPERIOD_OBSERVEDBYYEAR_STATS_SQL,
+                OBSERVATIONPERIOD_OBSERVEDBYYEAR_DATA_SQL,
+                OBSERVATIONPERIOD_OBSERVEDBYMONTH_SQL,
+                OBSERVATIONPERIOD_PERIODSPERPERSON_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts)
             throws IOException, SQLException {
 
         String ageFirstQuery = sqlUtils.transformSqlTemplate(dataSource, OBSERVATIONPERIOD_AGEATFIRST_SQL);
@@ -77,31 +99,21 @@ public class ObservationPeriodReport extends BaseReport {
         String byMonthQuery = sqlUtils.transformSqlTemplate(dataSource, OBSERVATIONPERIOD_OBSERVEDBYMONTH_SQL);
         String periodQuery = sqlUtils.transformSqlTemplate(dataSource, OBSERVATIONPERIOD_PERIODSPERPERSON_SQL);
 
-        return DataSourceUtils.<String>withDataSource(dataSource)
-                .run(statement(ageFirstQuery))
-                .mapResults("AGE_AT_FIRST_OBSERVATION_HISTOGRAM", ageAtFirstResultSet())
-                .run(statement(ageByGenerQuery))
-                .mapResults("AGE_BY_GENDER", resultSet())
-                .run(statement(lenStatsQuery))
-                .mapResults("OBSERVATION_LENGTH_HISTOGRAM", statsResultSet())
-                .run(statement(lenDataQuery))
-                .mapResults("OBSERVATION_LENGTH_HISTOGRAM", statsDataResultSet())
-                .run(statement(durationQuery))
-                .mapResults("CUMULATIVE_DURATION", resultSet())
-                .run(statement(lenByGenerQuery))
-                .mapResults("OBSERVATION_PERIOD_LENGTH_BY_GENDER", resultSet())
-                .run(statement(lenByAgeQuery))
-                .mapResults("OBSERVATION_PERIOD_LENGTH_BY_AGE", resultSet())
-                .run(statement(byYearStatsQuery))
-                .mapResults("OBSERVED_BY_YEAR_HISTOGRAM", statsResultSet())
-                .run(statement(byYearDataQuery))
-                .mapResults("OBSERVED_BY_YEAR_HISTOGRAM", statsDataResultSet())
-                .run(statement(byMonthQuery))
-                .mapResults("OBSERVED_BY_MONTH", resultSet())
-                .run(statement(periodQuery))
-                .mapResults("PERSON_PERIODS_DATA", resultSet())
-                .transform(ResultTransformers.toJson())
-                .write(ResultWriters.toFile(targetDir))
+        return DataSourceUtils.<JsonStream>withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, Arrays.asList(
+                        map("AGE_AT_FIRST_OBSERVATION_HISTOGRAM", ageFirstQuery, ageAtFirstResultSet()),
+                        map("AGE_BY_GENDER", ageByGenerQuery, resultSet()),
+                        map("OBSERVATION_LENGTH_HISTOGRAM", lenStatsQuery, statsResultSet()),
+                        map("OBSERVATION_LENGTH_HISTOGRAM", lenDataQuery, statsDataResultSet()),
+                        map("CUMULATIVE_DURATION", durationQuery, resultSet()),
+                        map("OBSERVATION_PERIOD_LENGTH_BY_GENDER", lenByGenerQuery, resultSet()),
+                        map("OBSERVATION_PERIOD_LENGTH_BY_AGE", lenByAgeQuery, resultSet()),
+                        map("OBSERVED_BY_YEAR_HISTOGRAM", byYearStatsQuery, statsResultSet()),
+                        map("OBSERVED_BY_YEAR_HISTOGRAM", byYearDataQuery, statsDataResultSet()),
+                        map("OBSERVED_BY_MONTH", byMonthQuery, resultSet()),
+                        map("PERSON_PERIODS_DATA", periodQuery, resultSet())))
+                .transform(ResultTransformers.toJsonStream())
+                .write(ResultWriters.toJsonEntry(archive, target))
                 .getResultsCount();
     }
 
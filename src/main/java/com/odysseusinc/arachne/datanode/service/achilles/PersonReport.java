@@ -25,16 +25,21 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.resultSet;
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.statsDataResultSet;
 import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.statsResultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.map;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.JsonStream;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -50,13 +55,25 @@ public class PersonReport extends BaseReport {
     public static final String PERSON_YEAROFBIRTH_DATA_SQL = "classpath:/achilles/data/export/person/yearofbirth_data.sql";
 
     @Autowired
-    public PersonReport(SqlUtils sqlUtils) {
+    public PersonReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetPath, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                PERSON_POPULATION_SQL,
+                PERSON_GENDER_SQL,
+                PERSON_RACE_SQL,
+                PERSON_ETHNICITY_SQL,
+                PERSON_YEAROFBIRTH_STATS_SQL,
+                PERSON_YEAROFBIRTH_DATA_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String summaryQuery = sqlUtils.transformSqlTemplate(dataSource, PERSON_POPULATION_SQL);
         String genderQuery = sqlUtils.transformSqlTemplate(dataSource, PERSON_GENDER_SQL);
@@ -65,21 +82,16 @@ public class PersonReport extends BaseReport {
         String birthYearQuery = sqlUtils.transformSqlTemplate(dataSource, PERSON_YEAROFBIRTH_STATS_SQL);
         String birthDataQuery = sqlUtils.transformSqlTemplate(dataSource, PERSON_YEAROFBIRTH_DATA_SQL);
 
-        return DataSourceUtils.<String>withDataSource(dataSource)
-                .run(statement(summaryQuery))
-                .mapResults("SUMMARY", resultSet())
-                .run(statement(genderQuery))
-                .mapResults("GENDER_DATA", resultSet())
-                .run(statement(raceQuery))
-                .mapResults("RACE_DATA", resultSet())
-                .run(statement(ethinicityQuery))
-                .mapResults("ETHNICITY_DATA", resultSet())
-                .run(statement(birthYearQuery))
-                .mapResults("BIRTH_YEAR_HISTOGRAM", statsResultSet())
-                .run(statement(birthDataQuery))
-                .mapResults("BIRTH_YEAR_HISTOGRAM", statsDataResultSet())
-                .transform(ResultTransformers.toJson())
-                .write(ResultWriters.toFile(targetPath))
+        return DataSourceUtils.<JsonStream>withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, Arrays.asList(
+                        map("SUMMARY", summaryQuery, resultSet()),
+                        map("GENDER_DATA", genderQuery, resultSet()),
+                        map("RACE_DATA", raceQuery, resultSet()),
+                        map("ETHNICITY_DATA", ethinicityQuery, resultSet()),
+                        map("BIRTH_YEAR_HISTOGRAM", birthYearQuery, statsResultSet()),
+                        map("BIRTH_YEAR_HISTOGRAM", birthDataQuery, statsDataResultSet())))
+                .transform(ResultTransformers.toJsonStream())
+                .write(ResultWriters.toJsonEntry(archive, target))
                 .getResultsCount();
     }
 
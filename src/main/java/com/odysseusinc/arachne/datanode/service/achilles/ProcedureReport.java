@@ -24,19 +24,21 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.Constants.CDM.CONCEPT_ID;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.concept_id;
-import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainResultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
+import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainRows;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.group;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
-import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -50,13 +52,24 @@ public class ProcedureReport extends BaseReport {
     public static final String PROCEDURE_AGE_AT_FIRST_OCCURRENCE_SQL = "classpath:/achilles/data/export/procedure/sqlAgeAtFirstOccurrence.sql";
 
     @Autowired
-    public ProcedureReport(SqlUtils sqlUtils) {
+    public ProcedureReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                PROCEDURE_PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                PROCEDURE_PREVALENCE_BY_MONTH_SQL,
+                PROCEDURE_FREQUENCY_DISTRIBUTION_SQL,
+                PROCEDURE_PROCEDURES_BY_TYPE_SQL,
+                PROCEDURE_AGE_AT_FIRST_OCCURRENCE_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String prevalenceByGenderQuery = sqlUtils.transformSqlTemplate(dataSource, PROCEDURE_PREVALENCE_BY_GENDER_AGE_YEAR_SQL);
         String prevalenceByMonthQuery = sqlUtils.transformSqlTemplate(dataSource, PROCEDURE_PREVALENCE_BY_MONTH_SQL);
@@ -64,25 +77,20 @@ public class ProcedureReport extends BaseReport {
         String proceduresByTypeQuery = sqlUtils.transformSqlTemplate(dataSource, PROCEDURE_PROCEDURES_BY_TYPE_SQL);
         String ageQuery = sqlUtils.transformSqlTemplate(dataSource, PROCEDURE_AGE_AT_FIRST_OCCURRENCE_SQL);
 
-        return DataSourceUtils.<Map<Integer, String>>withDataSource(dataSource)
-                .run(statement(prevalenceByGenderQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR",
-                        plainResultSet(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp"))
-                .run(statement(prevalenceByMonthQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_MONTH",
-                        plainResultSet(concept_id, "x_calendar_month", "y_prevalence_1000pp"))
-                .run(statement(procedureFrequencyQuery))
-                .forMapResults(concepts, CONCEPT_ID, "PROCEDURE_FREQUENCY_DISTRIBUTION",
-                        plainResultSet(concept_id, "y_num_persons", "x_count"))
-                .run(statement(proceduresByTypeQuery))
-                .forMapResults(concepts, "PROCEDURE_CONCEPT_ID", "PROCEDURES_BY_TYPE",
-                        plainResultSet("procedure_concept_id", "concept_name", "count_value"))
-                .run(statement(ageQuery))
-                .forMapResults(concepts, CONCEPT_ID, "AGE_AT_FIRST_OCCURRENCE",
-                        plainResultSet(concept_id, "category", "min_value", "p10_value",
-                                "p25_value", "median_value", "p75_value", "p90_value", "max_value"))
-                .transform(ResultTransformers.toJsonMap(concepts))
-                .write(ResultWriters.toMultipleFiles(targetDir, "procedure_%d.json", concepts))
+        return DataSourceUtils.withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, concepts, Arrays.asList(
+                        group(CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGenderQuery,
+                                plainRows(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_MONTH", prevalenceByMonthQuery,
+                                plainRows(concept_id, "x_calendar_month", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PROCEDURE_FREQUENCY_DISTRIBUTION", procedureFrequencyQuery,
+                                plainRows(concept_id, "y_num_persons", "x_count")),
+                        group("PROCEDURE_CONCEPT_ID", "PROCEDURES_BY_TYPE", proceduresByTypeQuery,
+                                plainRows("procedure_concept_id", "concept_name", "count_value")),
+                        group(CONCEPT_ID, "AGE_AT_FIRST_OCCURRENCE", ageQuery,
+                                plainRows(concept_id, "category", "min_value", "p10_value",
+                                        "p25_value", "median_value", "p75_value", "p90_value", "max_value"))))
+                .writeGroups(ResultWriters.toConceptJsonEntries(archive, target, "procedure_%d.json"))
                 .getResultsCount();
     }
 }
@@ -23,12 +23,18 @@
 package com.odysseusinc.arachne.datanode.service.achilles;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.List;
 
 public interface ReportRunner {
-    Integer runReports(DataSource dataSource, Path targetDir, List<Integer> concepts)
+    Integer runReports(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts)
             throws IOException, SQLException;
+
+    /**
+     * SQL templates the report is built from, their analysis ids define the inputs of the report
+     */
+    List<String> getSqlTemplates();
 }
@@ -24,19 +24,21 @@ package com.odysseusinc.arachne.datanode.service.achilles;
 
 import static com.odysseusinc.arachne.datanode.Constants.CDM.CONCEPT_ID;
 import static com.odysseusinc.arachne.datanode.Constants.CDM.concept_id;
-import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainResultSet;
-import static com.odysseusinc.arachne.datanode.util.datasource.QueryProcessors.statement;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers.toJsonMap;
-import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toMultipleFiles;
+import static com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors.plainRows;
+import static com.odysseusinc.arachne.datanode.util.datasource.ReportQuery.group;
+import static com.odysseusinc.arachne.datanode.util.datasource.ResultWriters.toConceptJsonEntries;
 
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -49,34 +51,40 @@ public class VisitReport extends BaseReport {
     public static final String VISIT_AGE_AT_FIRST_OCCURRENCE_SQL = "classpath:/achilles/data/export/visit/sqlAgeAtFirstOccurrence.sql";
 
     @Autowired
-    public VisitReport(SqlUtils sqlUtils) {
+    public VisitReport(SqlUtils sqlUtils, CdmConnectionRegistry connectionRegistry, QueryRunner queryRunner) {
 
-        super(sqlUtils);
+        super(sqlUtils, connectionRegistry, queryRunner);
     }
 
     @Override
-    protected Integer execReport(DataSource dataSource, Path targetDir, List<Integer> concepts) throws IOException, SQLException {
+    public List<String> getSqlTemplates() {
+
+        return Arrays.asList(
+                VISIT_PREVALENCE_BY_GENDER_AGE_YEAR_SQL,
+                VISIT_PREVALENCE_BY_MONTH_SQL,
+                VISIT_DURATION_BY_TYPE_SQL,
+                VISIT_AGE_AT_FIRST_OCCURRENCE_SQL);
+    }
+
+    @Override
+    protected Integer execReport(DataSource dataSource, ResultArchive archive, String target, ConceptIdSet concepts) throws IOException, SQLException {
 
         String prevalenceByGender = sqlUtils.transformSqlTemplate(dataSource, VISIT_PREVALENCE_BY_GENDER_AGE_YEAR_SQL);
         String prevalenceByMonth = sqlUtils.transformSqlTemplate(dataSource, VISIT_PREVALENCE_BY_MONTH_SQL);
         String visitDuration = sqlUtils.transformSqlTemplate(dataSource, VISIT_DURATION_BY_TYPE_SQL);
         String ageAtFirst = sqlUtils.transformSqlTemplate(dataSource, VISIT_AGE_AT_FIRST_OCCURRENCE_SQL);
 
-        return DataSourceUtils.<Map<Integer, String>>withDataSource(dataSource)
-                .run(statement(prevalenceByGender))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR",
-                        plainResultSet(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp"))
-                .run(statement(prevalenceByMonth))
-                .forMapResults(concepts, CONCEPT_ID, "PREVALENCE_BY_MONTH",
-                        plainResultSet(concept_id, "x_calendar_month", "y_prevalence_1000pp"))
-                .run(statement(visitDuration))
-                .forMapResults(concepts, CONCEPT_ID, "VISIT_DURATION_BY_TYPE",
-                        plainResultSet(concept_id))
-                .run(statement(ageAtFirst))
-                .forMapResults(concepts, CONCEPT_ID, "AGE_AT_FIRST_OCCURRENCE",
-                        plainResultSet(concept_id))
-                .transform(toJsonMap(concepts))
-                .write(toMultipleFiles(targetDir, "visit_%d.json", concepts))
+        return DataSourceUtils.withDataSource(dataSource, connectionRegistry)
+                .runQueries(queryRunner, concepts, Arrays.asList(
+                        group(CONCEPT_ID, "PREVALENCE_BY_GENDER_AGE_YEAR", prevalenceByGender,
+                                plainRows(concept_id, "trellis_name", "series_name", "x_calendar_year", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "PREVALENCE_BY_MONTH", prevalenceByMonth,
+                                plainRows(concept_id, "x_calendar_month", "y_prevalence_1000pp")),
+                        group(CONCEPT_ID, "VISIT_DURATION_BY_TYPE", visitDuration,
+                                plainRows(concept_id)),
+                        group(CONCEPT_ID, "AGE_AT_FIRST_OCCURRENCE", ageAtFirst,
+                                plainRows(concept_id))))
+                .writeGroups(toConceptJsonEntries(archive, target, "visit_%d.json"))
                 .getResultsCount();
     }
 }
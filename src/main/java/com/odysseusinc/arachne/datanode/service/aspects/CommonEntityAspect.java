@@ -22,12 +22,16 @@
 
 package com.odysseusinc.arachne.datanode.service.aspects;
 
+import com.odysseusinc.arachne.commons.api.v1.dto.CommonAnalysisType;
 import com.odysseusinc.arachne.commons.api.v1.dto.CommonEntityDTO;
-import com.odysseusinc.arachne.datanode.model.atlas.CommonEntity;
 import com.odysseusinc.arachne.datanode.service.CommonEntityService;
 
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
@@ -57,16 +61,24 @@ public class CommonEntityAspect {
     )
     public void expandListWithGuid(List<? extends CommonEntityDTO> entityList) {
 
-        entityList.forEach(this::expandWithGuid);
+        // GUIDs are resolved per Atlas and type, so a list costs a few queries whatever its size
+        Map<Map.Entry<Long, CommonAnalysisType>, List<CommonEntityDTO>> groups = entityList.stream()
+                .<CommonEntityDTO>map(Objects::requireNonNull)
+                .filter(commonEntityDTO -> commonEntityDTO.getType() != null)
+                .collect(Collectors.groupingBy(
+                        commonEntityDTO -> new AbstractMap.SimpleImmutableEntry<>(commonEntityDTO.getOriginId(), commonEntityDTO.getType()),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+        groups.forEach((key, group) -> expandWithGuid(key.getKey(), key.getValue(), group));
     }
 
-    private void expandWithGuid(CommonEntityDTO commonEntityDTO) {
+    private void expandWithGuid(Long originId, CommonAnalysisType type, List<CommonEntityDTO> group) {
 
-        Objects.requireNonNull(commonEntityDTO);
-        if (commonEntityDTO.getType() != null) {
-            CommonEntity entity = commonEntityService.getOrCreate(commonEntityDTO.getOriginId(), commonEntityDTO.getLocalId().intValue(),
-                    commonEntityDTO.getType());
-            commonEntityDTO.setGuid(entity.getGuid());
-        }
+        List<Integer> localIds = group.stream()
+                .map(commonEntityDTO -> commonEntityDTO.getLocalId().intValue())
+                .collect(Collectors.toList());
+        Map<Integer, String> guids = commonEntityService.getOrCreateGuids(originId, type, localIds);
+        group.forEach(commonEntityDTO -> commonEntityDTO.setGuid(guids.get(commonEntityDTO.getLocalId().intValue())));
+        LOGGER.debug("Resolved {} GUID(s) of {} entities of Atlas {}", localIds.size(), type, originId);
     }
 }
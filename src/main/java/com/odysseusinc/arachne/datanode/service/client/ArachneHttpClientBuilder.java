@@ -2,14 +2,18 @@ package com.odysseusinc.arachne.datanode.service.client;
 
 import feign.Client;
 import okhttp3.Authenticator;
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.internal.platform.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
@@ -20,7 +24,20 @@ import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
-
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the HTTP transport of all outbound clients: Central, Execution Engine and Atlas.
+ * <p>
+ * One OkHttpClient is built per proxy mode and shared, so all clients use a single connection pool, keeping
+ * idle connections to every remote host alive between requests, a single dispatcher and a single limit of
+ * concurrent requests in total and per host. Clients needing other settings should derive them with
+ * {@link OkHttpClient#newBuilder()}, which keeps the pool and the limits shared.
+ */
 @Service
 public class ArachneHttpClientBuilder {
 
@@ -42,6 +59,24 @@ public class ArachneHttpClientBuilder {
     @Value("${server.ssl.strictMode}")
     private Boolean sslStrictMode;
 
+    @Value("${http.client.maxIdleConnections:10}")
+    private Integer maxIdleConnections;
+    @Value("${http.client.keepAliveMs:300000}")
+    private Long keepAliveMs;
+    @Value("${http.client.maxRequests:64}")
+    private Integer maxRequests;
+    @Value("${http.client.maxRequestsPerHost:10}")
+    private Integer maxRequestsPerHost;
+    @Value("${http.client.acquireTimeoutMs:30000}")
+    private Long acquireTimeoutMs;
+    @Value("${http.client.http2Enabled:true}")
+    private Boolean http2Enabled;
+
+    private final Map<Boolean, OkHttpClient> clients = new ConcurrentHashMap<>();
+    private volatile ConnectionPool connectionPool;
+    private volatile Dispatcher dispatcher;
+    private volatile RequestLimitInterceptor requestLimit;
+
     public Client build() {
 
         return new feign.okhttp.OkHttpClient(buildOkHttpClient(proxyEnabled));
@@ -52,6 +87,33 @@ public class ArachneHttpClientBuilder {
         return new feign.okhttp.OkHttpClient(buildOkHttpClient(proxyEnabled));
     }
 
+    /**
+     * @return the shared client for the configured proxy mode
+     */
+    public OkHttpClient buildOkHttpClient() {
+
+        return buildOkHttpClient(proxyEnabled);
+    }
+
+    /**
+     * @return the shared client for the given proxy mode
+     */
+    public OkHttpClient buildOkHttpClient(boolean proxyEnabled) {
+
+        return clients.computeIfAbsent(proxyEnabled, this::createOkHttpClient);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        if (dispatcher != null) {
+            dispatcher.executorService().shutdown();
+        }
+        if (connectionPool != null) {
+            connectionPool.evictAll();
+        }
+    }
+
     public static TrustManager[] getTrustAllCertsManager() {
 
         return new TrustManager[]{
@@ -84,9 +146,15 @@ public class ArachneHttpClientBuilder {
         return sc.getSocketFactory();
     }
 
-    public OkHttpClient buildOkHttpClient(boolean proxyEnabled) {
+    private OkHttpClient createOkHttpClient(boolean proxyEnabled) {
 
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(getConnectionPool())
+                .dispatcher(getDispatcher())
+                .addInterceptor(getRequestLimit())
+                .protocols(http2Enabled
+                        ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : Collections.singletonList(Protocol.HTTP_1_1));
         if (proxyEnabled) {
 
             builder.proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, proxyPort)));
@@ -131,4 +199,29 @@ public class ArachneHttpClientBuilder {
 
         return builder.build();
     }
+
+    private synchronized ConnectionPool getConnectionPool() {
+
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(maxIdleConnections, keepAliveMs, TimeUnit.MILLISECONDS);
+        }
+        return connectionPool;
+    }
+
+    private synchronized Dispatcher getDispatcher() {
+
+        if (dispatcher == null) {
+            dispatcher = new Dispatcher();
+        }
+        return dispatcher;
+    }
+
+    private synchronized RequestLimitInterceptor getRequestLimit() {
+
+        // Feign executes calls synchronously, the limits of the dispatcher apply to enqueued calls only
+        if (requestLimit == null) {
+            requestLimit = new RequestLimitInterceptor(maxRequests, maxRequestsPerHost, acquireTimeoutMs);
+        }
+        return requestLimit;
+    }
 }
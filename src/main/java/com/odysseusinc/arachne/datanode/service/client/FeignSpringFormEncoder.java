@@ -42,7 +42,10 @@ public class FeignSpringFormEncoder implements Encoder {
      */
     @Override
     public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
-        if (isFormRequest(bodyType)) {
+        if (byte[].class.equals(bodyType)) {
+            // raw body, content type is declared on the request line
+            template.body(Request.Body.encoded((byte[]) object, null));
+        } else if (isFormRequest(bodyType)) {
             final HttpHeaders multipartHeaders = new HttpHeaders();
             template.header(CONTENT_TYPE_HEADER, Collections.<String>emptyList()); // reset header
             encodeMultipartFormRequest((Map<String, ?>) object, multipartHeaders, template);
@@ -0,0 +1,106 @@
+package com.odysseusinc.arachne.datanode.service.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Interceptor;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Limits the number of requests in flight, in total and per host, for calls executed synchronously.
+ * OkHttp applies such limits only to calls enqueued through its dispatcher, while Feign executes every call
+ * on the calling thread. A call waits for a permit up to the acquire timeout and fails if none is released.
+ * Permits are released once the response headers are received.
+ * <p>
+ * Requests streaming their body, multipart forms and bodies of unknown length, are not limited: an upload
+ * may take minutes and would hold the permits of the short calls to the same host all that time.
+ */
+class RequestLimitInterceptor implements Interceptor {
+
+    private final Semaphore requests;
+    private final int maxRequestsPerHost;
+    private final long acquireTimeoutMs;
+    private final Map<String, HostPermits> hosts = new ConcurrentHashMap<>();
+
+    RequestLimitInterceptor(int maxRequests, int maxRequestsPerHost, long acquireTimeoutMs) {
+
+        this.requests = new Semaphore(Math.max(1, maxRequests));
+        this.maxRequestsPerHost = Math.max(1, maxRequestsPerHost);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Request request = chain.request();
+        if (isStreamed(request.body())) {
+            return chain.proceed(request);
+        }
+        String host = request.url().host();
+        HostPermits hostRequests = hosts.compute(host, (h, permits) -> {
+            HostPermits result = Objects.isNull(permits) ? new HostPermits(maxRequestsPerHost) : permits;
+            result.users++;
+            return result;
+        });
+        try {
+            acquire(hostRequests.permits, "Too many concurrent requests to " + host);
+            try {
+                acquire(requests, "Too many concurrent outbound requests");
+                try {
+                    return chain.proceed(request);
+                } finally {
+                    requests.release();
+                }
+            } finally {
+                hostRequests.permits.release();
+            }
+        } finally {
+            // the permits of a host are dropped once nobody uses them
+            hosts.computeIfPresent(host, (h, permits) -> --permits.users == 0 ? null : permits);
+        }
+    }
+
+    int getHostCount() {
+
+        return hosts.size();
+    }
+
+    private static boolean isStreamed(RequestBody body) throws IOException {
+
+        return Objects.nonNull(body) && (body instanceof MultipartBody || body.isOneShot() || body.contentLength() < 0);
+    }
+
+    private void acquire(Semaphore semaphore, String message) throws IOException {
+
+        try {
+            // a zero acquire timeout means no timeout
+            if (acquireTimeoutMs <= 0) {
+                semaphore.acquire();
+            } else if (!semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new InterruptedIOException(message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(message);
+        }
+    }
+
+    private static class HostPermits {
+
+        private final Semaphore permits;
+        // calls waiting for or holding a permit, guarded by the map entry
+        private int users;
+
+        private HostPermits(int maxRequests) {
+
+            this.permits = new Semaphore(maxRequests);
+        }
+    }
+}
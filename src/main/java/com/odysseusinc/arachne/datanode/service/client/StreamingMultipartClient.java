@@ -0,0 +1,79 @@
+package com.odysseusinc.arachne.datanode.service.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+
+/**
+ * Sends the multipart forms prepared by {@link StreamingMultipartEncoder} in place of the placeholder body
+ * the encoder put on the request. The body of other requests is taken from the request as usual.
+ */
+class StreamingMultipartClient implements Client {
+
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+
+    private final OkHttpClient httpClient;
+    private final Client delegate;
+    private final Function<byte[], MultipartBody> forms;
+
+    StreamingMultipartClient(OkHttpClient httpClient, Function<byte[], MultipartBody> forms) {
+
+        this.httpClient = httpClient;
+        this.delegate = new feign.okhttp.OkHttpClient(httpClient);
+        this.forms = forms;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+
+        MultipartBody form = forms.apply(request.body());
+        if (Objects.isNull(form)) {
+            return delegate.execute(request, options);
+        }
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(request.url());
+        request.headers().forEach((name, values) -> {
+            // both are defined by the form
+            if (!CONTENT_TYPE_HEADER.equalsIgnoreCase(name) && !CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+                values.forEach(value -> builder.addHeader(name, value));
+            }
+        });
+        builder.method(request.httpMethod().name(), form);
+
+        OkHttpClient client = httpClient.newBuilder()
+                .connectTimeout(options.connectTimeout(), options.connectTimeoutUnit())
+                .readTimeout(options.readTimeout(), options.readTimeoutUnit())
+                .followRedirects(options.isFollowRedirects())
+                .build();
+        return toFeignResponse(client.newCall(builder.build()).execute(), request);
+    }
+
+    private static Response toFeignResponse(okhttp3.Response response, Request request) {
+
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String name : response.headers().names()) {
+            headers.put(name, response.headers(name));
+        }
+        ResponseBody body = response.body();
+        Integer length = null;
+        if (Objects.nonNull(body) && body.contentLength() >= 0 && body.contentLength() <= Integer.MAX_VALUE) {
+            length = (int) body.contentLength();
+        }
+        return Response.builder()
+                .status(response.code())
+                .reason(response.message())
+                .request(request)
+                .headers(headers)
+                .body(Objects.isNull(body) ? null : body.byteStream(), length)
+                .build();
+    }
+}
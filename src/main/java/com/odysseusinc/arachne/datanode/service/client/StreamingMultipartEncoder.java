@@ -0,0 +1,242 @@
+package com.odysseusinc.arachne.datanode.service.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import feign.Client;
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Encoder sending multipart forms without building the request body in memory.
+ * <p>
+ * Feign keeps a request body as a byte array, so a form is not encoded into the request template. The
+ * encoder prepares a multipart body whose file parts are read from their source while the request is
+ * written, and the {@link #client(OkHttpClient) client} created by the same encoder sends it. Disk files,
+ * {@link MultipartFile}s and resources of known size are sent with their length, the request gets a
+ * {@code Content-Length} when every part has one and is sent with chunked transfer encoding otherwise.
+ * Streams and {@link RequestBody generated bodies} of unknown length are written as they come. A stream
+ * can be read only once, sending a request carrying it again fails instead of sending a truncated part.
+ * <p>
+ * The encoded template gets a placeholder body which stands for the form: Feign copies the template before
+ * sending it but shares its body, and the client looks the form up by that body. The form is kept for as
+ * long as the body is referenced, that is by the request being sent and by the template Feign retries it
+ * from. Other requests are encoded by {@link FeignSpringFormEncoder}.
+ */
+public class StreamingMultipartEncoder implements Encoder {
+
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final org.springframework.http.MediaType SPRING_JSON = org.springframework.http.MediaType.APPLICATION_JSON;
+
+    private final FeignSpringFormEncoder delegate = new FeignSpringFormEncoder();
+    private final List<HttpMessageConverter<?>> converters = new RestTemplate().getMessageConverters();
+    // weak keys are compared by identity, every form has a placeholder body of its own
+    private final Cache<byte[], MultipartBody> forms = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * @return client sending the forms encoded by this encoder, other requests are sent as they are
+     */
+    public Client client(OkHttpClient httpClient) {
+
+        return new StreamingMultipartClient(httpClient, this::getForm);
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+
+        if (!FeignSpringFormEncoder.isFormRequest(bodyType)) {
+            delegate.encode(object, bodyType, template);
+            return;
+        }
+        MultipartBody form = buildForm((Map<String, ?>) object);
+        template.header(CONTENT_TYPE_HEADER, Collections.<String>emptyList()); // reset header
+        template.header(CONTENT_TYPE_HEADER, Objects.requireNonNull(form.contentType()).toString());
+        byte[] placeholder = ("multipart form " + form.boundary()).getBytes(StandardCharsets.UTF_8);
+        template.body(placeholder, StandardCharsets.UTF_8);
+        forms.put(placeholder, form);
+    }
+
+    /**
+     * @return form encoded with the given placeholder body, null if the body is not one
+     */
+    MultipartBody getForm(byte[] body) {
+
+        return Objects.isNull(body) ? null : forms.getIfPresent(body);
+    }
+
+    private MultipartBody buildForm(Map<String, ?> formMap) {
+
+        if (formMap == null) {
+            throw new EncodeException("Cannot encode request with null form.");
+        }
+        MultipartBody.Builder builder = new MultipartBody.Builder().setType(MultipartBody.FORM);
+        for (Map.Entry<String, ?> entry : formMap.entrySet()) {
+            Object value = entry.getValue();
+            if (isPartArray(value)) {
+                for (Object part : (Object[]) value) {
+                    addPart(builder, entry.getKey(), part);
+                }
+            } else {
+                addPart(builder, entry.getKey(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    private void addPart(MultipartBody.Builder builder, String name, Object value) {
+
+        try {
+            if (value instanceof MultipartFile) {
+                MultipartFile file = (MultipartFile) value;
+                builder.addFormDataPart(name, file.getOriginalFilename(),
+                        new StreamBody(file::getInputStream, file.getSize(), false));
+            } else if (value instanceof File) {
+                File file = (File) value;
+                builder.addFormDataPart(name, file.getName(), RequestBody.create(file, OCTET_STREAM));
+            } else if (value instanceof Path) {
+                File file = ((Path) value).toFile();
+                builder.addFormDataPart(name, file.getName(), RequestBody.create(file, OCTET_STREAM));
+            } else if (value instanceof InputStreamResource) {
+                // contentLength() would consume the stream
+                Resource resource = (Resource) value;
+                builder.addFormDataPart(name, resource.getFilename(), new StreamBody(resource::getInputStream, -1, true));
+            } else if (value instanceof Resource) {
+                Resource resource = (Resource) value;
+                builder.addFormDataPart(name, resource.getFilename(),
+                        new StreamBody(resource::getInputStream, resource.contentLength(), false));
+            } else if (value instanceof InputStream) {
+                InputStream stream = (InputStream) value;
+                builder.addFormDataPart(name, name, new StreamBody(() -> stream, -1, true));
+            } else if (value instanceof RequestBody) {
+                builder.addFormDataPart(name, name, (RequestBody) value);
+            } else {
+                builder.addFormDataPart(name, null, RequestBody.create(toJson(value), JSON));
+            }
+        } catch (IOException ex) {
+            throw new EncodeException("Cannot encode request.", ex);
+        }
+    }
+
+    private static boolean isPartArray(Object value) {
+
+        return value instanceof MultipartFile[] || value instanceof File[] || value instanceof Path[]
+                || value instanceof Resource[] || value instanceof InputStream[] || value instanceof RequestBody[];
+    }
+
+    /**
+     * Converts a non-file value the way {@link RestTemplate} writes a JSON part
+     */
+    private byte[] toJson(Object value) throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        HttpHeaders headers = new HttpHeaders();
+        HttpOutputMessage message = new HttpOutputMessage() {
+
+            @Override
+            public OutputStream getBody() {
+
+                return outputStream;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+
+                return headers;
+            }
+        };
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(value.getClass(), SPRING_JSON)) {
+                ((HttpMessageConverter<Object>) converter).write(value, SPRING_JSON, message);
+                break;
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private interface StreamSupplier {
+
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Part content copied from a stream opened when the part is written
+     */
+    private static class StreamBody extends RequestBody {
+
+        private final StreamSupplier supplier;
+        private final long length;
+        private final boolean oneShot;
+        private boolean written;
+
+        private StreamBody(StreamSupplier supplier, long length, boolean oneShot) {
+
+            this.supplier = supplier;
+            this.length = length;
+            this.oneShot = oneShot;
+        }
+
+        @Override
+        public MediaType contentType() {
+
+            return OCTET_STREAM;
+        }
+
+        @Override
+        public long contentLength() {
+
+            return length;
+        }
+
+        @Override
+        public boolean isOneShot() {
+
+            return oneShot;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+
+            if (oneShot && written) {
+                throw new IOException("Part stream has already been sent");
+            }
+            written = true;
+            try (Source source = Okio.source(supplier.open())) {
+                if (length < 0) {
+                    sink.writeAll(source);
+                } else {
+                    sink.write(source, length);
+                }
+            }
+        }
+    }
+}
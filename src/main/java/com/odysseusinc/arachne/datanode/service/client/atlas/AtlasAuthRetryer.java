@@ -0,0 +1,41 @@
+package com.odysseusinc.arachne.datanode.service.client.atlas;
+
+import feign.FeignException;
+import feign.RetryableException;
+import feign.Retryer;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Retries a request rejected with 401 once, with a new token, and leaves other retries to the delegate.
+ * A second 401 is thrown as the {@link FeignException} it was decoded to.
+ */
+public class AtlasAuthRetryer implements Retryer {
+
+    private final Retryer delegate;
+    private boolean reauthenticated;
+
+    public AtlasAuthRetryer(Retryer delegate) {
+
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+
+        if (e.status() == HttpStatus.UNAUTHORIZED.value()) {
+            if (reauthenticated) {
+                // callers handle the 401 response itself, not the retry which was used up
+                throw e.getCause() instanceof FeignException ? (FeignException) e.getCause() : e;
+            }
+            reauthenticated = true;
+            return;
+        }
+        delegate.continueOrPropagate(e);
+    }
+
+    @Override
+    public Retryer clone() {
+
+        return new AtlasAuthRetryer(delegate.clone());
+    }
+}
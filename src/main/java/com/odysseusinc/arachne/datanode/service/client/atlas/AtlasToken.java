@@ -0,0 +1,63 @@
+package com.odysseusinc.arachne.datanode.service.client.atlas;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Atlas bearer token with its expiry time if it is known
+ */
+public class AtlasToken {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String value;
+    private final Instant expiresAt;
+
+    public AtlasToken(String value, Instant expiresAt) {
+
+        this.value = value;
+        this.expiresAt = expiresAt;
+    }
+
+    public static AtlasToken of(String value, Date expiresAt) {
+
+        return new AtlasToken(value, Objects.nonNull(expiresAt) ? expiresAt.toInstant() : null);
+    }
+
+    /**
+     * Token issued by the Atlas login, its expiry is read from the exp claim if it is a JWT
+     */
+    public static AtlasToken fromJwt(String value) {
+
+        return new AtlasToken(value, readExpiry(value));
+    }
+
+    public String getValue() {
+
+        return value;
+    }
+
+    public Instant getExpiresAt() {
+
+        return expiresAt;
+    }
+
+    static Instant readExpiry(String jwt) {
+
+        String[] parts = Objects.nonNull(jwt) ? jwt.split("\\.") : new String[0];
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            JsonNode exp = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+            return Objects.nonNull(exp) && exp.canConvertToLong() ? Instant.ofEpochSecond(exp.asLong()) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.odysseusinc.arachne.datanode.service.client.atlas;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token of a single Atlas, shared by all requests of its client.
+ * <p>
+ * The token is renewed shortly before it expires, tokens without a known expiry are kept for the configured
+ * TTL. Requests finding the token expired wait for a single login instead of logging in each. A token
+ * rejected by Atlas is dropped, so the next request logs in again.
+ */
+public class AtlasTokenCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtlasTokenCache.class);
+
+    private final String name;
+    private final Supplier<Optional<AtlasToken>> login;
+    private final Duration ttl;
+    private final Duration refreshBefore;
+    private volatile Entry current;
+
+    public AtlasTokenCache(String name, Supplier<Optional<AtlasToken>> login, Duration ttl, Duration refreshBefore) {
+
+        this.name = name;
+        this.login = login;
+        this.ttl = ttl;
+        this.refreshBefore = refreshBefore;
+    }
+
+    public Optional<String> getToken() {
+
+        Entry entry = current;
+        if (Objects.isNull(entry) || entry.isExpired()) {
+            entry = refresh();
+        }
+        return entry.token;
+    }
+
+    /**
+     * Drops the token unless it has already been replaced
+     */
+    public synchronized void invalidate(String token) {
+
+        if (Objects.nonNull(current) && Objects.equals(current.token.orElse(null), token)) {
+            LOGGER.info("Token of Atlas {} was rejected, logging in again", name);
+            current = null;
+        }
+    }
+
+    private synchronized Entry refresh() {
+
+        Entry entry = current;
+        if (Objects.nonNull(entry) && !entry.isExpired()) {
+            return entry;
+        }
+        Optional<AtlasToken> token = login.get();
+        Instant now = Instant.now();
+        Instant refreshAt = token.map(AtlasToken::getExpiresAt)
+                .map(expiresAt -> expiresAt.minus(refreshBefore))
+                .orElseGet(() -> now.plus(ttl));
+        LOGGER.debug("Logged in to Atlas {}, token is renewed after {}", name, refreshAt);
+        entry = new Entry(token.map(AtlasToken::getValue), refreshAt);
+        current = entry;
+        return entry;
+    }
+
+    private static class Entry {
+
+        private final Optional<String> token;
+        private final Instant refreshAt;
+
+        private Entry(Optional<String> token, Instant refreshAt) {
+
+            this.token = token;
+            this.refreshAt = refreshAt;
+        }
+
+        private boolean isExpired() {
+
+            return !Instant.now().isBefore(refreshAt);
+        }
+    }
+}
@@ -16,12 +16,16 @@ public class GoogleLoginClient {
 
     public String generateJWTToken(String keyfile) {
 
+        return getAccessToken(keyfile).getTokenValue();
+    }
+
+    public AccessToken getAccessToken(String keyfile) {
+
         try(InputStream in = new ByteArrayInputStream(keyfile.getBytes())) {
             GoogleCredentials credentials = ServiceAccountCredentials.fromStream(in)
                     .createScoped(Collections.singletonList(Constants.GOOGLE_AUTH_SCOPE));
             credentials.refreshIfExpired();
-            AccessToken token = credentials.getAccessToken();
-            return token.getTokenValue();
+            return credentials.getAccessToken();
         } catch (IOException e) {
             throw new AuthenticationException(e.getMessage());
         }
@@ -1,7 +1,7 @@
 package com.odysseusinc.arachne.datanode.service.client.engine;
 
 import com.odysseusinc.arachne.datanode.service.client.ArachneHttpClientBuilder;
-import com.odysseusinc.arachne.datanode.service.client.FeignSpringFormEncoder;
+import com.odysseusinc.arachne.datanode.service.client.StreamingMultipartEncoder;
 import com.odysseusinc.arachne.datanode.util.RestUtils;
 import feign.Feign;
 import feign.codec.Decoder;
@@ -53,9 +53,10 @@ public class EngineClientConfig {
 
     private EngineClient getEngineClient(Decoder decoder) {
         String url = String.format("%s://%s:%s", protocol, host, port);
+        StreamingMultipartEncoder encoder = new StreamingMultipartEncoder();
         return Feign.builder()
-                .client(arachneHttpClientBuilder.build(proxyEnabledForEngine))
-                .encoder(new FeignSpringFormEncoder())
+                .client(encoder.client(arachneHttpClientBuilder.buildOkHttpClient(proxyEnabledForEngine)))
+                .encoder(encoder)
                 .decoder(decoder)
                 .requestInterceptor(rt -> rt.header("Authorization", RestUtils.checkCredentials(token)))
                 .logger(new Slf4jLogger(EngineClient.class))
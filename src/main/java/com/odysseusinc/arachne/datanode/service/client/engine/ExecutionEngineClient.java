@@ -50,12 +50,24 @@ public class ExecutionEngineClient {
             File file,
             boolean compressedResult,
             boolean healthCheck) {
+        return sendAnalysisRequest(analysisRequest, file.getName(),
+                RequestBody.create(file, okhttp3.MediaType.parse("application/octet-stream")), compressedResult, healthCheck);
+    }
+
+    /**
+     * @param archive zip archive of the analysis files, may be a streaming body of unknown length
+     */
+    public AnalysisRequestStatusDTO sendAnalysisRequest(
+            AnalysisRequestDTO analysisRequest,
+            String fileName,
+            RequestBody archive,
+            boolean compressedResult,
+            boolean healthCheck) {
         String json = toJson(analysisRequest);
         MultipartBody body = new MultipartBody.Builder()
                 .setType(MultipartBody.FORM)
                 .addFormDataPart("analysisRequest", EMPTY_FILENAME, RequestBody.create(json, APPLICATION_JSON))
-                .addFormDataPart("file", file.getName(),
-                        RequestBody.create(file, okhttp3.MediaType.parse("application/octet-stream")))
+                .addFormDataPart("file", fileName, archive)
                 .build();
         String url = buildUrl(properties.getAnalysisUri());
         Request request = new Request.Builder()
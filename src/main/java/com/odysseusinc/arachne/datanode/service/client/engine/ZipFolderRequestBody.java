@@ -0,0 +1,70 @@
+package com.odysseusinc.arachne.datanode.service.client.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body compressing a folder into a zip archive while it is being sent.
+ * <p>
+ * The length is not known in advance, so the body is sent with chunked transfer encoding. The folder is
+ * compressed again each time the body is written, so a retried request sends the same content without a
+ * stored copy of the archive. Entries are the same as in the archive of the folder stored on disk: paths
+ * relative to the folder, with an entry for every subfolder, empty ones included.
+ */
+public class ZipFolderRequestBody extends RequestBody {
+
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    private final File folder;
+
+    public ZipFolderRequestBody(File folder) {
+
+        this.folder = folder;
+    }
+
+    @Override
+    public MediaType contentType() {
+
+        return OCTET_STREAM;
+    }
+
+    @Override
+    public long contentLength() {
+
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+
+        Path root = folder.toPath();
+        List<Path> entries;
+        try (Stream<Path> paths = Files.walk(root)) {
+            entries = paths.filter(path -> !path.equals(root)).sorted().collect(Collectors.toList());
+        }
+        // the sink belongs to the whole request, so the archive is finished but the stream is not closed
+        ZipOutputStream zip = new ZipOutputStream(sink.outputStream());
+        for (Path entry : entries) {
+            String name = root.relativize(entry).toString().replace(File.separatorChar, '/');
+            if (Files.isDirectory(entry)) {
+                zip.putNextEntry(new ZipEntry(name + "/"));
+            } else {
+                zip.putNextEntry(new ZipEntry(name));
+                Files.copy(entry, zip);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+}
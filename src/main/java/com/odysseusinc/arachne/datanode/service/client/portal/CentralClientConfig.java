@@ -23,7 +23,7 @@
 package com.odysseusinc.arachne.datanode.service.client.portal;
 
 import com.odysseusinc.arachne.datanode.service.client.ArachneHttpClientBuilder;
-import com.odysseusinc.arachne.datanode.service.client.FeignSpringFormEncoder;
+import com.odysseusinc.arachne.datanode.service.client.StreamingMultipartEncoder;
 import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasClient;
 import feign.Feign;
 import feign.jackson.JacksonDecoder;
@@ -57,9 +57,10 @@ public class CentralClientConfig {
     @Bean
     public CentralSystemClient centralSystemClient() {
 
+        StreamingMultipartEncoder encoder = new StreamingMultipartEncoder();
         return Feign.builder()
-                .client(arachneHttpClientBuilder.build())
-                .encoder(new FeignSpringFormEncoder())
+                .client(encoder.client(arachneHttpClientBuilder.buildOkHttpClient()))
+                .encoder(encoder)
                 .decoder(new JacksonDecoder())
                 .requestInterceptor(centralSystemRequestInterceptor)
                 .logger(new Slf4jLogger(AtlasClient.class))
@@ -25,6 +25,10 @@ package com.odysseusinc.arachne.datanode.service.client.portal;
 import static com.odysseusinc.arachne.datanode.Constants.CentralApi.Achilles.LIST_PERMISSIONS;
 import static com.odysseusinc.arachne.datanode.Constants.CentralApi.Achilles.LIST_REPORTS;
 import static com.odysseusinc.arachne.datanode.Constants.CentralApi.Achilles.PERMISSION;
+import static com.odysseusinc.arachne.datanode.Constants.CentralApi.Achilles.UPLOAD;
+import static com.odysseusinc.arachne.datanode.Constants.CentralApi.Achilles.UPLOADS;
+import static com.odysseusinc.arachne.datanode.Constants.CentralApi.Achilles.UPLOAD_COMPLETE;
+import static com.odysseusinc.arachne.datanode.Constants.CentralApi.Achilles.UPLOAD_PART;
 import static com.odysseusinc.arachne.datanode.Constants.CentralApi.DataNode.BUILD_NUMBER;
 import static com.odysseusinc.arachne.datanode.Constants.CentralApi.User.LINK_TO_NODE;
 
@@ -42,9 +46,11 @@ import com.odysseusinc.arachne.commons.api.v1.dto.CommonListEntityResponseDTO;
 import com.odysseusinc.arachne.commons.api.v1.dto.CommonUserDTO;
 import com.odysseusinc.arachne.commons.api.v1.dto.util.JsonResult;
 import com.odysseusinc.arachne.datanode.Constants;
+import com.odysseusinc.arachne.datanode.dto.achilles.AchillesUploadDTO;
 import feign.Headers;
 import feign.Param;
 import feign.RequestLine;
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
@@ -80,7 +86,23 @@ public interface CentralSystemClient {
 
     @RequestLine("POST /api/v1/achilles/datanode/datasource/{id}")
     @Headers("Content-Type: multipart/form-data")
-    void sendAchillesResults(@Param("id") Long centralId, @Param("file") MultipartFile file);
+    void sendAchillesResults(@Param("id") Long centralId, @Param("file") File file);
+
+    @RequestLine("POST " + UPLOADS)
+    @Headers("Content-Type: application/json")
+    AchillesUploadDTO startAchillesUpload(@Param("id") Long centralId, AchillesUploadDTO upload);
+
+    @RequestLine("GET " + UPLOAD)
+    AchillesUploadDTO getAchillesUpload(@Param("id") Long centralId, @Param("uploadId") String uploadId);
+
+    @RequestLine("PUT " + UPLOAD_PART)
+    @Headers({"Content-Type: application/octet-stream", "Content-MD5: {md5}"})
+    void sendAchillesUploadPart(@Param("id") Long centralId, @Param("uploadId") String uploadId,
+                                @Param("part") int part, @Param("md5") String md5, byte[] content);
+
+    @RequestLine("POST " + UPLOAD_COMPLETE)
+    @Headers("Content-Type: application/json")
+    void completeAchillesUpload(@Param("id") Long centralId, @Param("uploadId") String uploadId, AchillesUploadDTO upload);
 
     @RequestLine("GET /api/v1/data-sources/byuuid/{uuid}")
     JsonResult<CommonDataSourceDTO> getDataSource(@Param("uuid") String dataSourceUuid);
@@ -0,0 +1,19 @@
+package com.odysseusinc.arachne.datanode.service.events.datasource;
+
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.model.user.User;
+
+public class DataSourceDeletedEvent extends BaseDataSourceEvent {
+
+    /**
+     * Create a new ApplicationEvent.
+     *
+     * @param source     the object on which the event initially occurred (never {@code null})
+     * @param owner
+     * @param dataSource
+     */
+    public DataSourceDeletedEvent(Object source, User owner, DataSource dataSource) {
+
+        super(source, owner, dataSource);
+    }
+}
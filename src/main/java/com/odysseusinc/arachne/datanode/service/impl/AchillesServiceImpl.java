@@ -37,13 +37,11 @@ import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.odysseusinc.arachne.commons.api.v1.dto.CommonAchillesReportDTO;
 import com.odysseusinc.arachne.datanode.Constants;
 import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
 import com.odysseusinc.arachne.datanode.exception.AchillesJobInProgressException;
 import com.odysseusinc.arachne.datanode.exception.AchillesResultNotAvailableException;
-import com.odysseusinc.arachne.datanode.exception.ArachneSystemRuntimeException;
 import com.odysseusinc.arachne.datanode.model.achilles.AchillesJob;
 import com.odysseusinc.arachne.datanode.model.achilles.AchillesJobSource;
 import com.odysseusinc.arachne.datanode.model.achilles.AchillesJobStatus;
@@ -51,8 +49,14 @@ import com.odysseusinc.arachne.datanode.model.datanode.FunctionalMode;
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
 import com.odysseusinc.arachne.datanode.repository.AchillesJobRepository;
 import com.odysseusinc.arachne.datanode.service.AchillesService;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
 import com.odysseusinc.arachne.datanode.service.DataNodeService;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesChangeDetector;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesExportPlan;
 import com.odysseusinc.arachne.datanode.service.achilles.AchillesProcessors;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesReportTask;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesResultUploader;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesTaskExecutor;
 import com.odysseusinc.arachne.datanode.service.achilles.ConditionEraReport;
 import com.odysseusinc.arachne.datanode.service.achilles.ConditionReport;
 import com.odysseusinc.arachne.datanode.service.achilles.DashboardReport;
@@ -65,17 +69,20 @@ import com.odysseusinc.arachne.datanode.service.achilles.ObservationPeriodReport
 import com.odysseusinc.arachne.datanode.service.achilles.ObservationReport;
 import com.odysseusinc.arachne.datanode.service.achilles.PersonReport;
 import com.odysseusinc.arachne.datanode.service.achilles.ProcedureReport;
+import com.odysseusinc.arachne.datanode.service.achilles.ReportRunner;
 import com.odysseusinc.arachne.datanode.service.achilles.VisitReport;
 import com.odysseusinc.arachne.datanode.service.client.portal.CentralSystemClient;
 import com.odysseusinc.arachne.datanode.util.CentralUtil;
 import com.odysseusinc.arachne.datanode.util.DataSourceUtils;
 import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import com.odysseusinc.arachne.datanode.util.datasource.ColumnVector;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.JsonStream;
+import com.odysseusinc.arachne.datanode.util.datasource.ResultArchive;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultSetContainer;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultSetProcessor;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformers;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriters;
-import com.odysseusinc.arachne.execution_engine_common.util.CommonFileUtils;
-import net.lingala.zip4j.exception.ZipException;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -85,16 +92,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
-import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -106,19 +110,17 @@ import java.time.Duration;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
@@ -167,6 +169,14 @@ public class AchillesServiceImpl implements AchillesService {
     @Autowired
     protected SqlUtils sqlUtils;
     @Autowired
+    protected CdmConnectionRegistry connectionRegistry;
+    @Autowired
+    protected AchillesTaskExecutor achillesTaskExecutor;
+    @Autowired
+    protected AchillesChangeDetector achillesChangeDetector;
+    @Autowired
+    protected AchillesResultUploader achillesResultUploader;
+    @Autowired
     protected ConditionEraReport conditionEraReport;
     @Autowired
     protected ConditionReport conditionReport;
@@ -272,7 +282,7 @@ public class AchillesServiceImpl implements AchillesService {
         try {
             String query = "select count(*) from %s.achilles_results";
             query = String.format(query, getResultSchema(dataSource));
-            Map<String, Integer> result = DataSourceUtils.<Integer>withDataSource(dataSource)
+            Map<String, Integer> result = DataSourceUtils.<Integer>withDataSource(dataSource, connectionRegistry)
                     .ifTableNotExists(dataSource.getResultSchema(), "achilles_results",
                             table -> new AchillesResultNotAvailableException(String.format(ACHILLES_RESULTS_EXCEPTION, table)))
                     .run(statement(query))
@@ -313,19 +323,23 @@ public class AchillesServiceImpl implements AchillesService {
         if (LOGGER.isInfoEnabled()) {
             LOGGER.info("Start pulling Achilles data for {}", dataSource);
         }
+        File archiveFile = null;
         try {
-            Path tempDir = Files.createTempDirectory("achilles_");
-            ThreadFactory threadFactory = new ThreadFactoryBuilder()
-                    .setDaemon(false)
-                    .setThreadFactory(Executors.defaultThreadFactory())
-                    .setNameFormat("achilles-pool-%d")
-                    .build();
-            ExecutorService executorService = Executors.newCachedThreadPool(threadFactory);
-            try {
-                List<Callable<String>> tasks = buildReportTasks(dataSource, tempDir);
-
+            archiveFile = Files.createTempFile("achilles_", ".zip").toFile();
+            AchillesExportPlan plan;
+            try (ResultArchive archive = new ResultArchive(archiveFile)) {
+                List<AchillesReportTask> reports = buildReportTasks(dataSource, archive);
+                plan = planExport(dataSource, reports);
+                if (plan.getChanged().isEmpty()) {
+                    LOGGER.info("Achilles results of {} did not change since the last export", dataSource);
+                    updateJob(job, SUCCESSFUL);
+                    return;
+                }
+                List<Callable<String>> tasks = plan.getChanged().stream()
+                        .map(report -> achillesTask(report.getName(), report.getCallable()))
+                        .collect(Collectors.toList());
                 try {
-                    List<Future<String>> futures = executorService.invokeAll(tasks);
+                    List<Future<String>> futures = achillesTaskExecutor.invokeAll(dataSource, tasks);
                     for (Future<String> future : futures) {
                         String taskResultInfo = future.get();
                         LOGGER.info(taskResultInfo);
@@ -334,109 +348,94 @@ public class AchillesServiceImpl implements AchillesService {
                     LOGGER.warn("Achilles pull interrupted", e);
                     throw new RuntimeException("Achilles pull interrupted", e);
                 }
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Achilles data has collected at {}", tempDir);
+                if (plan.isIncremental()) {
+                    plan.writeManifest(archive);
                 }
-                retryTemplate.execute((RetryCallback<Void, Exception>) retryContext -> {
-
-                    sendResultToCentral(dataSource, tempDir);
-                    return null;
-                });
-                updateJob(job, SUCCESSFUL);
-            } finally {
-                executorService.shutdown();
             }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Achilles data has collected at {}", archiveFile);
+            }
+            sendResultToCentral(dataSource, archiveFile);
+            // a full export records the fingerprints the next incremental one starts from
+            if (properties.getIncremental().isEnabled()) {
+                achillesChangeDetector.commit(dataSource, plan);
+            }
+            updateJob(job, SUCCESSFUL);
         } catch (Exception e) {
             LOGGER.error("Failed to pull achilles results", e);
             updateJob(job, FAILED);
+        } finally {
+            FileUtils.deleteQuietly(archiveFile);
         }
     }
 
-    private List<Callable<String>> buildReportTasks(DataSource dataSource, Path tempDir) {
-        List<Callable<String>> tasks = new ArrayList<>();
-
-        tasks.add(achillesTask("Heel", () -> runAchillesQuery(dataSource, ACHILLES_HEEL_SQL, tempDir.resolve("achillesheel.json"),
-                AchillesProcessors.achillesHeel())));
-
-        tasks.add(achillesTask("DrugEra", () -> {
-            List<Integer> drugEraConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, DRUG_ERA_SQL, tempDir.resolve("drugera_treemap.json"),
-                    resultSet(),
-                    transmitToList(CONCEPT_ID, drugEraConcepts));
-            result += drugEraReport.runReports(dataSource, tempDir.resolve("drugeras"), drugEraConcepts);
-            return result;
-        }));
-
-        tasks.add(achillesTask("Drugs", () -> {
-            List<Integer> drugConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, DRUG_TREEMAP_SQL, tempDir.resolve("drug_treemap.json"),
-                    resultSet(),
-                    transmitToList(CONCEPT_ID, drugConcepts));
-            result += drugReport.runReports(dataSource, tempDir.resolve("drugs"), drugConcepts);
-            return result;
-        }));
-
-        tasks.add(achillesTask("Conditions", () -> {
-            List<Integer> conditionConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, CONDITION_TREEMAP_SQL, tempDir.resolve("condition_treemap.json"),
-                    resultSet(),
-                    transmitToList(CONCEPT_ID, conditionConcepts));
-            result += conditionReport.runReports(dataSource, tempDir.resolve("conditions"), conditionConcepts);
-            return result;
-        }));
-
-        tasks.add(achillesTask("ConditionEra", () -> {
-            List<Integer> conditionEraConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, CONDITION_ERA_TREEMAP_SQL, tempDir.resolve("conditionera_treemap.json"),
-                    resultSet(),
-                    transmitToList(CONCEPT_ID, conditionEraConcepts));
-            result += conditionEraReport.runReports(dataSource, tempDir.resolve("conditioneras"), conditionEraConcepts);
-            return result;
-        }));
+    private AchillesExportPlan planExport(DataSource dataSource, List<AchillesReportTask> reports)
+            throws SQLException, IOException {
 
-        tasks.add(achillesTask("Procedure", () -> {
-            List<Integer> procedureConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, PROCEDURE_TREEMAP_SQL, tempDir.resolve("procedure_treemap.json"),
-                    resultSet(),
-                    transmitToList(CONCEPT_ID, procedureConcepts));
-            result += procedureReport.runReports(dataSource, tempDir.resolve("procedures"), procedureConcepts);
-            return result;
-        }));
+        return properties.getIncremental().isEnabled()
+                ? achillesChangeDetector.plan(dataSource, reports)
+                : AchillesExportPlan.full(reports);
+    }
 
-        tasks.add(achillesTask("Person", () -> personReport.runReports(dataSource, tempDir.resolve("person.json"), null)));
+    private List<AchillesReportTask> buildReportTasks(DataSource dataSource, ResultArchive archive) {
+        List<AchillesReportTask> tasks = new ArrayList<>();
+
+        tasks.add(new AchillesReportTask("Heel", Collections.singletonList(ACHILLES_HEEL_SQL),
+                Collections.singletonList("achillesheel.json"),
+                () -> runAchillesQuery(dataSource, ACHILLES_HEEL_SQL, archive, "achillesheel.json",
+                        AchillesProcessors.achillesHeel())));
+
+        tasks.add(conceptReportTask("DrugEra", dataSource, archive, DRUG_ERA_SQL, "drugera_treemap.json",
+                drugEraReport, "drugeras"));
+        tasks.add(conceptReportTask("Drugs", dataSource, archive, DRUG_TREEMAP_SQL, "drug_treemap.json",
+                drugReport, "drugs"));
+        tasks.add(conceptReportTask("Conditions", dataSource, archive, CONDITION_TREEMAP_SQL, "condition_treemap.json",
+                conditionReport, "conditions"));
+        tasks.add(conceptReportTask("ConditionEra", dataSource, archive, CONDITION_ERA_TREEMAP_SQL, "conditionera_treemap.json",
+                conditionEraReport, "conditioneras"));
+        tasks.add(conceptReportTask("Procedure", dataSource, archive, PROCEDURE_TREEMAP_SQL, "procedure_treemap.json",
+                procedureReport, "procedures"));
+
+        tasks.add(reportTask("Person", dataSource, archive, personReport, "person.json"));
+        tasks.add(reportTask("Death", dataSource, archive, deathReport, "death.json"));
+        tasks.add(reportTask("Dashboard", dataSource, archive, dashboardReport, "dashboard.json"));
+        tasks.add(reportTask("DataDensity", dataSource, archive, dataDensityReport, "datadensity.json"));
+
+        tasks.add(conceptReportTask("Measurement", dataSource, archive, MEASUREMENT_TREEMAP_SQL, "measurement_treemap.json",
+                measurementReport, "measurements"));
+        tasks.add(conceptReportTask("Observation", dataSource, archive, OBSERVATION_TREEMAP_SQL, "observation_treemap.json",
+                observationReport, "observations"));
+        tasks.add(conceptReportTask("Visit", dataSource, archive, VISIT_SQL, "visit_treemap.json",
+                visitReport, "visits"));
 
-        tasks.add(achillesTask("Death", () -> deathReport.runReports(dataSource, tempDir.resolve("death.json"), null)));
+        return tasks;
+    }
 
-        tasks.add(achillesTask("Dashboard", () -> dashboardReport.runReports(dataSource, tempDir.resolve("dashboard.json"), null)));
-        tasks.add(achillesTask("DataDensity", () -> dataDensityReport.runReports(dataSource, tempDir.resolve("datadensity.json"), null)));
+    private AchillesReportTask reportTask(String name, DataSource dataSource, ResultArchive archive,
+                                          ReportRunner report, String output) {
 
-        tasks.add(achillesTask("Measurement", () -> {
-            List<Integer> measurementConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, MEASUREMENT_TREEMAP_SQL, tempDir.resolve("measurement_treemap.json"),
-                    resultSet(),
-                    transmitToList(CONCEPT_ID, measurementConcepts));
-            result += measurementReport.runReports(dataSource, tempDir.resolve("measurements"), measurementConcepts);
-            return result;
-        }));
+        return new AchillesReportTask(name, report.getSqlTemplates(), Collections.singletonList(output),
+                () -> report.runReports(dataSource, archive, output, null));
+    }
 
-        tasks.add(achillesTask("Observation", () -> {
-            List<Integer> observationConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, OBSERVATION_TREEMAP_SQL, tempDir.resolve("observation_treemap.json"),
+    /**
+     * Treemap query collecting the concepts followed by the per concept report
+     */
+    private AchillesReportTask conceptReportTask(String name, DataSource dataSource, ResultArchive archive,
+                                                 String treemapSql, String treemapOutput,
+                                                 ReportRunner report, String reportOutput) {
+
+        List<String> templates = new ArrayList<>();
+        templates.add(treemapSql);
+        templates.addAll(report.getSqlTemplates());
+        return new AchillesReportTask(name, templates, Arrays.asList(treemapOutput, reportOutput), () -> {
+            ConceptIdSet concepts = new ConceptIdSet();
+            Integer result = runAchillesQuery(dataSource, treemapSql, archive, treemapOutput,
                     resultSet(),
-                    transmitToList(CONCEPT_ID, observationConcepts));
-            result += observationReport.runReports(dataSource, tempDir.resolve("observations"), observationConcepts);
+                    transmitToSet(CONCEPT_ID, concepts));
+            result += report.runReports(dataSource, archive, reportOutput, concepts);
             return result;
-        }));
-        tasks.add(achillesTask("Visit", () -> {
-            List<Integer> visitConcepts = new LinkedList<>();
-            Integer result = runAchillesQuery(dataSource, VISIT_SQL, tempDir.resolve("visit_treemap.json"),
-                    resultSet(),
-                    transmitToList(CONCEPT_ID, visitConcepts));
-            result += visitReport.runReports(dataSource, tempDir.resolve("visits"), visitConcepts);
-            return result;
-        }));
-
-        return tasks;
+        });
     }
 
     private String getResultSchema(DataSource dataSource) {
@@ -456,33 +455,35 @@ public class AchillesServiceImpl implements AchillesService {
         };
     }
 
-    private Consumer<Map> transmitToList(String key, List<Integer> identities) {
+    private Consumer<Map> transmitToSet(String key, ConceptIdSet identities) {
 
         Objects.requireNonNull(identities);
         return results -> {
-            List conceptIds = (List) results.getOrDefault(key, new ArrayList<>());
-            identities.addAll(conceptIds);
+            Object conceptIds = results.get(key);
+            if (conceptIds instanceof ColumnVector) {
+                ((ColumnVector) conceptIds).forEachInt(identities::add);
+            }
         };
     }
 
-    private Integer runAchillesQuery(DataSource dataSource, String queryPath, Path targetPath,
+    private Integer runAchillesQuery(DataSource dataSource, String queryPath, ResultArchive archive, String target,
                                      ResultSetProcessor<Map> processor) throws IOException, SQLException {
 
-        return runAchillesQuery(dataSource, queryPath, targetPath, processor, null);
+        return runAchillesQuery(dataSource, queryPath, archive, target, processor, null);
     }
 
-    private Integer runAchillesQuery(DataSource dataSource, String queryPath, Path targetPath,
+    private Integer runAchillesQuery(DataSource dataSource, String queryPath, ResultArchive archive, String target,
                                      ResultSetProcessor<Map> processor,
                                      Consumer<Map> transmitter)
             throws SQLException, IOException {
 
         String query = sqlUtils.transformSqlTemplate(dataSource, queryPath);
-        return DataSourceUtils.<String>withDataSource(dataSource)
+        return DataSourceUtils.<JsonStream>withDataSource(dataSource, connectionRegistry)
                 .run(statement(query))
                 .collectResults(processor)
                 .transmitResults(transmitter)
-                .transform(ResultTransformers.toJson())
-                .write(ResultWriters.toFile(targetPath))
+                .transform(ResultTransformers.toJsonStream())
+                .write(ResultWriters.toJsonEntry(archive, target))
                 .getResultsCount();
     }
 
@@ -509,27 +510,20 @@ public class AchillesServiceImpl implements AchillesService {
         return centralSystemClient.listReports();
     }
 
-    private void sendResultToCentral(DataSource dataSource, Path results) throws IOException {
+    private void sendResultToCentral(DataSource dataSource, File archive) throws Exception {
 
         LOGGER.debug("Sending results to central: {}", centralHost);
-        final File file = results.toFile();
-        final File targetFile = new File("/tmp", "archive" + UUID.randomUUID());
-        try {
-            CommonFileUtils.compressAndSplit(file, targetFile, null);
-
-            FileInputStream input = new FileInputStream(targetFile);
-            MultipartFile multipartFile = new MockMultipartFile("file",
-                    file.getName(), "text/plain", IOUtils.toByteArray(input));
-
-            centralSystemClient.sendAchillesResults(dataSource.getCentralId(), multipartFile);
-
-            LOGGER.debug("Results successfully sent");
-
-        } catch (ZipException zipException) {
-            throw new ArachneSystemRuntimeException(zipException.getMessage());
-        } finally {
-            FileUtils.deleteQuietly(targetFile);
+        if (properties.getUpload().isChunked()) {
+            achillesResultUploader.upload(dataSource.getCentralId(), archive);
+        } else {
+            retryTemplate.execute((RetryCallback<Void, Exception>) retryContext -> {
+
+                // the streaming encoder reads the file as the request is written, every attempt anew
+                centralSystemClient.sendAchillesResults(dataSource.getCentralId(), archive);
+                return null;
+            });
         }
+        LOGGER.debug("Results successfully sent");
     }
 
     private String getTempLocationOnHost(Path workDir) {
@@ -28,39 +28,54 @@ import com.odysseusinc.arachne.datanode.exception.IllegalOperationException;
 import com.odysseusinc.arachne.datanode.exception.NotExistException;
 import com.odysseusinc.arachne.datanode.model.analysis.Analysis;
 import com.odysseusinc.arachne.datanode.model.analysis.AnalysisFile;
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisFileArchiveType;
 import com.odysseusinc.arachne.datanode.model.analysis.AnalysisFileType;
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisResultEntry;
 import com.odysseusinc.arachne.datanode.repository.AnalysisFileRepository;
+import com.odysseusinc.arachne.datanode.repository.AnalysisResultEntryRepository;
 import com.odysseusinc.arachne.datanode.repository.AnalysisRepository;
 import com.odysseusinc.arachne.datanode.service.AnalysisResultsService;
+import com.odysseusinc.arachne.datanode.service.AnalysisStdoutService;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisResultStatusDTO;
+import com.google.common.io.ByteStreams;
 import lombok.extern.slf4j.Slf4j;
-import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.model.FileHeader;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
 
 import static com.odysseusinc.arachne.datanode.Constants.Analysis.ERROR_REPORTR_FILENAME;
 import static com.odysseusinc.arachne.datanode.Constants.Analysis.ERROR_REPORT_FILENAME;
@@ -74,14 +89,27 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisResultsServiceImpl.class);
 
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int BUFFER_SIZE = 8192;
+
     private final AnalysisFileRepository analysisFileRepository;
+    private final AnalysisResultEntryRepository analysisResultEntryRepository;
     private final AnalysisRepository analysisRepository;
+    private final AnalysisStdoutService stdoutService;
 
     @Autowired
-    public AnalysisResultsServiceImpl(AnalysisFileRepository analysisFileRepository, AnalysisRepository analysisRepository) {
+    public AnalysisResultsServiceImpl(AnalysisFileRepository analysisFileRepository,
+                                      AnalysisResultEntryRepository analysisResultEntryRepository,
+                                      AnalysisRepository analysisRepository,
+                                      AnalysisStdoutService stdoutService) {
 
         this.analysisFileRepository = analysisFileRepository;
+        this.analysisResultEntryRepository = analysisResultEntryRepository;
         this.analysisRepository = analysisRepository;
+        this.stdoutService = stdoutService;
     }
 
     @Override
@@ -96,8 +124,10 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
     public List<AnalysisFileDTO> getAnalysisResults(Long analysisId) {
         return analysisFiles(analysisId, files -> {
             if (isListOfArchive(files)) {
-                return listFilesInZip(getValidZipArchive(files)
-                        .orElseThrow(() -> new IllegalOperationException(MessageFormat.format("ZIP archive is not found in analysis [{0}]", analysisId))));
+                AnalysisFile archive = getArchive(files, analysisId);
+                return analysisResultEntryRepository.findAllByAnalysisFileIdOrderById(archive.getId()).stream()
+                        .map(mapAnalysisFile(archive))
+                        .collect(Collectors.toList());
             } else {
                 return files.stream().map(mapAnalysisFile()).collect(Collectors.toList());
             }
@@ -108,69 +138,84 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
     public Resource getAnalysisResultFile(Long analysisId, String filename) {
         return analysisFiles(analysisId, files -> {
             if (isListOfArchive(files)) {
-                return extractFileFromZip(getValidZipArchive(files)
-                                .orElseThrow(() -> new IllegalOperationException(MessageFormat.format("ZIP archive is not found in analysis [{0}]", analysisId))),
-                        filename);
+                AnalysisFile archive = getArchive(files, analysisId);
+                return analysisResultEntryRepository.findFirstByAnalysisFileIdAndName(archive.getId(), filename)
+                        .map(entry -> new ArchiveEntryResource(archive, entry))
+                        .orElseThrow(() -> new NotExistException(MessageFormat.format("File [{0}] does not exist on analysis [{1}]", filename, analysisId), Analysis.class));
             } else {
                 return files.stream()
                         .filter(f -> Objects.equals(f.getLink(), filename))
                         .findFirst()
                         .map(f -> new FileSystemResource(f.getLink()))
-                        .orElseThrow(() -> new NotExistException(MessageFormat.format("File [{0}] does not exist on analysis [{1}]", analysisId, filename), Analysis.class));
+                        .orElseThrow(() -> new NotExistException(MessageFormat.format("File [{0}] does not exist on analysis [{1}]", filename, analysisId), Analysis.class));
             }
         });
     }
 
-    private Optional<AnalysisFile> getValidZipArchive(List<AnalysisFile> files) {
-        return files.stream().filter(f -> {
-            try(net.lingala.zip4j.ZipFile zip = new net.lingala.zip4j.ZipFile(f.getLink())) {
-                return zip.isValidZipFile();
-            } catch (IOException e) {
-                log.error("Failed to find archive", e);
-                throw new IllegalOperationException(MessageFormat.format("Failed to find archive: {0}", e.getMessage()));
-            }
-        }).findFirst();
+    private AnalysisFile getArchive(List<AnalysisFile> files, Long analysisId) {
+        // files are passed through analysisFiles(), which has already set the archive type of every legacy file
+        return files.stream()
+                .filter(f -> f.getArchiveType() == AnalysisFileArchiveType.ZIP || f.getArchiveType() == AnalysisFileArchiveType.SPLIT_ZIP)
+                .findFirst()
+                .orElseThrow(() -> new IllegalOperationException(MessageFormat.format("ZIP archive is not found in analysis [{0}]", analysisId)));
     }
 
     private <T> T analysisFiles(Long analysisId, Function<List<AnalysisFile>, T> transform) {
         Analysis analysis = analysisRepository.findById(analysisId)
                 .orElseThrow(() -> new NotExistException(MessageFormat.format("Analysis [{0}] not found", analysisId), Analysis.class));
-        return transform.apply(getAnalysisResults(analysis));
+        List<AnalysisFile> files = getAnalysisResults(analysis);
+        // results received before the manifest was introduced
+        files.stream()
+                .filter(f -> Objects.isNull(f.getArchiveType()))
+                .forEach(f -> analysisResultEntryRepository.saveAll(buildManifest(f)));
+        return transform.apply(files);
     }
 
-    private Resource extractFileFromZip(AnalysisFile archive, String filename) {
-        Path file = Paths.get(archive.getLink());
-        try (net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(file.toFile())) {
-            Path extracted = Files.createTempDirectory("result_file");
-            zipFile.extractFile(filename, extracted.toString());
-            return new FileSystemResource(extracted.resolve(filename));
+    /**
+     * Reads the ZIP headers of the file once, sets its archive type and returns its entries
+     */
+    private List<AnalysisResultEntry> buildManifest(AnalysisFile file) {
+        try (net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(file.getLink())) {
+            if (!zipFile.isValidZipFile()) {
+                file.setArchiveType(AnalysisFileArchiveType.NONE);
+                return Collections.emptyList();
+            }
+            file.setArchiveType(zipFile.isSplitArchive() ? AnalysisFileArchiveType.SPLIT_ZIP : AnalysisFileArchiveType.ZIP);
+            return zipFile.getFileHeaders().stream()
+                    .map(header -> toEntry(file, header))
+                    .collect(Collectors.toList());
         } catch (IOException e) {
-            log.error("Failed to list archive [{}]", archive.getLink(), e);
-            throw new IllegalOperationException(MessageFormat.format("Failed to list archive [{0}]: {1}", archive.getLink(), e.getMessage()));
+            log.error("Failed to read archive [{}]", file.getLink(), e);
+            throw new IllegalOperationException(MessageFormat.format("Failed to read archive [{0}]: {1}", file.getLink(), e.getMessage()));
         }
     }
 
-    private List<AnalysisFileDTO> listFilesInZip(AnalysisFile archive) {
-        Path file = Paths.get(archive.getLink());
-        try (net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(file.toFile())) {
-            return zipFile.getFileHeaders().stream().map(mapAnalysisFile(archive)).collect(Collectors.toList());
-        } catch (IOException e) {
-            log.error("Failed to list archive [{}]", archive.getLink(), e);
-            throw new RuntimeException(e);
+    private static AnalysisResultEntry toEntry(AnalysisFile file, FileHeader header) {
+        AnalysisResultEntry entry = new AnalysisResultEntry();
+        String filename = header.getFileName();
+        entry.setAnalysisFileId(file.getId());
+        entry.setName(filename);
+        entry.setSize(header.getUncompressedSize());
+        entry.setCompressedSize(header.getCompressedSize());
+        entry.setLocalHeaderOffset(header.getOffsetLocalHeader());
+        entry.setCompressionMethod(header.getCompressionMethod().getCode());
+        entry.setDirectory(header.isDirectory());
+        entry.setEncrypted(header.isEncrypted());
+        entry.setErrorReport(endsWithIgnoreCase(filename, ERROR_REPORT_FILENAME) || endsWithIgnoreCase(filename, ERROR_REPORTR_FILENAME));
+        try {
+            entry.setContentType(Files.probeContentType(Paths.get(filename)));
+        } catch (IOException | InvalidPathException e) {
+            log.warn("Failed to probe content type for file [{}]", filename, e);
         }
+        return entry;
     }
 
-    private static Function<FileHeader, AnalysisFileDTO> mapAnalysisFile(AnalysisFile archive) {
-        return fh -> {
+    private static Function<AnalysisResultEntry, AnalysisFileDTO> mapAnalysisFile(AnalysisFile archive) {
+        return entry -> {
             AnalysisFileDTO dto = new AnalysisFileDTO();
-            String filename = fh.getFileName();
-            dto.setPath(filename);
+            dto.setPath(entry.getName());
             dto.setStatus(archive.getStatus());
-            try {
-                dto.setContentType(Files.probeContentType(Paths.get(filename)));
-            } catch (IOException e) {
-                log.warn("Failed to probe content type for file [{}]", filename, e);
-            }
+            dto.setContentType(entry.getContentType());
             return dto;
         };
     }
@@ -185,18 +230,7 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
     }
 
     private boolean isListOfArchive(List<AnalysisFile> files) {
-        return files.stream()
-                .map(f -> new net.lingala.zip4j.ZipFile(f.getLink()))
-                .allMatch(this::isValidZipOrSplit);
-    }
-
-    private boolean isValidZipOrSplit(net.lingala.zip4j.ZipFile file) {
-        try {
-            return file.isValidZipFile() || file.isSplitArchive();
-        } catch (ZipException e) {
-            log.error("Failed to detect ZIP file [{}]", file.getFile(), e);
-            throw new IllegalOperationException(MessageFormat.format("Failed to detect ZIP file [{0}]: {1}", file.getFile(), e.getMessage()));
-        }
+        return files.stream().allMatch(f -> f.getArchiveType() != AnalysisFileArchiveType.NONE);
     }
 
     @Override
@@ -206,10 +240,14 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
                 .map(file -> new AnalysisFile(file.getAbsolutePath(), AnalysisFileType.ANALYSYS_RESULT, analysis))
                 .collect(Collectors.toList());
         analysisFileRepository.saveAll(resultFiles);
-        return updateAnalysisWithResultsData(analysis, resultDir);
+        List<AnalysisResultEntry> entries = resultFiles.stream()
+                .flatMap(file -> buildManifest(file).stream())
+                .collect(Collectors.toList());
+        analysisResultEntryRepository.saveAll(entries);
+        return updateAnalysisWithResultsData(analysis, resultDir, entries);
     }
 
-    private Analysis updateAnalysisWithResultsData(Analysis analysis, File resultDir) {
+    private Analysis updateAnalysisWithResultsData(Analysis analysis, File resultDir, List<AnalysisResultEntry> entries) {
 
         Analysis exists = analysisRepository.findById(analysis.getId()).orElse(null);
         if (exists == null) {
@@ -217,10 +255,12 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
             return null;
         }
         removeAnalysisFolder(exists);
-        final AnalysisResultStatusDTO updatedAnalysisStatus = reEvaluateAnalysisStatus(analysis.getStatus(), resultDir);
+        final AnalysisResultStatusDTO updatedAnalysisStatus = reEvaluateAnalysisStatus(analysis.getStatus(), resultDir, entries);
         exists.setAnalysisFolder(resultDir.getAbsolutePath());
         exists.setStatus(updatedAnalysisStatus);
-        exists.setStdout(analysis.getStdout());
+        if (Objects.nonNull(analysis.getStdout())) {
+            stdoutService.replace(exists.getId(), analysis.getStdout());
+        }
         exists.getStateHistory().addAll(analysis.getStateHistory());
         return analysisRepository.save(exists);
     }
@@ -235,15 +275,15 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
         }
     }
 
-    private AnalysisResultStatusDTO reEvaluateAnalysisStatus(AnalysisResultStatusDTO originalStatus, File resultDir) {
+    private AnalysisResultStatusDTO reEvaluateAnalysisStatus(AnalysisResultStatusDTO originalStatus, File resultDir,
+                                                             List<AnalysisResultEntry> entries) {
 
         if (AnalysisResultStatusDTO.EXECUTED == originalStatus) {
             if (resultDir == null) {
                 LOGGER.error("Result directory cannot be null");
                 return AnalysisResultStatusDTO.FAILED;
             }
-            File[] zipFiles = resultDir.listFiles((dir, name) -> name.endsWith(".zip"));
-            if (checkZipArchiveForErrorFile(zipFiles)) {
+            if (entries.stream().anyMatch(AnalysisResultEntry::isErrorReport)) {
                 LOGGER.warn("Unexpected errorReport file found. Changing analysis status to FAILED for {}", resultDir);
                 return AnalysisResultStatusDTO.FAILED;
             }
@@ -251,22 +291,92 @@ public class AnalysisResultsServiceImpl implements AnalysisResultsService {
         return originalStatus;
     }
 
-    private boolean checkZipArchiveForErrorFile(File[] listFiles) {
+    /**
+     * Entry of a result archive, read when the response is written. Plain ZIP entries are read at the offset
+     * recorded in the manifest, other ones through zip4j.
+     */
+    private static class ArchiveEntryResource extends AbstractResource {
 
-        return Stream.of(listFiles)
-                .map(this::scanZipForErrorFilenames)
-                .reduce(Boolean::logicalOr)
-                .orElse(false);
-    }
+        private final AnalysisFile archive;
+        private final AnalysisResultEntry entry;
 
-    private boolean scanZipForErrorFilenames(File zipFile) {
+        private ArchiveEntryResource(AnalysisFile archive, AnalysisResultEntry entry) {
+
+            this.archive = archive;
+            this.entry = entry;
+        }
 
-        try (ZipFile archive = new ZipFile(zipFile)) {
-            return archive.stream()
-                    .map(ZipEntry::getName)
-                    .anyMatch(name -> endsWithIgnoreCase(name, ERROR_REPORT_FILENAME) || endsWithIgnoreCase(name, ERROR_REPORTR_FILENAME));
-        } catch (IOException ex) {
-            throw new UncheckedIOException(ex);
+        @Override
+        public InputStream getInputStream() throws IOException {
+
+            int method = entry.getCompressionMethod();
+            if (archive.getArchiveType() == AnalysisFileArchiveType.ZIP && !entry.isEncrypted()
+                    && (method == STORED || method == DEFLATED)) {
+                return openEntry(Paths.get(archive.getLink()), entry);
+            }
+            net.lingala.zip4j.ZipFile zipFile = new net.lingala.zip4j.ZipFile(archive.getLink());
+            FileHeader header = zipFile.getFileHeader(entry.getName());
+            if (Objects.isNull(header)) {
+                throw new FileNotFoundException(getDescription());
+            }
+            return zipFile.getInputStream(header);
+        }
+
+        @Override
+        public long contentLength() {
+
+            return entry.getSize();
+        }
+
+        @Override
+        public String getFilename() {
+
+            return Paths.get(entry.getName()).getFileName().toString();
+        }
+
+        @Override
+        public String getDescription() {
+
+            return MessageFormat.format("entry [{0}] of archive [{1}]", entry.getName(), archive.getLink());
+        }
+
+        private static InputStream openEntry(Path archive, AnalysisResultEntry entry) throws IOException {
+
+            FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                long position = entry.getLocalHeaderOffset();
+                while (header.hasRemaining()) {
+                    if (channel.read(header, position + header.position()) < 0) {
+                        throw new EOFException("Archive [" + archive + "] ends before the header of " + entry.getName());
+                    }
+                }
+                if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+                    throw new ZipException("No local header of " + entry.getName() + " in archive [" + archive + "], it was changed after the results were received");
+                }
+                // name and extra field lengths of the local header may differ from the central directory ones
+                channel.position(position + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff));
+                InputStream data = ByteStreams.limit(Channels.newInputStream(channel), entry.getCompressedSize());
+                if (entry.getCompressionMethod() == STORED) {
+                    return data;
+                }
+                Inflater inflater = new Inflater(true);
+                // raw inflate may need a byte past the end of the compressed data
+                return new InflaterInputStream(new SequenceInputStream(data, new ByteArrayInputStream(new byte[1])), inflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
         }
     }
 }
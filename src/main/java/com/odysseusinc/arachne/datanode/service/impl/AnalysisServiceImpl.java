@@ -25,6 +25,7 @@ package com.odysseusinc.arachne.datanode.service.impl;
 import com.odysseusinc.arachne.datanode.repository.AnalysisFileRepository;
 import com.odysseusinc.arachne.datanode.repository.AnalysisRepository;
 import com.odysseusinc.arachne.datanode.repository.AnalysisStateJournalRepository;
+import com.odysseusinc.arachne.datanode.service.AnalysisStdoutService;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineIntegrationService;
 import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.stereotype.Service;
@@ -37,13 +38,15 @@ public class AnalysisServiceImpl extends BaseAnalysisServiceImpl {
 														 AnalysisRepository analysisRepository,
 														 AnalysisFileRepository analysisFileRepository,
 														 AnalysisStateJournalRepository analysisStateJournalRepository,
-														 ExecutionEngineIntegrationService engineIntegrationService) {
+														 ExecutionEngineIntegrationService engineIntegrationService,
+														 AnalysisStdoutService stdoutService) {
 
 		super(conversionService,
                 preprocessorService,
 				analysisRepository,
 				analysisFileRepository,
 				analysisStateJournalRepository,
-				engineIntegrationService);
+				engineIntegrationService,
+				stdoutService);
 	}
 }
@@ -0,0 +1,273 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.odysseusinc.arachne.datanode.exception.ServiceNotAvailableException;
+import com.odysseusinc.arachne.datanode.service.AnalysisService;
+import com.odysseusinc.arachne.datanode.service.AnalysisStatusUpdate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects the status callbacks of the Execution Engine and writes them behind.
+ * <p>
+ * Only callbacks of executing analyses with the matching password are accepted, the passwords found are
+ * cached for a short time, and the number of analyses with pending callbacks is capped. Pending callbacks
+ * are flushed early once their stdout reaches the configured length, and rejected while it stays above.
+ * Callbacks of the same analysis are merged until the next flush, stdout diffs are concatenated in the
+ * order they were received. Flushes run one at a time and write the updates in batches, one transaction
+ * per batch. The updates of a failed batch are saved one by one, and those still failing are put back
+ * ahead of the callbacks received meanwhile and retried by the next flush. Pending callbacks are flushed
+ * on shutdown.
+ */
+@Component
+public class AnalysisStatusBuffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisStatusBuffer.class);
+
+    private final AnalysisService analysisService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final int maxPending;
+    private final long maxPendingStdout;
+    private final Cache<Long, String> executingPasswords;
+    private final Object flushLock = new Object();
+    private Map<Key, AnalysisStatusUpdate> pending = new LinkedHashMap<>();
+    private long pendingStdout;
+
+    public AnalysisStatusBuffer(AnalysisService analysisService,
+                                @Value("${analysis.callback.batchSize:100}") int batchSize,
+                                @Value("${analysis.callback.maxAttempts:5}") int maxAttempts,
+                                @Value("${analysis.callback.maxPending:10000}") int maxPending,
+                                @Value("${analysis.callback.maxPendingStdout:8388608}") long maxPendingStdout,
+                                @Value("${analysis.callback.passwordCacheTtlMs:30000}") long passwordCacheTtlMs) {
+
+        this.analysisService = analysisService;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = maxAttempts;
+        this.maxPending = Math.max(1, maxPending);
+        this.maxPendingStdout = Math.max(1, maxPendingStdout);
+        this.executingPasswords = CacheBuilder.newBuilder()
+                .maximumSize(this.maxPending)
+                .expireAfterWrite(passwordCacheTtlMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public void submit(Long analysisId, String password, String stdoutDiff) {
+
+        if (!isExecuting(analysisId, password)) {
+            LOGGER.debug("Status update of analysis {} ignored, it is not executing", analysisId);
+            return;
+        }
+        if (isStdoutFull()) {
+            flush();
+        }
+        synchronized (this) {
+            Key key = new Key(analysisId, password);
+            if ((pending.size() >= maxPending && !pending.containsKey(key)) || pendingStdout >= maxPendingStdout) {
+                throw new ServiceNotAvailableException("Too many pending status updates");
+            }
+            pending.computeIfAbsent(key, k -> new AnalysisStatusUpdate(analysisId, password))
+                    .append(stdoutDiff, new Date());
+            if (stdoutDiff != null) {
+                pendingStdout += stdoutDiff.length();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.callback.flushIntervalMs:2000}")
+    public void flush() {
+
+        synchronized (flushLock) {
+            List<AnalysisStatusUpdate> updates = drain();
+            List<AnalysisStatusUpdate> retry = new ArrayList<>();
+            List<List<AnalysisStatusUpdate>> batches = Lists.partition(updates, batchSize);
+            for (int i = 0; i < batches.size(); i++) {
+                List<AnalysisStatusUpdate> batch = batches.get(i);
+                if (batch.size() > 1 && saveBatch(batch)) {
+                    continue;
+                }
+                if (!saveEach(batch, retry)) {
+                    // nothing could be saved, the database is likely unavailable
+                    batches.subList(i + 1, batches.size()).forEach(retry::addAll);
+                    break;
+                }
+            }
+            if (!retry.isEmpty()) {
+                requeue(retry);
+            }
+            if (updates.size() > retry.size()) {
+                LOGGER.debug("Saved status updates of {} analyses", updates.size() - retry.size());
+            }
+        }
+    }
+
+    /**
+     * Flushes the pending callbacks and drops those of the analysis which could not be saved,
+     * the results of the analysis carry its complete stdout
+     */
+    public void flushBeforeResults(Long analysisId) {
+
+        synchronized (flushLock) {
+            flush();
+            synchronized (this) {
+                if (pending.keySet().removeIf(key -> Objects.equals(key.analysisId, analysisId))) {
+                    LOGGER.warn("Dropping unsaved status updates of analysis {}, its results are received", analysisId);
+                    pendingStdout = countStdout(pending);
+                }
+            }
+        }
+        executingPasswords.invalidate(analysisId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        flush();
+        synchronized (this) {
+            if (!pending.isEmpty()) {
+                LOGGER.warn("Status updates of {} analyses were not saved on shutdown", pending.size());
+            }
+        }
+    }
+
+    /**
+     * Caches the passwords of executing analyses only, an analysis which is not executing yet or is unknown
+     * is looked up again by its next callback
+     */
+    private boolean isExecuting(Long analysisId, String password) {
+
+        String expected = executingPasswords.getIfPresent(analysisId);
+        if (Objects.isNull(expected)) {
+            Optional<String> found;
+            try {
+                found = analysisService.findExecutingCallbackPassword(analysisId);
+            } catch (RuntimeException e) {
+                throw new ServiceNotAvailableException("Cannot check status update of analysis " + analysisId);
+            }
+            if (!found.isPresent()) {
+                return false;
+            }
+            expected = found.get();
+            executingPasswords.put(analysisId, expected);
+        }
+        return Objects.equals(expected, password);
+    }
+
+    private synchronized boolean isStdoutFull() {
+
+        return pendingStdout >= maxPendingStdout;
+    }
+
+    private static long countStdout(Map<Key, AnalysisStatusUpdate> updates) {
+
+        return updates.values().stream().mapToLong(AnalysisStatusUpdate::getStdoutLength).sum();
+    }
+
+    private boolean saveBatch(List<AnalysisStatusUpdate> batch) {
+
+        try {
+            analysisService.updateStatuses(batch);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to save status updates of {} analyses, saving them one by one: {}",
+                    batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves the updates of a failed batch separately, so a failing one does not hold back the others
+     *
+     * @return false if the first update failed as well, the rest of the batch is then left for the next flush
+     */
+    private boolean saveEach(List<AnalysisStatusUpdate> batch, List<AnalysisStatusUpdate> retry) {
+
+        boolean saved = false;
+        for (int i = 0; i < batch.size(); i++) {
+            AnalysisStatusUpdate update = batch.get(i);
+            try {
+                analysisService.updateStatuses(Collections.singletonList(update));
+                saved = true;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to save status update of analysis {}: {}", update.getAnalysisId(), e.getMessage());
+                update.failed();
+                retry.add(update);
+                if (!saved) {
+                    retry.addAll(batch.subList(i + 1, batch.size()));
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private synchronized List<AnalysisStatusUpdate> drain() {
+
+        List<AnalysisStatusUpdate> updates = new ArrayList<>(pending.values());
+        pending = new LinkedHashMap<>();
+        pendingStdout = 0;
+        return updates;
+    }
+
+    private synchronized void requeue(List<AnalysisStatusUpdate> failed) {
+
+        Map<Key, AnalysisStatusUpdate> merged = new LinkedHashMap<>();
+        for (AnalysisStatusUpdate update : failed) {
+            if (update.getAttempts() < maxAttempts) {
+                merged.put(new Key(update.getAnalysisId(), update.getPassword()), update);
+            } else {
+                LOGGER.error("Dropping status update of analysis {} after {} attempts", update.getAnalysisId(),
+                        update.getAttempts());
+            }
+        }
+        pending.forEach((key, later) -> merged.merge(key, later, AnalysisStatusUpdate::append));
+        pending = merged;
+        pendingStdout = countStdout(pending);
+    }
+
+    private static final class Key {
+
+        private final Long analysisId;
+        private final String password;
+
+        private Key(Long analysisId, String password) {
+
+            this.analysisId = analysisId;
+            this.password = password;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(analysisId, key.analysisId) && Objects.equals(password, key.password);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(analysisId, password);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisStdoutChunk;
+import com.odysseusinc.arachne.datanode.repository.AnalysisStdoutChunkRepository;
+import com.odysseusinc.arachne.datanode.service.AnalysisStdoutService;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class AnalysisStdoutServiceImpl implements AnalysisStdoutService {
+
+    private final AnalysisStdoutChunkRepository chunkRepository;
+    private final int chunkSize;
+
+    public AnalysisStdoutServiceImpl(AnalysisStdoutChunkRepository chunkRepository,
+                                     @Value("${analysis.stdout.chunkSize:65536}") int chunkSize) {
+
+        this.chunkRepository = chunkRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    @Transactional
+    public void append(Long analysisId, String stdout) {
+
+        if (StringUtils.isEmpty(stdout)) {
+            return;
+        }
+        Optional<AnalysisStdoutChunk> last = chunkRepository.findFirstByAnalysisIdOrderBySeqDesc(analysisId);
+        String rest = stdout;
+        if (last.isPresent() && last.get().getContent().length() < chunkSize) {
+            // top up the last chunk first, so small diffs do not leave a trail of tiny chunks
+            AnalysisStdoutChunk chunk = last.get();
+            int end = splitAt(stdout, 0, chunkSize - chunk.getContent().length());
+            if (end > 0) {
+                chunk.setContent(chunk.getContent() + stdout.substring(0, end));
+                chunk.setEndOffset(chunk.getEndOffset() + end);
+                chunkRepository.save(chunk);
+                rest = stdout.substring(end);
+            }
+        }
+        if (!rest.isEmpty()) {
+            int seq = last.map(AnalysisStdoutChunk::getSeq).orElse(-1) + 1;
+            long offset = last.map(AnalysisStdoutChunk::getEndOffset).orElse(0L);
+            chunkRepository.saveAll(split(analysisId, seq, offset, rest));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void replace(Long analysisId, String stdout) {
+
+        chunkRepository.deleteByAnalysisId(analysisId);
+        if (StringUtils.isNotEmpty(stdout)) {
+            chunkRepository.saveAll(split(analysisId, 0, 0L, stdout));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long length(Long analysisId) {
+
+        return chunkRepository.findFirstByAnalysisIdOrderBySeqDesc(analysisId)
+                .map(AnalysisStdoutChunk::getEndOffset)
+                .orElse(0L);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String read(Long analysisId, long offset, int length) {
+
+        long from = Math.max(0, offset);
+        long to = from + Math.max(0, length);
+        StringBuilder builder = new StringBuilder();
+        for (AnalysisStdoutChunk chunk : chunkRepository.findRange(analysisId, from, to)) {
+            int start = (int) Math.max(0, from - chunk.getStartOffset());
+            int end = (int) Math.min(chunk.getContent().length(), to - chunk.getStartOffset());
+            builder.append(chunk.getContent(), start, end);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String tail(Long analysisId, int length) {
+
+        long total = length(analysisId);
+        return read(analysisId, Math.max(0, total - length), length);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeTo(Long analysisId, Writer writer) throws IOException {
+
+        int seq = -1;
+        List<AnalysisStdoutChunk> chunks;
+        while (!(chunks = chunkRepository.findTop16ByAnalysisIdAndSeqGreaterThanOrderBySeq(analysisId, seq)).isEmpty()) {
+            for (AnalysisStdoutChunk chunk : chunks) {
+                writer.write(chunk.getContent());
+                seq = chunk.getSeq();
+            }
+        }
+        writer.flush();
+    }
+
+    private List<AnalysisStdoutChunk> split(Long analysisId, int seq, long offset, String stdout) {
+
+        List<AnalysisStdoutChunk> chunks = new ArrayList<>(stdout.length() / chunkSize + 1);
+        for (int start = 0; start < stdout.length(); ) {
+            // a chunk of one character may have to split a surrogate pair
+            int end = Math.max(start + 1, splitAt(stdout, start, chunkSize));
+            chunks.add(new AnalysisStdoutChunk(analysisId, seq++, offset + start, stdout.substring(start, end)));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return end of the piece starting at the given position and not longer than the given length,
+     * moved back so a surrogate pair is not split between chunks
+     */
+    private static int splitAt(String stdout, int start, int length) {
+
+        int end = Math.min(stdout.length(), start + length);
+        if (end < stdout.length() && end > start && Character.isHighSurrogate(stdout.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -3,31 +3,41 @@ package com.odysseusinc.arachne.datanode.service.impl;
 import static com.odysseusinc.arachne.datanode.Constants.Atlas.ATLAS_2_7_VERSION;
 
 import com.fasterxml.jackson.databind.Module;
+import com.google.auth.oauth2.AccessToken;
 import com.odysseusinc.arachne.datanode.dto.serialize.PageModule;
 import com.odysseusinc.arachne.datanode.exception.AtlasAuthException;
 import com.odysseusinc.arachne.datanode.model.atlas.Atlas;
 import com.odysseusinc.arachne.datanode.service.AtlasClientService;
 import com.odysseusinc.arachne.datanode.service.client.ArachneHttpClientBuilder;
+import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasAuthRetryer;
 import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasClient;
 import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasClient2_5;
 import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasClient2_7;
 import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasInfoClient;
 import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasLoginClient;
+import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasToken;
+import com.odysseusinc.arachne.datanode.service.client.atlas.AtlasTokenCache;
 import com.odysseusinc.arachne.datanode.service.client.atlas.GoogleLoginClient;
 import com.odysseusinc.arachne.datanode.service.client.atlas.TokenDecoder;
 import com.odysseusinc.arachne.datanode.service.client.decoders.ByteArrayDecoder;
 import feign.Client;
 import feign.Feign;
+import feign.RetryableException;
 import feign.Retryer;
+import feign.codec.ErrorDecoder;
 import feign.form.FormEncoder;
 import feign.jackson.JacksonDecoder;
 import feign.jackson.JacksonEncoder;
 import feign.slf4j.Slf4jLogger;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -40,12 +50,18 @@ public class AtlasClientServiceImpl implements AtlasClientService {
 
     private final ArachneHttpClientBuilder arachneHttpClientBuilder;
     private final GoogleLoginClient googleLoginClient;
+    private final Duration tokenTtl;
+    private final Duration tokenRefreshBefore;
 
     @Autowired
-    public AtlasClientServiceImpl(ArachneHttpClientBuilder arachneHttpClientBuilder, GoogleLoginClient googleLoginClient) {
+    public AtlasClientServiceImpl(ArachneHttpClientBuilder arachneHttpClientBuilder, GoogleLoginClient googleLoginClient,
+                                  @Value("${atlas.auth.tokenTtlMs:300000}") long tokenTtlMs,
+                                  @Value("${atlas.auth.tokenRefreshBeforeMs:30000}") long tokenRefreshBeforeMs) {
 
         this.arachneHttpClientBuilder = arachneHttpClientBuilder;
         this.googleLoginClient = googleLoginClient;
+        this.tokenTtl = Duration.ofMillis(tokenTtlMs);
+        this.tokenRefreshBefore = Duration.ofMillis(tokenRefreshBeforeMs);
     }
 
     @Override
@@ -53,18 +69,34 @@ public class AtlasClientServiceImpl implements AtlasClientService {
 
         Client httpClient = arachneHttpClientBuilder.build();
         AtlasLoginClient atlasLoginClient = buildAtlasLoginClient(atlas.getUrl(), httpClient);
+        AtlasTokenCache tokenCache = new AtlasTokenCache(atlas.getName(),
+                () -> authToAtlas(atlas, atlasLoginClient), tokenTtl, tokenRefreshBefore);
+        ErrorDecoder errorDecoder = new ErrorDecoder.Default();
         return Feign.builder()
                 .client(httpClient)
                 .encoder(new JacksonEncoder())
                 .decoder(new ByteArrayDecoder(new JacksonDecoder(MODULES)))
+                .errorDecoder((methodKey, response) -> {
+                    if (response.status() == HttpStatus.UNAUTHORIZED.value()) {
+                        // the token may have been revoked before its expiry, log in again and retry once
+                        tokenCache.invalidate(getToken(response.request().headers().get(AUTHORIZATION_HEADER)));
+                        // the rejection is kept as the cause, it is thrown if the new token is rejected as well
+                        return new RetryableException(response.status(), "Atlas rejected the token",
+                                response.request().httpMethod(), errorDecoder.decode(methodKey, response), null,
+                                response.request());
+                    }
+                    return errorDecoder.decode(methodKey, response);
+                })
+                .retryer(new AtlasAuthRetryer(new Retryer.Default()))
                 .logger(new Slf4jLogger(AtlasClient.class))
                 .logLevel(feign.Logger.Level.FULL)
-                .requestInterceptor(template -> authToAtlas(atlas, atlasLoginClient)
-                        .ifPresent(token -> template.header(
-                                AUTHORIZATION_HEADER,
-                                String.format(BEARER_FORMAT, token))
-                        )
-                )
+                .requestInterceptor(template -> {
+                    template.removeHeader(AUTHORIZATION_HEADER);
+                    tokenCache.getToken().ifPresent(token -> template.header(
+                            AUTHORIZATION_HEADER,
+                            String.format(BEARER_FORMAT, token))
+                    );
+                })
                 .target(getAtlasClientClass(atlas), atlas.getUrl());
     }
 
@@ -94,7 +126,17 @@ public class AtlasClientServiceImpl implements AtlasClientService {
                 .target(AtlasLoginClient.class, url);
     }
 
-    private Optional<String> authToAtlas(Atlas atlas, AtlasLoginClient atlasLoginClient) {
+    private static String getToken(Collection<String> authorization) {
+
+        String prefix = String.format(BEARER_FORMAT, "");
+        return Objects.isNull(authorization) ? null : authorization.stream()
+                .filter(value -> value.startsWith(prefix))
+                .map(value -> value.substring(prefix.length()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Optional<AtlasToken> authToAtlas(Atlas atlas, AtlasLoginClient atlasLoginClient) {
 
         if (Objects.isNull(atlas.getAuthType())) {
             throw new AtlasAuthException("Atlas token is null");
@@ -103,11 +145,12 @@ public class AtlasClientServiceImpl implements AtlasClientService {
         try {
             switch (atlas.getAuthType()) {
                 case DATABASE:
-                    return Optional.of(atlasLoginClient.loginDatabase(atlas.getUsername(), atlas.getPassword()));
+                    return Optional.of(AtlasToken.fromJwt(atlasLoginClient.loginDatabase(atlas.getUsername(), atlas.getPassword())));
                 case LDAP:
-                    return Optional.of(atlasLoginClient.loginLdap(atlas.getUsername(), atlas.getPassword()));
+                    return Optional.of(AtlasToken.fromJwt(atlasLoginClient.loginLdap(atlas.getUsername(), atlas.getPassword())));
                 case ACCESS_TOKEN:
-                    return Optional.of(googleLoginClient.generateJWTToken(atlas.getKeyfile()));
+                    AccessToken accessToken = googleLoginClient.getAccessToken(atlas.getKeyfile());
+                    return Optional.of(AtlasToken.of(accessToken.getTokenValue(), accessToken.getExpirationTime()));
                 case NONE:
                     return Optional.empty();
                 default:
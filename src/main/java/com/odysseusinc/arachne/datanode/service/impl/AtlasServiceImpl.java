@@ -78,6 +78,7 @@ public class AtlasServiceImpl implements AtlasService {
     private final ApplicationEventPublisher eventPublisher;
 
     private Map<Atlas, ? extends AtlasClient> atlasClientPool = new ConcurrentHashMap<>();
+    private final Map<Atlas, AtlasInfoClient> atlasInfoClientPool = new ConcurrentHashMap<>();
 
     @Autowired
     public AtlasServiceImpl(AtlasClientServiceImpl atlasClientService,
@@ -131,6 +132,7 @@ public class AtlasServiceImpl implements AtlasService {
     public Atlas updateVersion(Long atlasId, String version) {
 
         Atlas atlas = atlasRepository.findById(atlasId).orElseThrow(() -> new IllegalArgumentException("Bad ID:" + atlasId));
+        boolean versionChanged = !Objects.equals(atlas.getVersion(), version);
         atlas.setVersion(version);
 
         AtlasShortDTO updatedDTO = updateOnCentral(atlas);
@@ -138,7 +140,10 @@ public class AtlasServiceImpl implements AtlasService {
         atlas.setCentralId(updatedDTO.getCentralId());
 
         Atlas updated = save(atlas);
-        atlasClientPool.replace(updated, atlasClientService.buildAtlasClient(updated));
+        // the client API depends on the version, a client of an unchanged Atlas keeps its connections and token
+        if (versionChanged) {
+            atlasClientPool.replace(updated, atlasClientService.buildAtlasClient(updated));
+        }
         return updated;
     }
 
@@ -191,6 +196,7 @@ public class AtlasServiceImpl implements AtlasService {
         }
 
         atlasClientPool.replace(updated, atlasClientService.buildAtlasClient(updated));
+        atlasInfoClientPool.remove(updated);
         return updated;
     }
 
@@ -204,6 +210,7 @@ public class AtlasServiceImpl implements AtlasService {
         eventPublisher.publishEvent(new AtlasDeletedEvent(this, atlas));
 
         atlasClientPool.remove(atlas);
+        atlasInfoClientPool.remove(atlas);
     }
 
     @Override
@@ -243,7 +250,7 @@ public class AtlasServiceImpl implements AtlasService {
     @Override
     public <R> R executeInfo(Atlas atlas, Function<AtlasInfoClient, R> sendAtlasRequest) {
 
-        AtlasInfoClient infoClient = atlasClientService.buildAtlasInfoClient(atlas);
+        AtlasInfoClient infoClient = atlasInfoClientPool.computeIfAbsent(atlas, atlasClientService::buildAtlasInfoClient);
         return sendAtlasRequest.apply(infoClient);
     }
 
@@ -35,11 +35,14 @@ import com.odysseusinc.arachne.datanode.repository.AnalysisFileRepository;
 import com.odysseusinc.arachne.datanode.repository.AnalysisRepository;
 import com.odysseusinc.arachne.datanode.repository.AnalysisStateJournalRepository;
 import com.odysseusinc.arachne.datanode.service.AnalysisService;
+import com.odysseusinc.arachne.datanode.service.AnalysisStatusUpdate;
+import com.odysseusinc.arachne.datanode.service.AnalysisStdoutService;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineIntegrationService;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisRequestDTO;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisRequestStatusDTO;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisResultStatusDTO;
 import com.odysseusinc.arachne.execution_engine_common.util.CommonFileUtils;
+import com.google.common.collect.Lists;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,29 +61,29 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class BaseAnalysisServiceImpl implements AnalysisService {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(BaseAnalysisServiceImpl.class);
-    private static List<String> finishedStates = new ArrayList<>(3);
+    private static final List<AnalysisState> FINISHED_STATES = Arrays.asList(
+            AnalysisState.EXECUTED, AnalysisState.CLOSED, AnalysisState.DEAD);
+    private static final List<String> FINISHED_STATE_NAMES = FINISHED_STATES.stream()
+            .map(AnalysisState::name)
+            .collect(Collectors.toList());
     private static final String ZIP_FILENAME = "analysis.zip";
 
-    static {
-        finishedStates.add(AnalysisState.EXECUTED.name());
-        finishedStates.add(AnalysisState.CLOSED.name());
-        finishedStates.add(AnalysisState.DEAD.name());
-    }
-
     protected final GenericConversionService conversionService;
     protected final AnalysisPreprocessorService preprocessorService;
     protected final AnalysisRepository analysisRepository;
     protected final AnalysisStateJournalRepository analysisStateJournalRepository;
     private final ExecutionEngineIntegrationService engineIntegrationService;
+    protected final AnalysisStdoutService stdoutService;
     @Value("${datanode.arachneCentral.host}")
     protected String centralHost;
     @Value("${datanode.arachneCentral.port}")
@@ -89,6 +92,8 @@ public abstract class BaseAnalysisServiceImpl implements AnalysisService {
     protected Long invalidateExecutingInterval;
     @Value("${analysis.scheduler.invalidateMaxDaysExecutingInterval}")
     protected Integer invalidateMaxDaysExecutingInterval;
+    @Value("${analysis.scheduler.invalidateBatchSize:1000}")
+    protected Integer invalidateBatchSize;
     @Value("${analysis.file.maxsize}")
     protected Long maximumSize;
     @Value("${submission.result.files.exclusions}")
@@ -100,41 +105,34 @@ public abstract class BaseAnalysisServiceImpl implements AnalysisService {
                                    AnalysisRepository analysisRepository,
                                    AnalysisFileRepository analysisFileRepository,
                                    AnalysisStateJournalRepository analysisStateJournalRepository,
-                                   ExecutionEngineIntegrationService engineIntegrationService) {
+                                   ExecutionEngineIntegrationService engineIntegrationService,
+                                   AnalysisStdoutService stdoutService) {
 
         this.analysisRepository = analysisRepository;
         this.analysisStateJournalRepository = analysisStateJournalRepository;
         this.conversionService = conversionService;
         this.engineIntegrationService = engineIntegrationService;
         this.preprocessorService = preprocessorService;
+        this.stdoutService = stdoutService;
     }
 
     @Override
     @Transactional
     public Integer invalidateAllUnfinishedAnalyses(final User user) {
 
-        List<Analysis> unfinished = analysisRepository.findAllByNotStateIn(finishedStates);
-        List<AnalysisStateEntry> entries = onAnalysesInvalidated(unfinished, user);
-        analysisStateJournalRepository.saveAll(entries);
-        return unfinished.size();
+        List<Long> unfinished = analysisRepository.findIdsByStateNotIn(FINISHED_STATES);
+        Date date = new Date();
+        int invalidated = 0;
+        for (List<Long> ids : Lists.partition(unfinished, invalidateBatchSize)) {
+            // the status first, the new journal entries move the analyses out of the unfinished states
+            analysisRepository.updateResultStatusByStateNotIn(ids, FINISHED_STATE_NAMES, AnalysisResultStatusDTO.FAILED.name());
+            invalidated += analysisStateJournalRepository.insertStateByStateNotIn(
+                    ids, FINISHED_STATE_NAMES, AnalysisState.CLOSED.name(), "Invalidated by user's request", date);
+            LOGGER.info("Invalidated {} of {} unfinished analyses", invalidated, unfinished.size());
+        }
+        return invalidated;
     }
 
-    protected List<AnalysisStateEntry> onAnalysesInvalidated(List<Analysis> unfinished, final User user) {
-
-		List<AnalysisStateEntry> entries = new LinkedList<>();
-		unfinished.forEach(analysis -> {
-			analysis.setStatus(AnalysisResultStatusDTO.FAILED);
-			AnalysisStateEntry entry = new AnalysisStateEntry(
-					new Date(),
-					AnalysisState.CLOSED,
-					"Invalidated by user's request",
-					analysis
-			);
-			entries.add(entry);
-		});
-		return entries;
-	}
-
     @Async
     public void sendToEngine(Analysis analysis) {
 
@@ -178,61 +176,64 @@ public abstract class BaseAnalysisServiceImpl implements AnalysisService {
 		}
     }
 
-    public Optional<Analysis> updateStatus(Long id, String stdoutDiff, String password) {
+    @Override
+    @Transactional
+    public void updateStatuses(List<AnalysisStatusUpdate> updates) {
 
-        final Date currentTime = new Date();
-        final Optional<Analysis> optionalAnalysis = analysisRepository.findOneExecuting(id, password);
-        optionalAnalysis
-                .ifPresent(analysis -> {
-                    analysisStateJournalRepository.findLatestByAnalysisId(analysis.getId())
-                            .ifPresent(currentState -> {
-                                if (AnalysisState.EXECUTING == currentState.getState()) {
-                                    final String stdout = analysis.getStdout();
-                                    analysis.setStdout(stdout == null ? stdoutDiff : stdout + stdoutDiff);
-                                    analysisRepository.save(analysis);
-                                    AnalysisStateEntry analysisStateEntry = new AnalysisStateEntry(
-                                            currentTime,
-                                            AnalysisState.EXECUTING,
-                                            Constants.AnalysisMessages.STDOUT_UPDATED_REASON,
-                                            analysis);
-                                    analysisStateEntry.setId(currentState.getId());
-                                    analysisStateJournalRepository.save(analysisStateEntry);
-                                }
-                            });
-                });
-        return optionalAnalysis;
+        Map<Long, Analysis> executing = analysisRepository.findAllExecuting(updates.stream()
+                        .map(AnalysisStatusUpdate::getAnalysisId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Analysis::getId, Function.identity()));
+        Map<Long, AnalysisStateEntry> latestStates = analysisStateJournalRepository.findAllById(executing.values().stream()
+                        .map(Analysis::getLatestStateId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(AnalysisStateEntry::getId, Function.identity()));
+        List<AnalysisStateEntry> updated = new ArrayList<>(updates.size());
+        for (AnalysisStatusUpdate update : updates) {
+            Analysis analysis = executing.get(update.getAnalysisId());
+            if (analysis == null || !Objects.equals(analysis.getCallbackPassword(), update.getPassword())) {
+                LOGGER.debug("Status update of analysis {} ignored, it is not executing", update.getAnalysisId());
+                continue;
+            }
+            AnalysisStateEntry currentState = latestStates.get(analysis.getLatestStateId());
+            if (currentState != null && AnalysisState.EXECUTING == currentState.getState()) {
+                stdoutService.append(analysis.getId(), update.getStdout());
+                currentState.setDate(update.getReceived());
+                currentState.setReason(Constants.AnalysisMessages.STDOUT_UPDATED_REASON);
+                updated.add(currentState);
+            }
+        }
+        analysisStateJournalRepository.saveAll(updated);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> findExecutingCallbackPassword(Long id) {
+
+        return analysisRepository.findCallbackPasswordByIdAndState(id, AnalysisState.EXECUTING);
     }
 
     @Transactional
     public void invalidateExecutingLong() {
 
         Date resendBefore = new Date(new Date().getTime() - invalidateExecutingInterval);
-        List<Analysis> allExecutingMoreThan = analysisRepository.findAllExecutingMoreThan(
-                AnalysisState.EXECUTING.name(),
-                resendBefore
-        );
-        List<AnalysisStateEntry> entries = new ArrayList<>();
         Date expirationDate = calculateDate(invalidateMaxDaysExecutingInterval);
-        allExecutingMoreThan.forEach(analysis -> {
-            LOGGER.warn("EXECUTING State being invalidated for analysis with id='{}'", analysis.getId());
-            Optional<AnalysisStateEntry> state = analysisStateJournalRepository.findLatestByAnalysisId(analysis.getId());
-            state.ifPresent(s -> {
-                AnalysisState analysisState = AnalysisState.EXECUTION_FAILURE;
-                if (s.getDate().before(expirationDate)) {
-                    LOGGER.warn("Analysis id={} is being EXECUTING more than {} days, one will marked as DEAD",
-                            analysis.getId(), invalidateMaxDaysExecutingInterval);
-                    analysisState = AnalysisState.DEAD;
-                }
-                AnalysisStateEntry entry = new AnalysisStateEntry(
-                        new Date(),
-                        analysisState,
-                        "Analysis sent to Execution Engine early than " + resendBefore,
-                        analysis
-                );
-                entries.add(entry);
-            });
-        });
-        analysisStateJournalRepository.saveAll(entries);
+        List<Long> executing = analysisRepository.findIdsByStateBefore(AnalysisState.EXECUTING, resendBefore);
+        String reason = "Analysis sent to Execution Engine early than " + resendBefore;
+        String executingState = AnalysisState.EXECUTING.name();
+        Date date = new Date();
+        int dead = 0;
+        int failed = 0;
+        for (List<Long> ids : Lists.partition(executing, invalidateBatchSize)) {
+            // the oldest ones first, they leave EXECUTING and are not failed again below
+            dead += analysisStateJournalRepository.insertStateByStateBefore(
+                    ids, executingState, expirationDate, AnalysisState.DEAD.name(), reason, date);
+            failed += analysisStateJournalRepository.insertStateByStateBefore(
+                    ids, executingState, resendBefore, AnalysisState.EXECUTION_FAILURE.name(), reason, date);
+            LOGGER.info("Invalidated {} of {} analyses EXECUTING since before {}, {} of them EXECUTING more than {} days marked as DEAD",
+                    dead + failed, executing.size(), resendBefore, dead, invalidateMaxDaysExecutingInterval);
+        }
     }
 
     private Date calculateDate(int interval) {
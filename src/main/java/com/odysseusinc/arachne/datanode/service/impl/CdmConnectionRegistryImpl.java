@@ -0,0 +1,186 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import com.odysseusinc.arachne.commons.types.DBMSType;
+import com.odysseusinc.arachne.datanode.config.properties.CdmConnectionPoolProperties;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
+import com.odysseusinc.arachne.datanode.service.events.datasource.DataSourceDeletedEvent;
+import com.odysseusinc.arachne.datanode.service.events.datasource.DataSourceUpdatedEvent;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CdmConnectionRegistryImpl implements CdmConnectionRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CdmConnectionRegistryImpl.class);
+    private static final String POOL_NAME = "ArachneDn-Cdm-%d";
+
+    private final CdmConnectionPoolProperties properties;
+    private final Map<Long, Pool> pools = new ConcurrentHashMap<>();
+    // replaced pools by the time they are closed even if their connections are still borrowed
+    private final Map<HikariDataSource, Long> retired = new ConcurrentHashMap<>();
+
+    public CdmConnectionRegistryImpl(CdmConnectionPoolProperties properties) {
+
+        this.properties = properties;
+    }
+
+    @Override
+    public Connection getConnection(DataSource dataSource) throws SQLException {
+
+        Objects.requireNonNull(dataSource, "dataSource is required");
+        if (Objects.isNull(dataSource.getId())) {
+            return DRIVER_MANAGER.getConnection(dataSource);
+        }
+        final String signature = signature(dataSource);
+        Pool pool = pools.compute(dataSource.getId(), (id, existing) -> {
+            if (Objects.nonNull(existing)) {
+                if (Objects.equals(existing.signature, signature)) {
+                    return existing;
+                }
+                LOGGER.info("Connection settings changed for data source {}, rebuilding pool", id);
+                retire(existing);
+            }
+            return new Pool(signature, buildPool(dataSource));
+        });
+        return pool.dataSource.getConnection();
+    }
+
+    @Override
+    public void invalidate(DataSource dataSource) {
+
+        if (Objects.nonNull(dataSource) && Objects.nonNull(dataSource.getId())) {
+            Pool pool = pools.remove(dataSource.getId());
+            if (Objects.nonNull(pool)) {
+                LOGGER.info("Closing connection pool for data source {}", dataSource.getId());
+                retire(pool);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDataSourceUpdated(DataSourceUpdatedEvent event) {
+
+        invalidate(event.getDataSource());
+    }
+
+    @EventListener
+    public void onDataSourceDeleted(DataSourceDeletedEvent event) {
+
+        invalidate(event.getDataSource());
+    }
+
+    @Scheduled(fixedDelayString = "${cdm.pool.retire-check-interval:1000}")
+    public void closeRetiredPools() {
+
+        final long now = System.currentTimeMillis();
+        retired.forEach((dataSource, closeBy) -> {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            int active = Objects.isNull(pool) ? 0 : pool.getActiveConnections();
+            if (active == 0 || now >= closeBy) {
+                if (active > 0) {
+                    LOGGER.warn("Closing connection pool {} with {} connections still in use",
+                            dataSource.getPoolName(), active);
+                }
+                retired.remove(dataSource);
+                dataSource.close();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        pools.values().forEach(pool -> pool.dataSource.close());
+        pools.clear();
+        retired.keySet().forEach(HikariDataSource::close);
+        retired.clear();
+    }
+
+    /**
+     * Takes the pool out of use without breaking the queries running on it: idle connections are closed
+     * at once, borrowed ones when they are returned, and the pool itself once it is drained
+     */
+    private void retire(Pool pool) {
+
+        HikariPoolMXBean bean = pool.dataSource.getHikariPoolMXBean();
+        if (Objects.nonNull(bean)) {
+            bean.softEvictConnections();
+        }
+        retired.put(pool.dataSource, System.currentTimeMillis() + properties.getRetireTimeout());
+    }
+
+    private HikariDataSource buildPool(DataSource dataSource) {
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(String.format(POOL_NAME, dataSource.getId()));
+        config.setJdbcUrl(dataSource.getConnectionString());
+        config.setUsername(dataSource.getUsername());
+        config.setPassword(dataSource.getPassword());
+        config.setAutoCommit(false);
+        config.setMaximumPoolSize(properties.getMaximumPoolSize());
+        config.setMinimumIdle(properties.getMinimumIdle());
+        config.setConnectionTimeout(properties.getConnectionTimeout());
+        config.setIdleTimeout(properties.getIdleTimeout());
+        config.setMaxLifetime(properties.getMaxLifetime());
+        config.setLeakDetectionThreshold(properties.getLeakDetectionThreshold());
+        // Connections are opened lazily, so an unreachable warehouse fails the query, not the pool creation
+        config.setInitializationFailTimeout(-1);
+        addStatementCacheProperties(config, dataSource.getType());
+        return new HikariDataSource(config);
+    }
+
+    private void addStatementCacheProperties(HikariConfig config, DBMSType type) {
+
+        final int cacheSize = properties.getStatementCacheSize();
+        if (Objects.isNull(type) || cacheSize <= 0) {
+            return;
+        }
+        switch (type) {
+            case POSTGRESQL:
+            case REDSHIFT:
+                config.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(cacheSize));
+                break;
+            case ORACLE:
+                config.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(cacheSize));
+                break;
+            case MS_SQL_SERVER:
+            case PDW:
+                config.addDataSourceProperty("disableStatementPooling", "false");
+                config.addDataSourceProperty("statementPoolingCacheSize", String.valueOf(cacheSize));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String signature(DataSource dataSource) {
+
+        return String.valueOf(Objects.hash(dataSource.getType(), dataSource.getConnectionString(),
+                dataSource.getUsername(), dataSource.getPassword()));
+    }
+
+    private static class Pool {
+
+        private final String signature;
+        private final HikariDataSource dataSource;
+
+        private Pool(String signature, HikariDataSource dataSource) {
+
+            this.signature = signature;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -37,6 +37,8 @@ import com.odysseusinc.arachne.datanode.service.AtlasRequestHandler;
 import com.odysseusinc.arachne.datanode.service.CohortService;
 import com.odysseusinc.arachne.datanode.service.DataNodeService;
 import com.odysseusinc.arachne.datanode.service.client.portal.CentralSystemClient;
+import com.odysseusinc.arachne.datanode.util.SqlPlaceholders;
+import com.odysseusinc.arachne.datanode.util.SqlTemplateCache;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -65,10 +67,12 @@ public class CohortServiceImpl implements CohortService {
     private static final String CHECKING_COHORT_REQUESTS_LOG = "Checking Cohort Requests";
     private static final String PROCESS_LIST_REQUEST_FAILURE_LOG = "Process List Requests checking failure, {}";
     private static final String PROCESS_REQUEST_FAILURE_LOG = "Process request checking failure, {}";
+    private static final String WARM_UP_SQL = "SELECT 1;";
     private final CentralSystemClient centralClient;
     private final ConfigurableListableBeanFactory beanFactory;
     private final AtlasRepository atlasRepository;
     private final DataNodeService dataNodeService;
+    private final SqlTemplateCache sqlTemplateCache;
     private Map<CommonAnalysisType,
             AtlasRequestHandler<? extends CommonEntityDTO, ? extends CommonEntityDTO>> handlerMap =
             new HashMap<>();
@@ -76,12 +80,14 @@ public class CohortServiceImpl implements CohortService {
     public CohortServiceImpl(CentralSystemClient centralClient,
                              ConfigurableListableBeanFactory beanFactory,
                              AtlasRepository atlasRepository,
-                             DataNodeService dataNodeService) {
+                             DataNodeService dataNodeService,
+                             SqlTemplateCache sqlTemplateCache) {
 
         this.centralClient = centralClient;
         this.beanFactory = beanFactory;
         this.atlasRepository = atlasRepository;
         this.dataNodeService = dataNodeService;
+        this.sqlTemplateCache = sqlTemplateCache;
     }
 
     @PostConstruct
@@ -92,6 +98,9 @@ public class CohortServiceImpl implements CohortService {
         putBeans(beans, (v) -> !beanFactory.getBeanDefinition(v.getKey()).isPrimary());
         putBeans(beans, (v) -> beanFactory.getBeanDefinition(v.getKey()).isPrimary());
 
+        // SqlTranslate loads its replacement patterns on first use, afterwards translation is stateless
+        // and needs no locking, so the patterns are loaded before any concurrent use
+        translateSql(DBMSType.POSTGRESQL.getOhdsiDB(), SqlTranslate.generateSessionId(), null, WARM_UP_SQL);
     }
 
     private void putBeans(Map<String, AtlasRequestHandler> beans, Predicate<? super Map.Entry<String, AtlasRequestHandler>> predicate) {
@@ -195,7 +204,23 @@ public class CohortServiceImpl implements CohortService {
     public String translateSQL(String sourceStatement, Map<String, String> parameters,
                                DBMSType dbmsType, String sessionId, String tempSchema, TranslateOptions options) {
 
-        String translated;
+        String translated = sqlTemplateCache.translate(sourceStatement, parameters, dbmsType, sessionId, tempSchema,
+                session -> renderAndTranslate(sourceStatement, parameters, dbmsType, session, tempSchema));
+        return processPlaceHolders(translated, options);
+    }
+
+    @Override
+    public List<String> translateSQL(List<String> sourceStatements, Map<String, String> parameters,
+                                     DBMSType dbmsType, String sessionId, String tempSchema, TranslateOptions options) {
+
+        return sourceStatements.stream()
+                .map(sourceStatement -> translateSQL(sourceStatement, parameters, dbmsType, sessionId, tempSchema, options))
+                .collect(Collectors.toList());
+    }
+
+    private String renderAndTranslate(String sourceStatement, Map<String, String> parameters,
+                                      DBMSType dbmsType, String sessionId, String tempSchema) {
+
         try {
             String[] parameterKeys = getMapKeys(parameters);
             String[] parameterValues = getMapValues(parameters, parameterKeys);
@@ -205,17 +230,16 @@ public class CohortServiceImpl implements CohortService {
             if (dbmsType == null
                     || DBMSType.MS_SQL_SERVER == dbmsType
                     || DBMSType.PDW == dbmsType) {
-                translated = renderedSQL;
+                return renderedSQL;
             } else {
-                translated = translateSql(dbmsType.getOhdsiDB(), sessionId, tempSchema, renderedSQL);
+                return translateSql(dbmsType.getOhdsiDB(), sessionId, tempSchema, renderedSQL);
             }
         } catch (Exception exception) {
             throw new RuntimeException(exception);
         }
-        return processPlaceHolders(translated, options);
     }
 
-    public synchronized String translateSql(String dbmsType, String sessionId, String tempSchema, String renderedSQL) {
+    public String translateSql(String dbmsType, String sessionId, String tempSchema, String renderedSQL) {
 
         // Oracle fails with a single query ending with semicolon. That's why we remove the semicolon after translation
         return SqlTranslate.translateSql(
@@ -228,10 +252,7 @@ public class CohortServiceImpl implements CohortService {
 
     private String processPlaceHolders(String expression, TranslateOptions options) {
 
-        for (Map.Entry<String, String> replacement : options.replacements.entrySet()) {
-            expression = expression.replaceAll(replacement.getKey(), replacement.getValue());
-        }
-        return expression;
+        return options.placeholders.substitute(expression);
     }
 
     private String[] getMapKeys(Map<String, String> parameters) {
@@ -267,7 +288,7 @@ public class CohortServiceImpl implements CohortService {
 
     public static class TranslateOptions {
 
-        private final Map<String, String> replacements;
+        private final SqlPlaceholders placeholders;
 
         public TranslateOptions(String cdmDataBaseSchema,
                                 String targetDataBaseSchema,
@@ -276,7 +297,7 @@ public class CohortServiceImpl implements CohortService {
                                 String targetCohortTable,
                                 int targetCohortId) {
 
-            replacements = ImmutableMap.<String, String>builder()
+            placeholders = new SqlPlaceholders(ImmutableMap.<String, String>builder()
                     .put("@cdm_database_schema", cdmDataBaseSchema)
                     .put("@results_database_schema", resultsDatabaseSchema)
                     .put("@target_database_schema", targetDataBaseSchema)
@@ -285,7 +306,7 @@ public class CohortServiceImpl implements CohortService {
                     .put("@target_cohort_table", targetCohortTable)
                     .put("@target_cohort_id", String.valueOf(targetCohortId))
                     .put("@generateStats;", "1")
-                    .build();
+                    .build());
         }
     }
 }
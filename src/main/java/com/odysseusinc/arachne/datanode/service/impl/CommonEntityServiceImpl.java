@@ -22,26 +22,53 @@
 
 package com.odysseusinc.arachne.datanode.service.impl;
 
+import com.google.common.collect.Iterables;
 import com.odysseusinc.arachne.commons.api.v1.dto.CommonAnalysisType;
-import com.odysseusinc.arachne.datanode.model.atlas.Atlas;
 import com.odysseusinc.arachne.datanode.model.atlas.CommonEntity;
 import com.odysseusinc.arachne.datanode.repository.CommonEntityRepository;
 import com.odysseusinc.arachne.datanode.service.CommonEntityService;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
+/**
+ * Registers the Atlas entities listed to Central under GUIDs.
+ * <p>
+ * An entity is identified by its Atlas, local id and type, which are unique in the table. Missing entities
+ * are inserted skipping the ones registered concurrently, so parallel list requests end up with the same
+ * GUID instead of failing or registering an entity twice. Rows are inserted in the local id order, so two
+ * requests inserting the same entities wait on each other instead of deadlocking.
+ */
 @Service
 @Transactional
 public class CommonEntityServiceImpl implements CommonEntityService {
 
+    private static final int QUERY_BATCH_SIZE = 1000;
+    private static final String INSERT_SQL = "INSERT INTO common_entity (id, guid, origin_id, analysis_type, local_id) VALUES %s "
+            + "ON CONFLICT (origin_id, local_id, analysis_type) DO NOTHING";
+    private static final String INSERT_ROW_SQL = "(nextval('common_entity_id_seq'), ?%d, ?%d, ?%d, ?%d)";
+
     private final CommonEntityRepository repository;
 
+    @PersistenceContext
+    private EntityManager em;
+
     @Autowired
     public CommonEntityServiceImpl(CommonEntityRepository repository) {
 
@@ -52,19 +79,67 @@ public class CommonEntityServiceImpl implements CommonEntityService {
     public CommonEntity getOrCreate(Long originId, Integer localId, CommonAnalysisType analysisType) {
 
         return repository.getByOriginIdAndLocalIdAndAnalysisType(originId, localId, analysisType).orElseGet(() -> {
-            CommonEntity entity = new CommonEntity();
-            entity.setOrigin(new Atlas(originId));
-            entity.setLocalId(localId);
-            entity.setAnalysisType(analysisType);
-            entity.setGuid(newGuid());
-            return repository.save(entity);
+            insertMissing(originId, analysisType, Collections.singletonList(localId));
+            return repository.getByOriginIdAndLocalIdAndAnalysisType(originId, localId, analysisType)
+                    .orElseThrow(() -> new IllegalStateException("Failed to register entity " + localId + " of Atlas " + originId));
         });
     }
 
+    @Override
+    public Map<Integer, String> getOrCreateGuids(Long originId, CommonAnalysisType analysisType, Collection<Integer> localIds) {
+
+        Set<Integer> requested = new TreeSet<>(localIds);
+        Map<Integer, String> guids = findGuids(originId, analysisType, requested);
+        if (guids.size() < requested.size()) {
+            List<Integer> missing = requested.stream()
+                    .filter(localId -> !guids.containsKey(localId))
+                    .collect(Collectors.toList());
+            insertMissing(originId, analysisType, missing);
+            guids.putAll(findGuids(originId, analysisType, missing));
+        }
+        return guids;
+    }
+
     @Override
     public Optional<CommonEntity> findByGuid(String guid) {
 
-        return repository.findByGuid(guid);
+        Optional<CommonEntity> entity = repository.findByGuid(guid);
+        // GUIDs of merged duplicate registrations resolve to the kept entity
+        return entity.isPresent() ? entity : repository.findByAliasGuid(guid);
+    }
+
+    private Map<Integer, String> findGuids(Long originId, CommonAnalysisType analysisType, Collection<Integer> localIds) {
+
+        Map<Integer, String> guids = new HashMap<>(localIds.size());
+        for (List<Integer> batch : Iterables.partition(localIds, QUERY_BATCH_SIZE)) {
+            for (CommonEntity entity : repository.findByOriginIdAndAnalysisTypeAndLocalIdIn(originId, analysisType, batch)) {
+                guids.put(entity.getLocalId(), entity.getGuid());
+            }
+        }
+        return guids;
+    }
+
+    /**
+     * @param localIds sorted local ids
+     */
+    private void insertMissing(Long originId, CommonAnalysisType analysisType, List<Integer> localIds) {
+
+        for (List<Integer> batch : Iterables.partition(localIds, QUERY_BATCH_SIZE)) {
+            StringBuilder values = new StringBuilder();
+            for (int i = 0; i < batch.size(); i++) {
+                int p = i * 4;
+                values.append(i == 0 ? "" : ", ").append(String.format(INSERT_ROW_SQL, p + 1, p + 2, p + 3, p + 4));
+            }
+            Query query = em.createNativeQuery(String.format(INSERT_SQL, values));
+            for (int i = 0; i < batch.size(); i++) {
+                int p = i * 4;
+                query.setParameter(p + 1, newGuid());
+                query.setParameter(p + 2, originId);
+                query.setParameter(p + 3, analysisType.name());
+                query.setParameter(p + 4, batch.get(i));
+            }
+            query.executeUpdate();
+        }
     }
 
     private String newGuid() {
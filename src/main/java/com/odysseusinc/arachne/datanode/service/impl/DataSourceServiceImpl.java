@@ -44,6 +44,7 @@ import com.odysseusinc.arachne.datanode.service.DataSourceService;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineIntegrationService;
 import com.odysseusinc.arachne.datanode.service.client.portal.CentralClient;
 import com.odysseusinc.arachne.datanode.service.events.datasource.DataSourceCreatedEvent;
+import com.odysseusinc.arachne.datanode.service.events.datasource.DataSourceDeletedEvent;
 import com.odysseusinc.arachne.datanode.service.events.datasource.DataSourceUpdatedEvent;
 import com.odysseusinc.arachne.datanode.util.DataNodeUtils;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisRequestDTO;
@@ -200,6 +201,8 @@ public class DataSourceServiceImpl implements DataSourceService {
     public void delete(Long id) {
 
         checkNotNull(id, "given data source surrogate id is blank ");
+        dataSourceRepository.findById(id).ifPresent(dataSource ->
+                eventPublisher.publishEvent(new DataSourceDeletedEvent(this, null, dataSource)));
         dataSourceRepository.deleteById(id);
     }
 
@@ -208,6 +211,7 @@ public class DataSourceServiceImpl implements DataSourceService {
 
         checkNotNull(dataSource, "given datasource is null");
         dataSourceRepository.delete(dataSource);
+        eventPublisher.publishEvent(new DataSourceDeletedEvent(this, null, dataSource));
     }
 
     @Override
@@ -27,6 +27,7 @@ import com.odysseusinc.arachne.datanode.exception.ValidationException;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineIntegrationService;
 import com.odysseusinc.arachne.datanode.service.ExecutionEngineStatus;
 import com.odysseusinc.arachne.datanode.service.client.engine.ExecutionEngineClient;
+import com.odysseusinc.arachne.datanode.service.client.engine.ZipFolderRequestBody;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisRequestDTO;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisRequestStatusDTO;
 import com.odysseusinc.arachne.execution_engine_common.util.CommonFileUtils;
@@ -42,6 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -55,10 +57,14 @@ import static com.odysseusinc.arachne.datanode.service.ExecutionEngineStatus.ONL
 @Service
 public class ExecutionEngineIntegrationServiceImpl implements ExecutionEngineIntegrationService {
     private static final Logger logger = LoggerFactory.getLogger(ExecutionEngineIntegrationServiceImpl.class);
+    private static final String ARCHIVE_NAME = "request.zip";
 
     @Autowired
     private ExecutionEngineClient engineClient;
     private final EngineClient engineStatusClient;
+    // Engines behind proxies that reject chunked requests need the archive built up front to send its length
+    @Value("${executionEngine.streamAnalysisRequest:true}")
+    private boolean streamAnalysisRequest;
 
     private volatile ExecutionEngineStatus executionEngineStatus = OFFLINE;
 
@@ -79,9 +85,18 @@ public class ExecutionEngineIntegrationServiceImpl implements ExecutionEngineInt
                                                                         File analysisFolder, boolean compressedResult,
                                                                         boolean healthCheck) {
 
+        if (streamAnalysisRequest) {
+            try {
+                logger.info("Request [{}] with files for [{}], streaming now", requestDTO.getId(), analysisFolder.getName());
+                return engineClient.sendAnalysisRequest(requestDTO, ARCHIVE_NAME, new ZipFolderRequestBody(analysisFolder),
+                        compressedResult, healthCheck);
+            } catch (ResourceAccessException exception) {
+                throw new ValidationException("Cannot establish connection to the execution engine");
+            }
+        }
         final File analysisTempDir = getTempDirectory("arachne_datanode_analysis_");
         try {
-            final File archive = new File(analysisTempDir.toString(), "request.zip");
+            final File archive = new File(analysisTempDir.toString(), ARCHIVE_NAME);
             CommonFileUtils.compressAndSplit(analysisFolder, archive, null);
             logger.info("Request [{}} with files for [{}], sending now", requestDTO.getId(), analysisFolder.getName());
             return engineClient.sendAnalysisRequest(requestDTO, archive, compressedResult, healthCheck);
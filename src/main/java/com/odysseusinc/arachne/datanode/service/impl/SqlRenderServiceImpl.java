@@ -23,26 +23,55 @@
 package com.odysseusinc.arachne.datanode.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.odysseusinc.arachne.datanode.dto.atlas.CohortDefinition;
 import com.odysseusinc.arachne.datanode.service.SqlRenderService;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.ohdsi.circe.cohortdefinition.CohortExpression;
 import org.ohdsi.circe.cohortdefinition.CohortExpressionQueryBuilder;
 import org.ohdsi.sql.SqlRender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * Builds cohort SQL with the Circe query builder.
+ * <p>
+ * The built SQL is cached by a hash of the expression with sorted keys and the build options, so the same
+ * definition sent again by another request is built once, and a changed definition gets a new entry. The
+ * cache is bounded by the total length of the cached SQL, every entry remembers how long it took to build.
+ */
 @Service
 public class SqlRenderServiceImpl implements SqlRenderService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SqlRenderService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
     private final CohortExpressionQueryBuilder queryBuilder;
+    private final Cache<String, ExpressionSql> expressions;
 
-    public SqlRenderServiceImpl(CohortExpressionQueryBuilder queryBuilder) {
+    public SqlRenderServiceImpl(CohortExpressionQueryBuilder queryBuilder,
+                                @Value("${sql.cache.maxCohortSqlChars:16777216}") long maxCohortSqlChars) {
 
         this.queryBuilder = queryBuilder;
+        this.expressions = CacheBuilder.newBuilder()
+                .maximumWeight(maxCohortSqlChars)
+                .<String, ExpressionSql>weigher((key, value) -> value.sql.length())
+                .recordStats()
+                .build();
     }
 
     @Override
@@ -55,11 +84,9 @@ public class SqlRenderServiceImpl implements SqlRenderService {
     public String renderSql(CohortDefinition cohort, String[] parameters, String values[]){
 
         try {
-            ObjectMapper mapper = new ObjectMapper();
             if (Objects.nonNull(cohort.getExpression())) {
-                CohortExpression expression = mapper.readValue(cohort.getExpression(), CohortExpression.class);
                 final CohortExpressionQueryBuilder.BuildExpressionQueryOptions options = new CohortExpressionQueryBuilder.BuildExpressionQueryOptions();
-                String expressionSql = queryBuilder.buildExpressionQuery(expression, options);
+                String expressionSql = buildExpressionSql(cohort.getExpression(), options);
                 return SqlRender.renderSql(expressionSql, parameters, values);
             }
         } catch (IOException e) {
@@ -67,4 +94,56 @@ public class SqlRenderServiceImpl implements SqlRenderService {
         }
         return null;
     }
+
+    @Scheduled(fixedDelayString = "${sql.cache.statsIntervalMs:3600000}")
+    public void logStats() {
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Cohort SQL cache: {} entries, {}", expressions.size(), expressions.stats());
+        }
+    }
+
+    private String buildExpressionSql(String json, CohortExpressionQueryBuilder.BuildExpressionQueryOptions options)
+            throws IOException {
+
+        String key = Hashing.sha256().newHasher()
+                .putString(CANONICAL_MAPPER.writeValueAsString(MAPPER.readValue(json, Object.class)), StandardCharsets.UTF_8)
+                .putString(CANONICAL_MAPPER.writeValueAsString(options), StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+        AtomicBoolean built = new AtomicBoolean();
+        ExpressionSql cached;
+        try {
+            cached = expressions.get(key, () -> {
+                built.set(true);
+                Stopwatch stopwatch = Stopwatch.createStarted();
+                CohortExpression expression = MAPPER.readValue(json, CohortExpression.class);
+                String sql = queryBuilder.buildExpressionQuery(expression, options);
+                long buildMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+                LOGGER.debug("Cohort expression {} built in {} ms", key, buildMillis);
+                return new ExpressionSql(sql, buildMillis);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (!built.get()) {
+            LOGGER.debug("Cohort expression {} taken from cache, built in {} ms", key, cached.buildMillis);
+        }
+        return cached.sql;
+    }
+
+    private static class ExpressionSql {
+
+        private final String sql;
+        private final long buildMillis;
+
+        private ExpressionSql(String sql, long buildMillis) {
+
+            this.sql = sql;
+            this.buildMillis = buildMillis;
+        }
+    }
 }
@@ -0,0 +1,212 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import com.odysseusinc.arachne.datanode.dto.datasource.DataSourceDTO;
+import com.odysseusinc.arachne.datanode.dto.submission.SubmissionDTO;
+import com.odysseusinc.arachne.datanode.exception.BadRequestException;
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisAuthor;
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisOrigin;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.repository.DataSourceRepository;
+import com.odysseusinc.arachne.datanode.service.SubmissionService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lists submissions straight from the analyses table, reading the current state maintained on it instead
+ * of loading the entities with their state history, files and stdout.
+ * <p>
+ * Every sort is completed with the id, so the order is stable. The id is unique, sorts requested after it
+ * cannot change the order and are ignored. Sorts by id, submitted date and status
+ * read a page after the last row of the previous one (keyset pagination), their cost does not grow with
+ * the page number. Other sorts may hold nulls, which keyset comparison skips, and fall back to offsets.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SubmissionServiceImpl implements SubmissionService {
+
+    private static final String FINISHED_SQL = "CASE WHEN a.current_state IN ('CREATED', 'EXECUTING', 'EXECUTION_READY') "
+            + "THEN NULL ELSE a.current_state_date END";
+    private static final String SELECT_SQL = "SELECT a.id, a.title, a.study_title, a.origin, a.data_source_id, "
+            + "a.author_first_name, a.author_last_name, a.author_email, a.current_state, a.submitted, "
+            + FINISHED_SQL + " AS finished";
+    private static final String FROM_SQL = " FROM analyses a";
+    private static final String DATA_SOURCE_JOIN_SQL = " LEFT JOIN datasource ds ON ds.id = a.data_source_id";
+    private static final String HAS_STATE_SQL = "a.current_state IS NOT NULL";
+
+    private static final Map<String, SortKey> SORT_KEYS = new HashMap<>();
+
+    static {
+        SORT_KEYS.put("id", new SortKey(null, true, "a.id"));
+        SORT_KEYS.put("analysis", new SortKey(null, false, "a.title"));
+        SORT_KEYS.put("title", new SortKey(null, false, "a.title"));
+        SORT_KEYS.put("study", new SortKey(null, false, "a.study_title"));
+        SORT_KEYS.put("studyTitle", new SortKey(null, false, "a.study_title"));
+        SORT_KEYS.put("author.fullName", new SortKey(null, false, "a.author_first_name", "a.author_last_name"));
+        SORT_KEYS.put("fullName", new SortKey(null, false, "a.author_first_name", "a.author_last_name"));
+        SORT_KEYS.put("author.firstName", new SortKey(null, false, "a.author_first_name"));
+        SORT_KEYS.put("author.lastName", new SortKey(null, false, "a.author_last_name"));
+        SORT_KEYS.put("author.email", new SortKey(null, false, "a.author_email"));
+        SORT_KEYS.put("origin", new SortKey(null, false, "a.origin"));
+        SORT_KEYS.put("dataSource.name", new SortKey(null, false, "ds.name"));
+        SORT_KEYS.put("status", new SortKey(HAS_STATE_SQL, true, "a.current_state"));
+        SORT_KEYS.put("submitted", new SortKey("a.submitted IS NOT NULL", true, "a.submitted"));
+        SORT_KEYS.put("finished", new SortKey(HAS_STATE_SQL, false, FINISHED_SQL));
+    }
+
+    private final DataSourceRepository dataSourceRepository;
+    private final GenericConversionService conversionService;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public SubmissionServiceImpl(DataSourceRepository dataSourceRepository,
+                                 GenericConversionService conversionService) {
+
+        this.dataSourceRepository = dataSourceRepository;
+        this.conversionService = conversionService;
+    }
+
+    @Override
+    public Page<SubmissionDTO> list(Pageable pageable, Long after) {
+
+        List<String> filters = new ArrayList<>();
+        List<String> orderColumns = new ArrayList<>();
+        List<String> order = new ArrayList<>();
+        boolean keyset = true;
+        Sort.Direction direction = null;
+        for (Sort.Order sortOrder : pageable.getSort()) {
+            SortKey key = SORT_KEYS.get(sortOrder.getProperty());
+            if (key == null) {
+                throw new BadRequestException("Submissions cannot be sorted by " + sortOrder.getProperty());
+            }
+            if (orderColumns.contains("a.id")) {
+                continue;
+            }
+            if (key.filter != null && !filters.contains(key.filter)) {
+                filters.add(key.filter);
+            }
+            for (String column : key.columns) {
+                orderColumns.add(column);
+                order.add(column + " " + sortOrder.getDirection().name());
+            }
+            if (direction == null) {
+                direction = sortOrder.getDirection();
+            }
+            // a row comparison needs all columns sorted the same way
+            keyset &= key.keyset && direction == sortOrder.getDirection();
+        }
+        if (direction == null) {
+            direction = Sort.Direction.DESC;
+        }
+        if (!orderColumns.contains("a.id")) {
+            orderColumns.add("a.id");
+            order.add("a.id " + direction.name());
+        }
+        keyset &= after != null;
+
+        String from = FROM_SQL + (orderColumns.stream().anyMatch(column -> column.startsWith("ds.")) ? DATA_SOURCE_JOIN_SQL : "");
+        String where = filters.isEmpty() ? "" : " WHERE " + String.join(" AND ", filters);
+        String rowsWhere = where;
+        if (keyset) {
+            String columns = String.join(", ", orderColumns);
+            rowsWhere += (where.isEmpty() ? " WHERE " : " AND ")
+                    + "(" + columns + ") " + (direction == Sort.Direction.ASC ? ">" : "<")
+                    + " (SELECT " + columns + from + " WHERE a.id = :after)";
+        }
+
+        Query query = em.createNativeQuery(SELECT_SQL + from + rowsWhere + " ORDER BY " + String.join(", ", order)
+                + " LIMIT :limit OFFSET :offset");
+        if (keyset) {
+            query.setParameter("after", after);
+        }
+        query.setParameter("limit", pageable.getPageSize());
+        query.setParameter("offset", keyset ? 0 : pageable.getOffset());
+        List<Object[]> rows = query.getResultList();
+        long total = ((Number) em.createNativeQuery("SELECT count(*)" + FROM_SQL + where).getSingleResult()).longValue();
+
+        Map<Long, DataSourceDTO> dataSources = getDataSources(rows);
+        List<SubmissionDTO> submissions = rows.stream()
+                .map(row -> toSubmission(row, dataSources))
+                .collect(Collectors.toList());
+        return new PageImpl<>(submissions, pageable, total);
+    }
+
+    /**
+     * Converts every data source of the page once
+     */
+    private Map<Long, DataSourceDTO> getDataSources(List<Object[]> rows) {
+
+        Set<Long> ids = rows.stream()
+                .map(row -> toLong(row[4]))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, DataSourceDTO> dataSources = new HashMap<>();
+        for (DataSource dataSource : dataSourceRepository.findAllById(ids)) {
+            if (conversionService.canConvert(dataSource.getClass(), DataSourceDTO.class)) {
+                dataSources.put(dataSource.getId(), conversionService.convert(dataSource, DataSourceDTO.class));
+            }
+        }
+        return dataSources;
+    }
+
+    private SubmissionDTO toSubmission(Object[] row, Map<Long, DataSourceDTO> dataSources) {
+
+        SubmissionDTO dto = new SubmissionDTO();
+        dto.setId(toLong(row[0]));
+        dto.setAnalysis((String) row[1]);
+        dto.setStudy((String) row[2]);
+        dto.setOrigin(row[3] == null ? null : AnalysisOrigin.valueOf((String) row[3]));
+        dto.setDataSource(dataSources.get(toLong(row[4])));
+        AnalysisAuthor author = new AnalysisAuthor();
+        author.setFirstName((String) row[5]);
+        author.setLastName((String) row[6]);
+        author.setEmail((String) row[7]);
+        dto.setAuthor(author);
+        dto.setStatus((String) row[8]);
+        dto.setSubmitted((Date) row[9]);
+        dto.setFinished((Date) row[10]);
+        return dto;
+    }
+
+    private static Long toLong(Object value) {
+
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static class SortKey {
+
+        private final String filter;
+        private final boolean keyset;
+        private final List<String> columns;
+
+        /**
+         * @param filter   rows the sort applies to
+         * @param keyset   whether the columns are never null, so a page can be read after a row
+         * @param columns  sorted columns, the id is added to every sort
+         */
+        private SortKey(String filter, boolean keyset, String... columns) {
+
+            this.filter = filter;
+            this.keyset = keyset;
+            this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        }
+    }
+}
@@ -11,35 +11,40 @@ import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
 import com.odysseusinc.arachne.datanode.service.CohortService;
 import com.odysseusinc.arachne.datanode.service.impl.CohortServiceImpl;
 import com.odysseusinc.arachne.datanode.model.analysis.Analysis;
+import com.odysseusinc.arachne.datanode.util.SqlUtils;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.ohdsi.sql.SqlTranslate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
 
 
 @PreprocessorComponent(contentType = CommonFileUtils.TYPE_COHORT_SQL)
 public class CohortPreprocessor implements Preprocessor<Analysis> {
 
     private static final String TARGET_COHORT_TABLE = "cohort";
+    private static final String COHORT_COUNT_SQL = "classpath:/cohort/cohort-count.sql";
+    private static final String COHORT_SUMMARY_SQL = "classpath:/cohort/cohort-summary.sql";
 
     private final CohortService cohortService;
+    private final SqlUtils sqlUtils;
     @Value("${cohorts.result.countEnabled}")
     private Boolean countEnabled;
     @Value("${cohorts.result.summaryEnabled}")
     private Boolean summaryEnabled;
 
     @Autowired
-    public CohortPreprocessor(CohortService cohortService) {
+    public CohortPreprocessor(CohortService cohortService, SqlUtils sqlUtils) {
 
         this.cohortService = cohortService;
+        this.sqlUtils = sqlUtils;
     }
 
     @Override
@@ -63,43 +68,40 @@ public class CohortPreprocessor implements Preprocessor<Analysis> {
                     cdmSchema, targetDbSchema, resultDbSchema, cdmSchema, targetCohortTable, targetCohortId);
 
             String fileSuffix = target.getOhdsiDB();
-            final ImmutableMap.Builder<String, ClassPathResource> mapBuilder = ImmutableMap.builder();
+            final ImmutableMap.Builder<String, String> mapBuilder = ImmutableMap.builder();
             if (analysis.getType() == CommonAnalysisType.COHORT) {
                 fileSuffix = "cohort-" + fileSuffix;
                 if (countEnabled) {
-                    mapBuilder.put("count", new ClassPathResource("cohort/cohort-count.sql"));
+                    mapBuilder.put("count", COHORT_COUNT_SQL);
                 }
                 if (summaryEnabled) {
-                    mapBuilder.put("summary", new ClassPathResource("cohort/cohort-summary.sql"));
+                    mapBuilder.put("summary", COHORT_SUMMARY_SQL);
                 }
             }
-            final ImmutableMap<String, ClassPathResource> satellites = mapBuilder.build();
+            final ImmutableMap<String, String> satellites = mapBuilder.build();
             try {
                 final String sessionId = SqlTranslate.generateSessionId();
-                final String sourceStatement = FileUtils.readFileToString(file, Charset.defaultCharset());
-                final String nativeStatement
-                        = cohortService.translateSQL(sourceStatement, null, target, sessionId, resultDbSchema, options);
+                final List<String> sourceStatements = new ArrayList<>();
+                sourceStatements.add(FileUtils.readFileToString(file, Charset.defaultCharset()));
+                for (String template : satellites.values()) {
+                    sourceStatements.add(sqlUtils.readSql(template));
+                }
+                final List<String> nativeStatements
+                        = cohortService.translateSQL(sourceStatements, null, target, sessionId, resultDbSchema, options);
                 final String originalPath = file.getAbsolutePath();
                 final String destinationPath = addSuffixToSqlFile(originalPath, fileSuffix);
                 final File destinationFile = new File(destinationPath);
-                Files.write(nativeStatement, destinationFile, Charset.defaultCharset());
+                Files.write(nativeStatements.get(0), destinationFile, Charset.defaultCharset());
                 if (executableFile) {
                     analysis.setExecutableFileName(destinationFile.getName());
                 }
                 FileUtils.deleteQuietly(file);
-                satellites.forEach((key, resource) -> {
-                    try {
-                        final String satelliteFileName
-                                = addSuffixToSqlFile(originalPath, key + "-" + target.getOhdsiDB());
-                        final String satelliteSourceStatement
-                                = IOUtils.toString(resource.getInputStream(), Charset.defaultCharset());
-                        final String satelliteNativeStatement
-                                = cohortService.translateSQL(satelliteSourceStatement, null, target, sessionId, resultDbSchema,  options);
-                        FileUtils.writeByteArrayToFile(new File(satelliteFileName), satelliteNativeStatement.getBytes());
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e.getMessage(), e);
-                    }
-                });
+                int index = 1;
+                for (String key : satellites.keySet()) {
+                    final String satelliteFileName
+                            = addSuffixToSqlFile(originalPath, key + "-" + target.getOhdsiDB());
+                    FileUtils.writeByteArrayToFile(new File(satelliteFileName), nativeStatements.get(index++).getBytes());
+                }
             } catch (IOException e) {
                 throw new UncheckedIOException(e.getMessage(), e);
             }
@@ -22,12 +22,18 @@
 
 package com.odysseusinc.arachne.datanode.util;
 
+import com.odysseusinc.arachne.commons.types.DBMSType;
 import com.odysseusinc.arachne.datanode.Constants;
 import com.odysseusinc.arachne.datanode.dto.atlas.AtlasDetailedDTO;
 import com.odysseusinc.arachne.datanode.dto.datasource.DataSourceDTO;
 import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptDocument;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptGroupingEngine;
+import com.odysseusinc.arachne.datanode.util.datasource.ConceptIdSet;
+import com.odysseusinc.arachne.datanode.util.datasource.ConnectionProvider;
 import com.odysseusinc.arachne.datanode.util.datasource.QueryProcessor;
-import com.odysseusinc.arachne.datanode.util.datasource.ResultSetContainer;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import com.odysseusinc.arachne.datanode.util.datasource.ReportQuery;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultSetProcessor;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultTransformer;
 import com.odysseusinc.arachne.datanode.util.datasource.ResultWriter;
@@ -35,14 +41,12 @@ import com.odysseusinc.arachne.datanode.util.datasource.ResultWriter;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -53,14 +57,25 @@ import org.apache.commons.lang3.StringUtils;
 public class DataSourceUtils<T> {
 
     private final DataSource dataSource;
+    private final ConnectionProvider connectionProvider;
     private Connection c;
     private ResultSet resultSet;
     private Map results;
     private T transformed;
+    private ConceptGroupingEngine groups;
+    // cursors of ordered grouped queries, read on the connection c while the groups are written
+    private final List<ResultSet> cursors = new ArrayList<>();
+    private Integer groupsCount;
 
     public DataSourceUtils(DataSource dataSource) {
 
+        this(dataSource, ConnectionProvider.DRIVER_MANAGER);
+    }
+
+    public DataSourceUtils(DataSource dataSource, ConnectionProvider connectionProvider) {
+
         this.dataSource = dataSource;
+        this.connectionProvider = Objects.requireNonNull(connectionProvider, "connectionProvider is required");
     }
 
     public static boolean isNotDummyPassword(String dbPassword) {
@@ -78,6 +93,11 @@ public class DataSourceUtils<T> {
         return new DataSourceUtils<>(dataSource);
     }
 
+    public static <T> DataSourceUtils<T> withDataSource(DataSource dataSource, ConnectionProvider connectionProvider) {
+
+        return new DataSourceUtils<>(dataSource, connectionProvider);
+    }
+
     public static void masqueradePassword(DataSourceDTO dataSource) {
 
         dataSource.setDbPassword(getMasqueradedPassword(dataSource.getDbPassword()));
@@ -105,9 +125,11 @@ public class DataSourceUtils<T> {
         Objects.requireNonNull(handler, "Handler function is required");
         createConnection();
         DatabaseMetaData metaData = c.getMetaData();
-        ResultSet resultSet = metaData.getTables(null, schema, tableName, null);
-        if (!resultSet.next()) {
-            throw handler.apply(tableName);
+        try (ResultSet resultSet = metaData.getTables(null, schema, tableName, null)) {
+            if (!resultSet.next()) {
+                c.close();
+                throw handler.apply(tableName);
+            }
         }
         return this;
     }
@@ -123,10 +145,7 @@ public class DataSourceUtils<T> {
     private void createConnection() throws SQLException {
 
         if (c == null || c.isClosed()) {
-            String user = dataSource.getUsername();
-            String password = dataSource.getPassword();
-            String url = dataSource.getConnectionString();
-            c = DriverManager.getConnection(url, user, password);
+            c = connectionProvider.getConnection(dataSource);
             c.setAutoCommit(false);
         }
     }
@@ -136,7 +155,7 @@ public class DataSourceUtils<T> {
         Objects.requireNonNull(processor, "resultSetProcessor is required");
         Objects.requireNonNull(c, "Connection was not established");
         Objects.requireNonNull(resultSet, "try to run query first");
-        try (ResultSet rs = this.resultSet) {
+        try (Statement stmt = this.resultSet.getStatement(); ResultSet rs = this.resultSet) {
             results = processor.process(rs).getValues();
         } finally {
             if (c != null) {
@@ -154,7 +173,7 @@ public class DataSourceUtils<T> {
         if (Objects.isNull(this.results)) {
             this.results = new HashMap();
         }
-        try (ResultSet rs = this.resultSet) {
+        try (Statement stmt = this.resultSet.getStatement(); ResultSet rs = this.resultSet) {
             Map proceed = processor.process(rs).getValues();
             this.results.merge(key, proceed, (old, value) -> {
                 ((Map) old).putAll((Map) value);
@@ -166,48 +185,140 @@ public class DataSourceUtils<T> {
         return this;
     }
 
-    public DataSourceUtils<T> forMapResults(List identities, String identityKey, String key,
-                                            ResultSetProcessor<Map> processor) throws SQLException {
+    public DataSourceUtils<T> runQueries(QueryRunner runner, List<ReportQuery> queries) throws SQLException, IOException {
 
-        Objects.requireNonNull(processor, "resultSetProcessor is required");
-        Objects.requireNonNull(c, "Connection was not established");
-        Objects.requireNonNull(resultSet, "Try to run query first");
-        if (Objects.isNull(this.results)) {
-            this.results = new HashMap();
+        return runQueries(runner, null, queries);
+    }
+
+    /**
+     * Runs independent queries through the runner, each on its own connection.
+     * Results are merged in the order of declaration regardless of completion order.
+     * <p>
+     * When the database can keep several cursors open on one connection, grouped queries ordered by
+     * concept are opened on a single connection once the others are done, and their rows are grouped
+     * while the groups are written instead of being spilled.
+     */
+    public DataSourceUtils<T> runQueries(QueryRunner runner, ConceptIdSet identities, List<ReportQuery> queries)
+            throws SQLException, IOException {
+
+        Objects.requireNonNull(runner, "queryRunner is required");
+        Map[] partials = new Map[queries.size()];
+        List<QueryRunner.Task> tasks = new ArrayList<>(queries.size());
+        Map<Integer, ReportQuery> streamed = new LinkedHashMap<>();
+        final boolean openCursors = supportsOpenCursors(dataSource.getType());
+        for (int i = 0; i < queries.size(); i++) {
+            final int index = i;
+            final ReportQuery query = queries.get(i);
+            if (query.isGrouped()) {
+                if (Objects.isNull(this.groups)) {
+                    this.groups = new ConceptGroupingEngine(Objects.requireNonNull(identities, "identities are required"));
+                }
+                final ConceptGroupingEngine engine = this.groups;
+                final int position = engine.reserve();
+                if (openCursors && query.isOrdered()) {
+                    streamed.put(position, query);
+                    continue;
+                }
+                tasks.add(() -> runQuery(query, resultSet ->
+                        engine.add(position, query.getKey(), query.getIdentityKey(), resultSet, query.getRowProcessor())));
+            } else {
+                tasks.add(() -> runQuery(query, resultSet ->
+                        partials[index] = query.getResultProcessor().process(resultSet).getValues()));
+            }
         }
-        try (ResultSet rs = this.resultSet) {
-            final ResultSetContainer<Map> resultContainer = processor.process(rs);
-            Map proceed = resultContainer.getValues();
-            identities.forEach(id -> {
-                List<Map> values = (List<Map>) proceed.getOrDefault(id, resultContainer.getDefaultValue());
-                Map filtered = new HashMap();
-                values.forEach(map -> {
-                    map.keySet().forEach(col -> {
-                        if (!Objects.equals(identityKey, col)) {
-                            filtered.merge(col, new LinkedList(Arrays.asList(map.get(col))), (list, val) -> {
-                                ((List) list).addAll((Collection) val);
-                                return list;
-                            });
-                        }
-                    });
-                });
-                if (!filtered.isEmpty()) {
-                    this.results.putIfAbsent(id, new HashMap<>());
-                    Map<String, Map> data = (Map<String, Map>) this.results.get(id);
-                    data.merge(key, filtered, (old, val) -> {
-                        old.keySet().forEach(columnName -> {
-                            ((List) old.get(columnName)).addAll(((List) val.getOrDefault(columnName, new ArrayList<>())));
-                        });
-                        return old;
-                    });
+        try {
+            runner.runAll(dataSource, tasks);
+            if (!streamed.isEmpty()) {
+                createConnection();
+                for (Map.Entry<Integer, ReportQuery> entry : streamed.entrySet()) {
+                    ReportQuery query = entry.getValue();
+                    ResultSet cursor = query.getQuery().process(c);
+                    cursors.add(cursor);
+                    groups.open(entry.getKey(), query.getKey(), query.getIdentityKey(), cursor, query.getRowProcessor());
                 }
-            });
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            try {
+                closeCursors();
+            } catch (SQLException closeError) {
+                e.addSuppressed(closeError);
+            }
+            if (Objects.nonNull(groups)) {
+                groups.close();
+                groups = null;
+            }
+            throw e;
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            if (Objects.nonNull(partials[i])) {
+                if (Objects.isNull(this.results)) {
+                    this.results = new HashMap();
+                }
+                this.results.merge(queries.get(i).getKey(), partials[i], (old, value) -> {
+                    ((Map) old).putAll((Map) value);
+                    return old;
+                });
+            }
+        }
+        return this;
+    }
+
+    @FunctionalInterface
+    private interface ResultSetConsumer {
+
+        void accept(ResultSet resultSet) throws SQLException, IOException;
+    }
+
+    private void runQuery(ReportQuery query, ResultSetConsumer consumer) throws SQLException, IOException {
+
+        try (Connection connection = connectionProvider.getConnection(dataSource)) {
+            connection.setAutoCommit(false);
+            ResultSet queryResult = query.getQuery().process(connection);
+            try (Statement stmt = queryResult.getStatement(); ResultSet rs = queryResult) {
+                consumer.accept(rs);
+            }
+        }
+    }
+
+    public DataSourceUtils<T> writeGroups(ResultWriter<ConceptDocument> writer) throws IOException, SQLException {
+
+        Objects.requireNonNull(writer);
+        Objects.requireNonNull(groups, "results was not grouped");
+        try {
+            groupsCount = groups.write(writer);
         } finally {
-            c.close();
+            groups.close();
+            groups = null;
+            closeCursors();
         }
         return this;
     }
 
+    private void closeCursors() throws SQLException {
+
+        try {
+            for (ResultSet cursor : cursors) {
+                Statement stmt = cursor.getStatement();
+                cursor.close();
+                stmt.close();
+            }
+        } finally {
+            cursors.clear();
+            if (Objects.nonNull(c)) {
+                c.close();
+            }
+        }
+    }
+
+    /**
+     * @return true if rows of several queries can be read at the same time on one connection without
+     * buffering whole results
+     */
+    private static boolean supportsOpenCursors(DBMSType type) {
+
+        return type == DBMSType.POSTGRESQL || type == DBMSType.ORACLE;
+    }
+
     public DataSourceUtils<T> transform(ResultTransformer<Map, T> transformer) {
 
         Objects.requireNonNull(transformer);
@@ -243,6 +354,9 @@ public class DataSourceUtils<T> {
 
     public Integer getResultsCount() {
 
+        if (Objects.nonNull(groupsCount)) {
+            return groupsCount;
+        }
         return Objects.nonNull(results) ? results.size() : 0;
     }
 }
@@ -0,0 +1,69 @@
+package com.odysseusinc.arachne.datanode.util;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Substitutes a fixed set of literal placeholders in a single scan of the text.
+ * <p>
+ * Where several placeholders match at the same position the longest one wins. Replacement values are
+ * inserted as they are and are not scanned again.
+ */
+public class SqlPlaceholders {
+
+    private final String[] names;
+    private final String[] values;
+    private final BitSet firstChars = new BitSet();
+
+    public SqlPlaceholders(Map<String, String> replacements) {
+
+        Map.Entry<String, String>[] entries = replacements.entrySet().stream()
+                .filter(entry -> !entry.getKey().isEmpty())
+                .sorted(Comparator.comparingInt((Map.Entry<String, String> entry) -> entry.getKey().length()).reversed())
+                .toArray(Map.Entry[]::new);
+        names = new String[entries.length];
+        values = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            names[i] = entries[i].getKey();
+            values[i] = entries[i].getValue();
+            firstChars.set(names[i].charAt(0));
+        }
+    }
+
+    public String substitute(String text) {
+
+        StringBuilder builder = null;
+        int copied = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (!firstChars.get(text.charAt(i))) {
+                continue;
+            }
+            int match = match(text, i);
+            if (match < 0) {
+                continue;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(length + (length >> 4));
+            }
+            builder.append(text, copied, i).append(values[match]);
+            i += names[match].length() - 1;
+            copied = i + 1;
+        }
+        if (builder == null) {
+            return text;
+        }
+        return builder.append(text, copied, length).toString();
+    }
+
+    private int match(String text, int offset) {
+
+        for (int i = 0; i < names.length; i++) {
+            if (text.startsWith(names[i], offset)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
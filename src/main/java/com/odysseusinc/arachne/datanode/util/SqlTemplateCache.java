@@ -0,0 +1,140 @@
+package com.odysseusinc.arachne.datanode.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.odysseusinc.arachne.commons.types.DBMSType;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the SQL templates read from the classpath and the results of the SqlRender translation.
+ * <p>
+ * A translation is keyed by the source statement, its parameters, the target DBMS and the temp schema,
+ * so a data source switching to another dialect or temp schema can never be served a stale entry, its old
+ * entries just age out. Schema placeholders are substituted by the callers after the translation and are
+ * not part of the key. The session id is not part of the key either: statements are translated with a
+ * placeholder session id which is replaced with the caller's one on every lookup, so temp table names stay
+ * unique per caller.
+ */
+@Component
+public class SqlTemplateCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlTemplateCache.class);
+    static final String SESSION_ID_PLACEHOLDER = "zqsessid";
+    private static final Pattern SESSION_ID_PATTERN
+            = Pattern.compile(Pattern.quote(SESSION_ID_PLACEHOLDER), Pattern.CASE_INSENSITIVE);
+
+    private final Cache<String, String> templates;
+    private final Cache<TranslationKey, String> translations;
+
+    public SqlTemplateCache(@Value("${sql.cache.maxTemplates:1000}") long maxTemplates,
+                            @Value("${sql.cache.maxTranslatedChars:33554432}") long maxTranslatedChars) {
+
+        this.templates = CacheBuilder.newBuilder()
+                .maximumSize(maxTemplates)
+                .recordStats()
+                .build();
+        this.translations = CacheBuilder.newBuilder()
+                .maximumWeight(maxTranslatedChars)
+                .<TranslationKey, String>weigher((key, value) -> key.sourceStatement.length() + value.length())
+                .recordStats()
+                .build();
+    }
+
+    public String getTemplate(String name, Callable<String> loader) throws IOException {
+
+        try {
+            return templates.get(name, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to read SQL template " + name, e.getCause());
+        }
+    }
+
+    /**
+     * @param translator translates the statement for the given session id
+     */
+    public String translate(String sourceStatement, Map<String, String> parameters, DBMSType dbmsType,
+                            String sessionId, String tempSchema, Function<String, String> translator) {
+
+        if (Objects.isNull(sessionId) || StringUtils.containsIgnoreCase(sourceStatement, SESSION_ID_PLACEHOLDER)) {
+            return translator.apply(sessionId);
+        }
+        TranslationKey key = new TranslationKey(sourceStatement, parameters, dbmsType, tempSchema);
+        String translated;
+        try {
+            translated = translations.get(key, () -> translator.apply(SESSION_ID_PLACEHOLDER));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        Matcher matcher = SESSION_ID_PATTERN.matcher(translated);
+        return matcher.find() ? matcher.replaceAll(Matcher.quoteReplacement(sessionId)) : translated;
+    }
+
+    @Scheduled(fixedDelayString = "${sql.cache.statsIntervalMs:3600000}")
+    public void logStats() {
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("SQL templates cache: {} entries, {}", templates.size(), templates.stats());
+            LOGGER.debug("SQL translations cache: {} entries, {}", translations.size(), translations.stats());
+        }
+    }
+
+    private static class TranslationKey {
+
+        private final String sourceStatement;
+        private final Map<String, String> parameters;
+        private final DBMSType dbmsType;
+        private final String tempSchema;
+
+        private TranslationKey(String sourceStatement, Map<String, String> parameters, DBMSType dbmsType,
+                               String tempSchema) {
+
+            this.sourceStatement = sourceStatement;
+            this.parameters = Objects.isNull(parameters) ? null : new HashMap<>(parameters);
+            this.dbmsType = dbmsType;
+            this.tempSchema = tempSchema;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TranslationKey that = (TranslationKey) o;
+            return sourceStatement.equals(that.sourceStatement)
+                    && Objects.equals(parameters, that.parameters)
+                    && dbmsType == that.dbmsType
+                    && Objects.equals(tempSchema, that.tempSchema);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(sourceStatement, parameters, dbmsType, tempSchema);
+        }
+    }
+}
@@ -41,12 +41,15 @@ public class SqlUtils {
 
     private final ApplicationContext applicationContext;
     private final CohortService cohortService;
+    private final SqlTemplateCache sqlTemplateCache;
 
     public SqlUtils(ApplicationContext applicationContext,
-                    CohortService cohortService) {
+                    CohortService cohortService,
+                    SqlTemplateCache sqlTemplateCache) {
 
         this.applicationContext = applicationContext;
         this.cohortService = cohortService;
+        this.sqlTemplateCache = sqlTemplateCache;
     }
 
     public String transformSqlTemplate(DataSource dataSource, String name) throws IOException {
@@ -70,11 +73,13 @@ public class SqlUtils {
         return nativeStatement;
     }
 
-    protected String readSql(String name) throws IOException {
+    public String readSql(String name) throws IOException {
 
-        Resource resource = applicationContext.getResource(name);
-        try (Reader reader = new InputStreamReader(resource.getInputStream())) {
-            return IOUtils.toString(reader);
-        }
+        return sqlTemplateCache.getTemplate(name, () -> {
+            Resource resource = applicationContext.getResource(name);
+            try (Reader reader = new InputStreamReader(resource.getInputStream())) {
+                return IOUtils.toString(reader);
+            }
+        });
     }
 }
@@ -0,0 +1,37 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Reads a single column of the current row, resolved once per result set by index and type
+ */
+@FunctionalInterface
+public interface ColumnReader {
+
+    Object read(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Uses the same type mapping as {@link ColumnVector#forSqlType(int)}
+     */
+    static ColumnReader forSqlType(int columnIndex, int sqlType) {
+
+        switch (sqlType) {
+            case Types.INTEGER:
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return resultSet -> resultSet.getInt(columnIndex);
+            case Types.BIGINT:
+                return resultSet -> resultSet.getLong(columnIndex);
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.REAL:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return resultSet -> resultSet.getDouble(columnIndex);
+            default:
+                return resultSet -> resultSet.getString(columnIndex);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Column of a result set stored in a primitive array, strings are dictionary encoded.
+ * <p>
+ * Values are boxed only when accessed through the {@link List} view, JSON is written straight from the array.
+ */
+public abstract class ColumnVector extends AbstractList<Object> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected int size;
+
+    /**
+     * Creates a vector for the JDBC type using the same mapping as the Achilles processors:
+     * integer types, BIGINT, floating point and decimal types, everything else is read as a string
+     */
+    public static ColumnVector forSqlType(int sqlType) {
+
+        switch (sqlType) {
+            case Types.INTEGER:
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new IntVector();
+            case Types.BIGINT:
+                return new LongVector();
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.REAL:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new DoubleVector();
+            default:
+                return new StringVector();
+        }
+    }
+
+    /**
+     * Appends the value of the column at the given index of the current row
+     */
+    public abstract void read(ResultSet resultSet, int columnIndex) throws SQLException;
+
+    public abstract void writeTo(JsonWriter writer) throws IOException;
+
+    /**
+     * Passes every numeric value as int, non numeric values are skipped
+     */
+    public void forEachInt(IntConsumer consumer) {
+
+        for (int i = 0; i < size; i++) {
+            Object value = get(i);
+            if (value instanceof Number) {
+                consumer.accept(((Number) value).intValue());
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    protected static int grow(int length) {
+
+        return Math.max(INITIAL_CAPACITY, length + (length >> 1));
+    }
+
+    protected void rangeCheck(int index) {
+
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static class IntVector extends ColumnVector {
+
+        private int[] values = new int[0];
+
+        @Override
+        public void read(ResultSet resultSet, int columnIndex) throws SQLException {
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(size));
+            }
+            values[size++] = resultSet.getInt(columnIndex);
+        }
+
+        @Override
+        public Object get(int index) {
+
+            rangeCheck(index);
+            return values[index];
+        }
+
+        @Override
+        public void forEachInt(IntConsumer consumer) {
+
+            for (int i = 0; i < size; i++) {
+                consumer.accept(values[i]);
+            }
+        }
+
+        @Override
+        public void writeTo(JsonWriter writer) throws IOException {
+
+            writer.beginArray();
+            for (int i = 0; i < size; i++) {
+                writer.value(values[i]);
+            }
+            writer.endArray();
+        }
+    }
+
+    private static class LongVector extends ColumnVector {
+
+        private long[] values = new long[0];
+
+        @Override
+        public void read(ResultSet resultSet, int columnIndex) throws SQLException {
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(size));
+            }
+            values[size++] = resultSet.getLong(columnIndex);
+        }
+
+        @Override
+        public Object get(int index) {
+
+            rangeCheck(index);
+            return values[index];
+        }
+
+        @Override
+        public void writeTo(JsonWriter writer) throws IOException {
+
+            writer.beginArray();
+            for (int i = 0; i < size; i++) {
+                writer.value(values[i]);
+            }
+            writer.endArray();
+        }
+    }
+
+    private static class DoubleVector extends ColumnVector {
+
+        private double[] values = new double[0];
+
+        @Override
+        public void read(ResultSet resultSet, int columnIndex) throws SQLException {
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(size));
+            }
+            values[size++] = resultSet.getDouble(columnIndex);
+        }
+
+        @Override
+        public Object get(int index) {
+
+            rangeCheck(index);
+            return values[index];
+        }
+
+        @Override
+        public void writeTo(JsonWriter writer) throws IOException {
+
+            writer.beginArray();
+            for (int i = 0; i < size; i++) {
+                ResultTransformers.writeCompact(writer, values[i]);
+            }
+            writer.endArray();
+        }
+    }
+
+    private static class StringVector extends ColumnVector {
+
+        private static final int NULL = -1;
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] values = new int[0];
+
+        @Override
+        public void read(ResultSet resultSet, int columnIndex) throws SQLException {
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(size));
+            }
+            String value = resultSet.getString(columnIndex);
+            values[size++] = value == null ? NULL : codes.computeIfAbsent(value, v -> {
+                dictionary.add(v);
+                return dictionary.size() - 1;
+            });
+        }
+
+        @Override
+        public Object get(int index) {
+
+            rangeCheck(index);
+            return values[index] == NULL ? null : dictionary.get(values[index]);
+        }
+
+        @Override
+        public void writeTo(JsonWriter writer) throws IOException {
+
+            writer.beginArray();
+            for (int i = 0; i < size; i++) {
+                if (values[i] == NULL) {
+                    writer.nullValue();
+                } else {
+                    writer.value(dictionary.get(values[i]));
+                }
+            }
+            writer.endArray();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+public class ConceptDocument {
+
+    private final Object conceptId;
+    private final JsonStream json;
+
+    public ConceptDocument(Object conceptId, JsonStream json) {
+
+        this.conceptId = conceptId;
+        this.json = json;
+    }
+
+    public Object getConceptId() {
+
+        return conceptId;
+    }
+
+    public JsonStream getJson() {
+
+        return json;
+    }
+}
@@ -0,0 +1,520 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Groups rows of several per-concept queries into one document per concept.
+ * <p>
+ * Queries returning rows ordered by concept can be {@link #open opened}: their cursors are read
+ * all at once while the documents are written, and each concept document is written as soon as the
+ * concept changes, so nothing is stored. Other queries are {@link #add added}: they are spilled to disk
+ * as they are read, keeping only rows of the requested concepts. When the spilled rows turn out to be
+ * ordered by concept as well, they are merged with the open cursors in the same single pass. Otherwise
+ * the open cursors are spilled too and all rows are redistributed into hash partitions which are grouped
+ * one at a time, the number of partitions follows the spilled size so that every partition holds about
+ * the given number of bytes.
+ * Either way, memory is bounded by one concept or one partition instead of the whole CDM.
+ */
+public class ConceptGroupingEngine implements Closeable {
+
+    public static final long DEFAULT_PARTITION_BYTES = 16L * 1024 * 1024;
+    // every partition of a run is written through its own open file
+    private static final int MAX_PARTITIONS = 256;
+
+    private static final byte END = 0;
+    private static final byte ROW = 1;
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte STRING = 4;
+
+    private final ConceptIdSet identities;
+    private final long partitionBytes;
+    private final Path spillDir;
+    private final List<Run> runs = new ArrayList<>();
+
+    public ConceptGroupingEngine(ConceptIdSet identities) throws IOException {
+
+        this(identities, DEFAULT_PARTITION_BYTES);
+    }
+
+    /**
+     * @param partitionBytes spilled bytes grouped in memory at once when the rows are not ordered by concept
+     */
+    public ConceptGroupingEngine(ConceptIdSet identities, long partitionBytes) throws IOException {
+
+        this.identities = Objects.requireNonNull(identities, "identities are required");
+        this.partitionBytes = Math.max(1, partitionBytes);
+        this.spillDir = Files.createTempDirectory("achilles_groups_");
+    }
+
+    /**
+     * Reserves the position of a query which is going to be added later, possibly from another thread.
+     * Documents list queries in the order of their positions.
+     */
+    public synchronized int reserve() {
+
+        runs.add(null);
+        return runs.size() - 1;
+    }
+
+    public void add(String key, String identityKey, ResultSet resultSet, ConceptRowProcessor processor)
+            throws SQLException, IOException {
+
+        add(reserve(), key, identityKey, resultSet, processor);
+    }
+
+    /**
+     * Spills the rows of the query
+     */
+    public void add(int position, String key, String identityKey, ResultSet resultSet, ConceptRowProcessor processor)
+            throws SQLException, IOException {
+
+        Run run = prepare(position, key, identityKey, processor.open(resultSet));
+        spill(run);
+        synchronized (this) {
+            runs.set(position, run);
+        }
+    }
+
+    /**
+     * Keeps the query open to read its rows while the documents are written. The rows must be ordered by
+     * concept and the result set must stay open until {@link #write} returns.
+     */
+    public void open(int position, String key, String identityKey, ResultSet resultSet, ConceptRowProcessor processor)
+            throws SQLException, IOException {
+
+        Run run = prepare(position, key, identityKey, processor.open(resultSet));
+        synchronized (this) {
+            runs.set(position, run);
+        }
+    }
+
+    private Run prepare(int position, String key, String identityKey, ConceptRowCursor cursor)
+            throws SQLException, IOException {
+
+        List<String> sourceColumns = cursor.getColumns();
+        List<String> columns = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < sourceColumns.size(); i++) {
+            if (!Objects.equals(identityKey, sourceColumns.get(i))) {
+                columns.add(sourceColumns.get(i));
+                indexes.add(i);
+            }
+        }
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        cursor.getDefaultValue().forEach((column, value) -> {
+            if (!Objects.equals(identityKey, column)) {
+                defaults.put(column, value);
+            }
+        });
+        Run run = new Run(key, columns, defaults, spillDir.resolve("run_" + position));
+        run.cursor = new CursorReader(key, cursor, indexes);
+        return run;
+    }
+
+    private void spill(Run run) throws IOException {
+
+        CursorReader reader = run.cursor;
+        try (DataOutputStream out = output(run.file)) {
+            Object previous = null;
+            while (reader.hasRow()) {
+                if (run.sorted && previous != null && !isOrdered(previous, reader.key)) {
+                    run.sorted = false;
+                }
+                previous = reader.key;
+                writeRow(out, reader.key, reader.values);
+                reader.advance();
+            }
+            out.writeByte(END);
+        }
+        run.cursor = null;
+    }
+
+    /**
+     * Writes a document for every requested concept which has data or default values
+     *
+     * @return number of written documents
+     */
+    public synchronized int write(ResultWriter<ConceptDocument> writer) throws IOException {
+
+        if (runs.contains(null)) {
+            throw new IllegalStateException("Not all reserved queries were added");
+        }
+        ConceptIdSet visited = new ConceptIdSet(identities.size());
+        int written;
+        if (runs.stream().allMatch(run -> run.sorted)) {
+            written = mergeSorted(writer, visited);
+        } else {
+            for (Run run : runs) {
+                if (Objects.nonNull(run.cursor)) {
+                    spill(run);
+                }
+            }
+            written = mergePartitioned(writer, visited);
+        }
+        for (int conceptId : identities.toArray()) {
+            if (!visited.contains(conceptId)) {
+                written += emit(writer, conceptId, buildDocument(run -> null));
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+
+        FileUtils.deleteQuietly(spillDir.toFile());
+    }
+
+    private int mergeSorted(ResultWriter<ConceptDocument> writer, ConceptIdSet visited) throws IOException {
+
+        List<RowInput> readers = new ArrayList<>();
+        try {
+            for (Run run : runs) {
+                readers.add(Objects.nonNull(run.cursor) ? run.cursor : new RowReader(run.file, run.columns.size()));
+            }
+            int written = 0;
+            while (true) {
+                Object current = null;
+                for (RowInput reader : readers) {
+                    if (reader.hasRow() && (current == null || !isOrdered(current, reader.key))) {
+                        current = reader.key;
+                    }
+                }
+                if (current == null) {
+                    return written;
+                }
+                final Object conceptId = current;
+                Map<Run, List<Object[]>> rows = new HashMap<>();
+                for (int i = 0; i < runs.size(); i++) {
+                    RowInput reader = readers.get(i);
+                    List<Object[]> runRows = new ArrayList<>();
+                    while (reader.hasRow() && Objects.equals(reader.key, conceptId)) {
+                        runRows.add(reader.values);
+                        reader.advance();
+                    }
+                    if (reader.hasRow() && !isOrdered(conceptId, reader.key)) {
+                        throw new IOException("Rows of " + runs.get(i).key + " are not ordered by concept");
+                    }
+                    rows.put(runs.get(i), runRows.isEmpty() ? null : runRows);
+                }
+                visited.add((Integer) conceptId);
+                written += emit(writer, conceptId, buildDocument(rows::get));
+            }
+        } finally {
+            for (RowInput reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private int mergePartitioned(ResultWriter<ConceptDocument> writer, ConceptIdSet visited) throws IOException {
+
+        long spilled = 0;
+        for (Run run : runs) {
+            spilled += Files.size(run.file);
+        }
+        int partitions = (int) Math.min(MAX_PARTITIONS, Math.max(1, (spilled + partitionBytes - 1) / partitionBytes));
+        List<List<Path>> partitionFiles = new ArrayList<>();
+        for (Run run : runs) {
+            partitionFiles.add(partition(run, partitions));
+        }
+        int written = 0;
+        for (int p = 0; p < partitions; p++) {
+            Map<Run, Map<Object, List<Object[]>>> partition = new HashMap<>();
+            Set<Object> keys = new LinkedHashSet<>();
+            for (int i = 0; i < runs.size(); i++) {
+                Run run = runs.get(i);
+                Map<Object, List<Object[]>> grouped = new HashMap<>();
+                try (RowReader reader = new RowReader(partitionFiles.get(i).get(p), run.columns.size())) {
+                    while (reader.hasRow()) {
+                        keys.add(reader.key);
+                        grouped.computeIfAbsent(reader.key, k -> new ArrayList<>()).add(reader.values);
+                        reader.advance();
+                    }
+                }
+                partition.put(run, grouped);
+                Files.deleteIfExists(partitionFiles.get(i).get(p));
+            }
+            for (Object conceptId : keys) {
+                visited.add((Integer) conceptId);
+                written += emit(writer, conceptId, buildDocument(run -> partition.get(run).get(conceptId)));
+            }
+        }
+        return written;
+    }
+
+    private List<Path> partition(Run run, int partitions) throws IOException {
+
+        List<Path> files = new ArrayList<>();
+        List<DataOutputStream> outputs = new ArrayList<>();
+        try {
+            for (int p = 0; p < partitions; p++) {
+                Path file = run.file.resolveSibling(run.file.getFileName() + "_" + p);
+                files.add(file);
+                outputs.add(output(file));
+            }
+            try (RowReader reader = new RowReader(run.file, run.columns.size())) {
+                while (reader.hasRow()) {
+                    int p = Math.floorMod(reader.key.hashCode(), partitions);
+                    writeRow(outputs.get(p), reader.key, reader.values);
+                    reader.advance();
+                }
+            }
+            for (DataOutputStream out : outputs) {
+                out.writeByte(END);
+            }
+        } finally {
+            for (DataOutputStream out : outputs) {
+                out.close();
+            }
+        }
+        Files.deleteIfExists(run.file);
+        return files;
+    }
+
+    private interface RowSource {
+
+        List<Object[]> rows(Run run);
+    }
+
+    private Map<String, Map<String, List<Object>>> buildDocument(RowSource source) {
+
+        Map<String, Map<String, List<Object>>> document = new HashMap<>();
+        for (Run run : runs) {
+            Map<String, List<Object>> columns = new HashMap<>();
+            List<Object[]> rows = source.rows(run);
+            if (Objects.nonNull(rows)) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        columns.computeIfAbsent(run.columns.get(i), c -> new LinkedList<>()).add(row[i]);
+                    }
+                }
+            } else {
+                run.defaults.forEach((column, value) ->
+                        columns.computeIfAbsent(column, c -> new LinkedList<>()).add(value));
+            }
+            if (!columns.isEmpty()) {
+                document.put(run.key, columns);
+            }
+        }
+        return document;
+    }
+
+    private int emit(ResultWriter<ConceptDocument> writer, Object conceptId, Map<String, Map<String, List<Object>>> document)
+            throws IOException {
+
+        if (document.isEmpty()) {
+            return 0;
+        }
+        writer.write(new ConceptDocument(conceptId, json -> ResultTransformers.writeValue(json, document)));
+        return 1;
+    }
+
+    private static boolean isOrdered(Object previous, Object next) {
+
+        if ((previous instanceof Integer || previous instanceof Long) && (next instanceof Integer || next instanceof Long)) {
+            return ((Number) previous).longValue() <= ((Number) next).longValue();
+        }
+        if (previous instanceof String && next instanceof String) {
+            return ((String) previous).compareTo((String) next) <= 0;
+        }
+        return Objects.equals(previous, next);
+    }
+
+    private static DataOutputStream output(Path file) throws IOException {
+
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    }
+
+    private static void writeRow(DataOutputStream out, Object key, Object[] values) throws IOException {
+
+        out.writeByte(ROW);
+        writeValue(out, key);
+        for (Object value : values) {
+            writeValue(out, value);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else {
+            byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Unknown value type in spill file: " + type);
+        }
+    }
+
+    private static class Run {
+
+        private final String key;
+        private final List<String> columns;
+        private final Map<String, Object> defaults;
+        private final Path file;
+        private boolean sorted = true;
+        // rows not spilled yet
+        private CursorReader cursor;
+
+        private Run(String key, List<String> columns, Map<String, Object> defaults, Path file) {
+
+            this.key = key;
+            this.columns = columns;
+            this.defaults = defaults;
+            this.file = file;
+        }
+    }
+
+    private abstract static class RowInput implements Closeable {
+
+        protected Object key;
+        protected Object[] values;
+        protected boolean hasRow;
+
+        protected boolean hasRow() {
+
+            return hasRow;
+        }
+
+        protected abstract void advance() throws IOException;
+    }
+
+    /**
+     * Reads the rows of the requested concepts from a query
+     */
+    private class CursorReader extends RowInput {
+
+        private final String runKey;
+        private final ConceptRowCursor cursor;
+        private final List<Integer> indexes;
+
+        private CursorReader(String runKey, ConceptRowCursor cursor, List<Integer> indexes) throws IOException {
+
+            this.runKey = runKey;
+            this.cursor = cursor;
+            this.indexes = indexes;
+            advance();
+        }
+
+        @Override
+        protected void advance() throws IOException {
+
+            try {
+                while (cursor.next()) {
+                    Object value = cursor.getKey();
+                    if (identities.containsValue(value)) {
+                        // Integer and Long keys of one concept must group together
+                        key = ((Number) value).intValue();
+                        Object[] row = cursor.getValues();
+                        values = new Object[indexes.size()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = row[indexes.get(i)];
+                        }
+                        hasRow = true;
+                        return;
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IOException("Cannot read rows of " + runKey, e);
+            }
+            hasRow = false;
+            key = null;
+            values = null;
+        }
+
+        @Override
+        public void close() {
+
+            // the result set is closed by its owner
+        }
+    }
+
+    private static class RowReader extends RowInput {
+
+        private final DataInputStream in;
+        private final int width;
+
+        private RowReader(Path file, int width) throws IOException {
+
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            this.width = width;
+            advance();
+        }
+
+        @Override
+        protected void advance() throws IOException {
+
+            hasRow = in.readByte() == ROW;
+            if (hasRow) {
+                key = readValue(in);
+                values = new Object[width];
+                for (int i = 0; i < width; i++) {
+                    values[i] = readValue(in);
+                }
+            } else {
+                key = null;
+                values = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Open addressing set of primitive concept ids
+ */
+public class ConceptIdSet {
+
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] slots;
+    private int size;
+    private boolean hasFreeKey;
+
+    public ConceptIdSet() {
+
+        this(16);
+    }
+
+    public ConceptIdSet(int expectedSize) {
+
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+    }
+
+    public static ConceptIdSet of(int... ids) {
+
+        ConceptIdSet set = new ConceptIdSet(ids.length);
+        for (int id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    public boolean add(int id) {
+
+        if (id == FREE) {
+            boolean added = !hasFreeKey;
+            hasFreeKey = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        int slot = find(slots, id);
+        if (slots[slot] == id) {
+            return false;
+        }
+        slots[slot] = id;
+        if (++size > slots.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean contains(int id) {
+
+        return id == FREE ? hasFreeKey : slots[find(slots, id)] == id;
+    }
+
+    /**
+     * @return true if the value is an integral number within int range which belongs to the set,
+     * databases may return concept ids as Long, Double or BigDecimal depending on the column type
+     */
+    public boolean containsValue(Object value) {
+
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            long id = ((Number) value).longValue();
+            return id == (int) id && contains((int) id);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double id = ((Number) value).doubleValue();
+            return id == (int) id && contains((int) id);
+        }
+        if (value instanceof BigDecimal) {
+            try {
+                return contains(((BigDecimal) value).intValueExact());
+            } catch (ArithmeticException e) {
+                return false;
+            }
+        }
+        if (value instanceof BigInteger) {
+            BigInteger id = (BigInteger) value;
+            return id.bitLength() < Integer.SIZE && contains(id.intValue());
+        }
+        return false;
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    public int[] toArray() {
+
+        int[] result = new int[size];
+        int i = 0;
+        if (hasFreeKey) {
+            result[i++] = FREE;
+        }
+        for (int slot : slots) {
+            if (slot != FREE) {
+                result[i++] = slot;
+            }
+        }
+        return result;
+    }
+
+    private void rehash() {
+
+        int[] rehashed = new int[slots.length << 1];
+        Arrays.fill(rehashed, FREE);
+        for (int slot : slots) {
+            if (slot != FREE) {
+                rehashed[find(rehashed, slot)] = slot;
+            }
+        }
+        slots = rehashed;
+    }
+
+    private static int find(int[] table, int id) {
+
+        int mask = table.length - 1;
+        int slot = mix(id) & mask;
+        while (table[slot] != FREE && table[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int id) {
+
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
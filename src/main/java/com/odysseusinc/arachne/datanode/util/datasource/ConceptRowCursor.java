@@ -0,0 +1,27 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row by row view of a result set keyed by concept
+ */
+public interface ConceptRowCursor {
+
+    /**
+     * @return value columns in the order of {@link #getValues()}
+     */
+    List<String> getColumns();
+
+    /**
+     * @return row used for concepts which are absent in the result set, empty if there is none
+     */
+    Map<String, Object> getDefaultValue();
+
+    boolean next() throws SQLException;
+
+    Object getKey() throws SQLException;
+
+    Object[] getValues() throws SQLException;
+}
@@ -0,0 +1,10 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ConceptRowProcessor {
+
+    ConceptRowCursor open(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,15 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ConnectionProvider {
+
+    ConnectionProvider DRIVER_MANAGER = dataSource -> DriverManager.getConnection(
+            dataSource.getConnectionString(), dataSource.getUsername(), dataSource.getPassword());
+
+    Connection getConnection(DataSource dataSource) throws SQLException;
+}
@@ -0,0 +1,13 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Deferred JSON document which is serialized token by token into the given writer
+ */
+@FunctionalInterface
+public interface JsonStream {
+
+    void writeTo(JsonWriter writer) throws IOException;
+}
@@ -23,9 +23,13 @@
 package com.odysseusinc.arachne.datanode.util.datasource;
 
 import java.sql.PreparedStatement;
+import java.util.Locale;
 
 public class QueryProcessors {
 
+    // rows fetched per round trip by cursors which are read while other cursors are open
+    public static final int CURSOR_FETCH_SIZE = 1000;
+
     private QueryProcessors(){}
 
     public static QueryProcessor statement(final String query) {
@@ -35,4 +39,63 @@ public class QueryProcessors {
             return stmt.executeQuery();
         };
     }
+
+    public static QueryProcessor cursor(final String query) {
+
+        return c -> {
+            PreparedStatement stmt = c.prepareStatement(query);
+            stmt.setFetchSize(CURSOR_FETCH_SIZE);
+            return stmt.executeQuery();
+        };
+    }
+
+    /**
+     * Wraps the query so its rows are ordered by the column
+     *
+     * @return ordered query, null if the query has an ORDER BY of its own which cannot be nested
+     */
+    public static String orderBy(String query, String column) {
+
+        String statement = query.trim();
+        while (statement.endsWith(";")) {
+            statement = statement.substring(0, statement.length() - 1).trim();
+        }
+        if (hasTopLevelOrderBy(statement)) {
+            return null;
+        }
+        // line breaks end a trailing line comment of the query
+        return "SELECT * FROM (\n" + statement + "\n) ordered_rows ORDER BY " + column;
+    }
+
+    private static boolean hasTopLevelOrderBy(String query) {
+
+        String lower = query.toLowerCase(Locale.ROOT);
+        int depth = 0;
+        for (int i = 0; i < lower.length(); i++) {
+            char ch = lower.charAt(i);
+            if (ch == '\'' || ch == '"') {
+                int end = lower.indexOf(ch, i + 1);
+                i = end < 0 ? lower.length() : end;
+            } else if (ch == '-' && lower.startsWith("--", i)) {
+                int end = lower.indexOf('\n', i);
+                i = end < 0 ? lower.length() : end;
+            } else if (ch == '/' && lower.startsWith("/*", i)) {
+                int end = lower.indexOf("*/", i + 2);
+                i = end < 0 ? lower.length() : end + 1;
+            } else if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+            } else if (depth == 0 && lower.startsWith("order", i) && isWordStart(lower, i)
+                    && lower.substring(i + 5).trim().startsWith("by")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWordStart(String query, int index) {
+
+        return index == 0 || !Character.isLetterOrDigit(query.charAt(index - 1)) && query.charAt(index - 1) != '_';
+    }
 }
@@ -0,0 +1,28 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Runs independent report queries of a data source, possibly concurrently.
+ * Returns once all tasks have completed or rethrows the first failure.
+ */
+@FunctionalInterface
+public interface QueryRunner {
+
+    QueryRunner SEQUENTIAL = (dataSource, tasks) -> {
+        for (Task task : tasks) {
+            task.run();
+        }
+    };
+
+    void runAll(DataSource dataSource, List<Task> tasks) throws SQLException, IOException;
+
+    @FunctionalInterface
+    interface Task {
+
+        void run() throws SQLException, IOException;
+    }
+}
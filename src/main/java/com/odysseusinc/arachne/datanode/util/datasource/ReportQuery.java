@@ -0,0 +1,88 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Independent query of a report together with the way its result is collected
+ */
+public class ReportQuery {
+
+    private final String key;
+    private final String identityKey;
+    private final QueryProcessor query;
+    private final ResultSetProcessor<Map> resultProcessor;
+    private final ConceptRowProcessor rowProcessor;
+    private final boolean ordered;
+
+    private ReportQuery(String key, String identityKey, QueryProcessor query,
+                        ResultSetProcessor<Map> resultProcessor, ConceptRowProcessor rowProcessor, boolean ordered) {
+
+        this.key = Objects.requireNonNull(key, "key is required");
+        this.identityKey = identityKey;
+        this.query = Objects.requireNonNull(query, "query is required");
+        this.resultProcessor = resultProcessor;
+        this.rowProcessor = rowProcessor;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Result is put under the key, results of queries sharing a key are merged in declaration order
+     */
+    public static ReportQuery map(String key, String sql, ResultSetProcessor<Map> processor) {
+
+        return new ReportQuery(key, null, QueryProcessors.statement(sql),
+                Objects.requireNonNull(processor, "resultSetProcessor is required"), null, false);
+    }
+
+    /**
+     * Rows are grouped per concept under the key. The query is ordered by the concept, unless it is
+     * ordered by something else already, so its rows can be grouped as they are read.
+     */
+    public static ReportQuery group(String identityKey, String key, String sql, ConceptRowProcessor processor) {
+
+        Objects.requireNonNull(identityKey, "identityKey is required");
+        String orderedSql = QueryProcessors.orderBy(sql, identityKey);
+        return new ReportQuery(key, identityKey,
+                QueryProcessors.cursor(Objects.isNull(orderedSql) ? sql : orderedSql), null,
+                Objects.requireNonNull(processor, "conceptRowProcessor is required"), Objects.nonNull(orderedSql));
+    }
+
+    public boolean isGrouped() {
+
+        return Objects.nonNull(rowProcessor);
+    }
+
+    /**
+     * @return true if rows are returned ordered by the concept
+     */
+    public boolean isOrdered() {
+
+        return ordered;
+    }
+
+    public String getKey() {
+
+        return key;
+    }
+
+    public String getIdentityKey() {
+
+        return identityKey;
+    }
+
+    public QueryProcessor getQuery() {
+
+        return query;
+    }
+
+    public ResultSetProcessor<Map> getResultProcessor() {
+
+        return resultProcessor;
+    }
+
+    public ConceptRowProcessor getRowProcessor() {
+
+        return rowProcessor;
+    }
+}
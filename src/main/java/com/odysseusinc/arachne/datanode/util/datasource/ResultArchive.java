@@ -0,0 +1,81 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zip archive the report results are written into entry by entry, so no intermediate file is created
+ * per report or per concept.
+ * <p>
+ * Can be shared by reports running concurrently: every entry is serialized straight into the archive
+ * under a lock, so no entry is held in memory as a whole. Entry names are relative paths with the
+ * {@code /} separator, parent directory entries are added as needed.
+ */
+public class ResultArchive implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final ZipOutputStream zip;
+    private final Set<String> directories = new HashSet<>();
+
+    public ResultArchive(File file) throws IOException {
+
+        this.file = file;
+        this.zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    public File getFile() {
+
+        return file;
+    }
+
+    public synchronized void writeJson(String name, JsonStream json) throws IOException {
+
+        addParentDirectories(name);
+        zip.putNextEntry(new ZipEntry(name));
+        // The writer is flushed but not closed, closing it would close the archive
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        // Same output settings as the default Gson instance
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+        json.writeTo(writer);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    public synchronized void write(String name, byte[] content) throws IOException {
+
+        addParentDirectories(name);
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private void addParentDirectories(String name) throws IOException {
+
+        for (int i = name.indexOf('/'); i > 0; i = name.indexOf('/', i + 1)) {
+            String directory = name.substring(0, i + 1);
+            if (directories.add(directory)) {
+                zip.putNextEntry(new ZipEntry(directory));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        zip.close();
+    }
+}
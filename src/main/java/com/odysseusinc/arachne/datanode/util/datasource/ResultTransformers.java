@@ -23,29 +23,81 @@
 package com.odysseusinc.arachne.datanode.util.datasource;
 
 import com.google.gson.Gson;
-import java.util.HashMap;
-import java.util.List;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 
 public class ResultTransformers {
 
+    private static final Gson GSON = new Gson();
+    // Doubles above 2^53 cannot be represented exactly, so they are kept as is
+    private static final double MAX_EXACT_DOUBLE = 9007199254740992D;
+
     public static <T> ResultTransformer<T, String> toJson() {
 
-        return result -> new Gson().toJson(result);
+        return result -> GSON.toJson(result);
+    }
+
+    public static <T> ResultTransformer<T, JsonStream> toJsonStream() {
+
+        return result -> writer -> writeValue(writer, result);
+    }
+
+    public static void writeValue(JsonWriter writer, Object value) throws IOException {
+
+        if (Objects.isNull(value)) {
+            writer.nullValue();
+        } else if (value instanceof ColumnVector) {
+            ((ColumnVector) value).writeTo(writer);
+        } else if (value instanceof Map) {
+            writer.beginObject();
+            for (Object entry : ((Map) value).entrySet()) {
+                writer.name(String.valueOf(((Map.Entry) entry).getKey()));
+                writeValue(writer, ((Map.Entry) entry).getValue());
+            }
+            writer.endObject();
+        } else if (value instanceof Collection) {
+            writer.beginArray();
+            for (Object item : (Collection) value) {
+                writeValue(writer, item);
+            }
+            writer.endArray();
+        } else if (value instanceof String) {
+            writer.value((String) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            writeCompact(writer, (Number) value);
+        } else if (value instanceof Number) {
+            writer.value((Number) value);
+        } else if (value instanceof Boolean) {
+            writer.value(((Boolean) value).booleanValue());
+        } else {
+            GSON.toJson(value, value.getClass(), writer);
+        }
     }
 
-    public static <T extends Map> ResultTransformer<T, Map<Integer, String>> toJsonMap(List<Integer> identities) {
-
-        return result -> {
-            Gson gson = new Gson();
-            Map<Integer, String> jsonMap = new HashMap<>();
-            identities.forEach(id -> {
-                if (result.containsKey(id)) {
-                    String json = gson.toJson(result.get(id));
-                    jsonMap.put(id, json);
-                }
-            });
-            return jsonMap;
-        };
+    private static void writeCompact(JsonWriter writer, Number number) throws IOException {
+
+        double value = number.doubleValue();
+        if (isCompact(value)) {
+            writer.value((long) value);
+        } else {
+            writer.value(number);
+        }
+    }
+
+    static void writeCompact(JsonWriter writer, double value) throws IOException {
+
+        if (isCompact(value)) {
+            writer.value((long) value);
+        } else {
+            writer.value(value);
+        }
+    }
+
+    private static boolean isCompact(double value) {
+
+        return value == Math.rint(value) && Math.abs(value) < MAX_EXACT_DOUBLE;
     }
 }
@@ -22,43 +22,17 @@
 
 package com.odysseusinc.arachne.datanode.util.datasource;
 
-import java.io.FileWriter;
-import java.io.Writer;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
-import java.util.Map;
-import org.apache.commons.io.IOUtils;
-
 public class ResultWriters {
 
-    public static ResultWriter<String> toFile(String fileName) {
-
-        return result -> {
-            try (Writer writer = new FileWriter(fileName)) {
-                IOUtils.write(result, writer);
-            }
-        };
-    }
-
-    public static ResultWriter<String> toFile(Path path) {
+    public static ResultWriter<JsonStream> toJsonEntry(ResultArchive archive, String name) {
 
-        return toFile(path.toString());
+        return result -> archive.writeJson(name, result);
     }
 
-    public static ResultWriter<Map<Integer, String>> toMultipleFiles(Path targetDir, String filenamePattern,
-                                                                     List<Integer> concepts) {
+    public static ResultWriter<ConceptDocument> toConceptJsonEntries(ResultArchive archive, String directory,
+                                                                     String filenamePattern) {
 
-        return result -> {
-            if (Files.notExists(targetDir)) {
-                Files.createDirectories(targetDir);
-            }
-            for (Integer id : concepts) {
-                Path fileName = targetDir.resolve(String.format(filenamePattern, id));
-                if (result.containsKey(id)) {
-                    toFile(fileName).write(result.get(id));
-                }
-            }
-        };
+        return result -> archive.writeJson(directory + "/" + String.format(filenamePattern, result.getConceptId()),
+                result.getJson());
     }
 }
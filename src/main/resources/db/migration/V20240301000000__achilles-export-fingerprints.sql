@@ -0,0 +1,18 @@
+CREATE TABLE achilles_analysis_fingerprints (
+    id BIGSERIAL PRIMARY KEY,
+    datasource_id BIGINT NOT NULL REFERENCES datasource (id) ON DELETE CASCADE,
+    analysis_id INTEGER NOT NULL,
+    row_count BIGINT NOT NULL,
+    content_hash BIGINT NOT NULL,
+    updated TIMESTAMP NOT NULL,
+    CONSTRAINT achilles_analysis_fingerprints_uq UNIQUE (datasource_id, analysis_id)
+);
+
+CREATE TABLE achilles_report_states (
+    id BIGSERIAL PRIMARY KEY,
+    datasource_id BIGINT NOT NULL REFERENCES datasource (id) ON DELETE CASCADE,
+    report VARCHAR NOT NULL,
+    fingerprint VARCHAR NOT NULL,
+    updated TIMESTAMP NOT NULL,
+    CONSTRAINT achilles_report_states_uq UNIQUE (datasource_id, report)
+);
@@ -0,0 +1,50 @@
+-- Current state of an analysis, kept in sync with its latest analysis_state_journal entry by a trigger,
+-- so listings no longer aggregate the whole journal
+
+ALTER TABLE analyses ADD COLUMN current_state VARCHAR;
+ALTER TABLE analyses ADD COLUMN current_state_date TIMESTAMP;
+ALTER TABLE analyses ADD COLUMN latest_state_id BIGINT;
+ALTER TABLE analyses ADD COLUMN submitted TIMESTAMP;
+
+UPDATE analyses
+SET current_state = latest.state, current_state_date = latest.date, latest_state_id = latest.id
+FROM (
+    SELECT DISTINCT ON (analysis_id) id, analysis_id, state, date
+    FROM analysis_state_journal
+    WHERE date IS NOT NULL
+    ORDER BY analysis_id, date DESC, id DESC
+) AS latest
+WHERE latest.analysis_id = analyses.id;
+
+UPDATE analyses
+SET submitted = earliest.submitted
+FROM (
+    SELECT analysis_id, min(date) AS submitted
+    FROM analysis_state_journal
+    GROUP BY analysis_id
+) AS earliest
+WHERE earliest.analysis_id = analyses.id;
+
+CREATE OR REPLACE FUNCTION analysis_state_journal_sync_current() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.date IS NULL THEN
+        RETURN NEW;
+    END IF;
+    UPDATE analyses
+    SET current_state = NEW.state, current_state_date = NEW.date, latest_state_id = NEW.id
+    WHERE id = NEW.analysis_id
+        AND (latest_state_id IS NULL OR latest_state_id = NEW.id OR current_state_date <= NEW.date);
+    UPDATE analyses
+    SET submitted = NEW.date
+    WHERE id = NEW.analysis_id AND (submitted IS NULL OR submitted > NEW.date);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER analysis_state_journal_sync_current
+    AFTER INSERT OR UPDATE OF date, state ON analysis_state_journal
+    FOR EACH ROW EXECUTE PROCEDURE analysis_state_journal_sync_current();
+
+CREATE INDEX analyses_current_state_idx ON analyses (current_state, current_state_date);
+CREATE INDEX analyses_submitted_idx ON analyses (submitted);
+CREATE INDEX analysis_state_journal_analysis_id_idx ON analysis_state_journal (analysis_id, date);
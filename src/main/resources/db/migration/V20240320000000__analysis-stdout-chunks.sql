@@ -0,0 +1,29 @@
+CREATE TABLE analysis_stdout_chunks (
+    id BIGSERIAL PRIMARY KEY,
+    analysis_id BIGINT NOT NULL REFERENCES analyses (id) ON DELETE CASCADE,
+    seq INTEGER NOT NULL,
+    start_offset BIGINT NOT NULL,
+    end_offset BIGINT NOT NULL,
+    content TEXT NOT NULL,
+    CONSTRAINT analysis_stdout_chunks_uq UNIQUE (analysis_id, seq)
+);
+
+-- The stdout is split into chunks of 65536 characters, the default chunk size. Offsets are counted in
+-- UTF-16 code units like Java String lengths, characters outside the Basic Multilingual Plane are one
+-- code point but two code units.
+INSERT INTO analysis_stdout_chunks (analysis_id, seq, start_offset, end_offset, content)
+SELECT analysis_id, seq, SUM(units) OVER analysis_chunks - units, SUM(units) OVER analysis_chunks, content
+FROM (
+    SELECT analyses.id AS analysis_id, piece.seq, piece.content,
+           char_length(piece.content)
+               + char_length(regexp_replace(piece.content, '[^\U00010000-\U0010FFFF]', '', 'g')) AS units
+    FROM analyses
+    CROSS JOIN LATERAL (
+        SELECT n AS seq, substring(analyses.stdout FROM n * 65536 + 1 FOR 65536) AS content
+        FROM generate_series(0, (char_length(analyses.stdout) - 1) / 65536) AS n
+    ) piece
+    WHERE analyses.stdout IS NOT NULL AND analyses.stdout <> ''
+) pieces
+WINDOW analysis_chunks AS (PARTITION BY analysis_id ORDER BY seq);
+
+ALTER TABLE analyses DROP COLUMN stdout;
@@ -0,0 +1,31 @@
+-- Lookups were not atomic, concurrent list requests could register the same entity twice.
+-- The earliest registration of an entity is kept. GUIDs of the dropped duplicates may already
+-- be known to Central, so they stay resolvable as aliases of the kept row.
+CREATE TABLE IF NOT EXISTS common_entity_guid_alias
+(
+  guid             VARCHAR NOT NULL
+    PRIMARY KEY,
+  common_entity_id BIGINT  NOT NULL
+    REFERENCES common_entity (id) ON DELETE CASCADE
+);
+
+INSERT INTO common_entity_guid_alias (guid, common_entity_id)
+SELECT duplicate.guid, earliest.id
+FROM common_entity duplicate
+  JOIN (SELECT origin_id, local_id, analysis_type, MIN(id) AS id
+        FROM common_entity
+        GROUP BY origin_id, local_id, analysis_type) earliest
+    ON duplicate.origin_id = earliest.origin_id
+   AND duplicate.local_id = earliest.local_id
+   AND duplicate.analysis_type = earliest.analysis_type
+   AND duplicate.id > earliest.id;
+
+DELETE FROM common_entity duplicate
+USING common_entity earliest
+WHERE duplicate.origin_id = earliest.origin_id
+  AND duplicate.local_id = earliest.local_id
+  AND duplicate.analysis_type = earliest.analysis_type
+  AND duplicate.id > earliest.id;
+
+ALTER TABLE common_entity
+    ADD CONSTRAINT common_entity_origin_local_type_uq UNIQUE (origin_id, local_id, analysis_type);
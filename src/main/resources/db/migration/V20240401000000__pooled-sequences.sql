@@ -0,0 +1,12 @@
+-- Ids of these entities are allocated by Hibernate in blocks of 50 (pooled optimizer), each nextval reserves
+-- the block ending at the returned value. The increments must match the allocationSize of the entities.
+-- Native inserts calling nextval directly, such as AnalysisStateJournalRepository.INSERT_STATE_SQL, take the
+-- last id of a block and skip the rest. This is safe only with the pooled (hi) optimizer, which never hands
+-- out ids above the returned value; pooled-lo would reuse the ids following it.
+-- common_entity_id_seq keeps the increment of 1, its rows are mostly inserted by native nextval calls.
+ALTER SEQUENCE analyses_id_seq INCREMENT BY 50;
+ALTER SEQUENCE analysis_state_journal_id_seq INCREMENT BY 50;
+ALTER SEQUENCE analysis_files_id_seq INCREMENT BY 50;
+ALTER SEQUENCE analysis_stdout_chunks_id_seq INCREMENT BY 50;
+ALTER SEQUENCE achilles_jobs_id_seq INCREMENT BY 50;
+ALTER SEQUENCE descriptor_id_seq INCREMENT BY 50;
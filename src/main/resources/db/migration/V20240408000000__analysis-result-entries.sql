@@ -0,0 +1,23 @@
+-- Manifest of the result archives, NULL archive_type marks files received before it was introduced,
+-- their manifest is built on first access
+ALTER TABLE analysis_files ADD COLUMN archive_type VARCHAR;
+
+CREATE SEQUENCE analysis_result_entries_id_seq INCREMENT BY 50;
+
+CREATE TABLE analysis_result_entries (
+    id BIGINT PRIMARY KEY DEFAULT nextval('analysis_result_entries_id_seq'),
+    analysis_file_id BIGINT NOT NULL REFERENCES analysis_files (id) ON DELETE CASCADE,
+    name VARCHAR NOT NULL,
+    size BIGINT NOT NULL,
+    compressed_size BIGINT NOT NULL,
+    local_header_offset BIGINT NOT NULL,
+    compression_method INTEGER NOT NULL,
+    content_type VARCHAR,
+    directory BOOLEAN NOT NULL,
+    encrypted BOOLEAN NOT NULL,
+    error_report BOOLEAN NOT NULL
+);
+
+ALTER SEQUENCE analysis_result_entries_id_seq OWNED BY analysis_result_entries.id;
+
+CREATE INDEX analysis_result_entries_file_name_idx ON analysis_result_entries (analysis_file_id, name);
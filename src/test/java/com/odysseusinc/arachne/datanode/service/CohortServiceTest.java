@@ -29,17 +29,26 @@ import static com.odysseusinc.arachne.commons.types.DBMSType.POSTGRESQL;
 import static com.odysseusinc.arachne.commons.types.DBMSType.REDSHIFT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.odysseusinc.arachne.commons.types.DBMSType;
 import com.odysseusinc.arachne.datanode.repository.AtlasRepository;
 import com.odysseusinc.arachne.datanode.service.client.portal.CentralSystemClient;
 import com.odysseusinc.arachne.datanode.service.impl.CohortServiceImpl;
+import com.odysseusinc.arachne.datanode.util.SqlTemplateCache;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.ohdsi.sql.SqlTranslate;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -64,6 +73,8 @@ public class CohortServiceTest {
     private AtlasRepository atlasRepository;
     @Mock
     private DataNodeService dataNodeService;
+    @Spy
+    private SqlTemplateCache sqlTemplateCache = new SqlTemplateCache(100, 1_000_000);
 
     @InjectMocks
     private CohortServiceImpl cohortService ;
@@ -102,6 +113,36 @@ public class CohortServiceTest {
         assertSqlEquals(MS_SQL_SQL_RESULT, sql);
     }
 
+    @Test
+    public void translateBatchTest() {
+
+        final List<String> sqls = cohortService.translateSQL(Arrays.asList(MS_SQL_SQL_RESULT, MS_SQL_SQL_RESULT),
+                null, POSTGRESQL, SESSION_ID, TEMP_SCHEMA, options);
+        assertEquals(2, sqls.size());
+        sqls.forEach(sql -> assertSqlEquals(POSTGRES_SQL_RESULT, sql));
+    }
+
+    @Test
+    public void translateConcurrentlyTest() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                DBMSType dbmsType = i % 2 == 0 ? POSTGRESQL : REDSHIFT;
+                futures.add(executor.submit(() -> cohortService.translateSql(dbmsType.getOhdsiDB(), SESSION_ID,
+                        TEMP_SCHEMA, MS_SQL_SQL_RESULT)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                DBMSType dbmsType = i % 2 == 0 ? POSTGRESQL : REDSHIFT;
+                assertEquals(cohortService.translateSql(dbmsType.getOhdsiDB(), SESSION_ID, TEMP_SCHEMA, MS_SQL_SQL_RESULT),
+                        futures.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private static final String POSTGRES_SQL_RESULT = "CREATE TEMP TABLE Codesets  (codeset_id int NOT NULL,\n" +
             "  concept_id bigint NOT NULL\n" +
             ")\n" +
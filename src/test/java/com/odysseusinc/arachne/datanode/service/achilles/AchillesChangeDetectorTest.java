@@ -0,0 +1,123 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.model.achilles.AchillesReportState;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.repository.AchillesAnalysisFingerprintRepository;
+import com.odysseusinc.arachne.datanode.repository.AchillesReportStateRepository;
+import com.odysseusinc.arachne.datanode.service.CdmConnectionRegistry;
+import com.odysseusinc.arachne.datanode.service.achilles.AchillesExportPlan.AnalysisFingerprint;
+import com.odysseusinc.arachne.datanode.util.SqlUtils;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AchillesChangeDetectorTest {
+
+    private static final String PREVALENCE_SQL = "classpath:/prevalence.sql";
+    private static final String BY_TYPE_SQL = "classpath:/by_type.sql";
+    private static final String CDM_SQL = "classpath:/cdm.sql";
+
+    private SqlUtils sqlUtils;
+    private AchillesChangeDetector detector;
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        sqlUtils = mock(SqlUtils.class);
+        when(sqlUtils.readSql(PREVALENCE_SQL)).thenReturn("select * from @results_database_schema.achilles_results ar"
+                + " where ar.analysis_id = 404 or ar.ANALYSIS_ID IN (402, 405)");
+        when(sqlUtils.readSql(BY_TYPE_SQL)).thenReturn("select * from achilles_results where analysis_id=405");
+        when(sqlUtils.readSql(CDM_SQL)).thenReturn("select count(*) from @cdm_database_schema.person");
+        detector = new AchillesChangeDetector(sqlUtils, null, null, null, new AchillesProperties());
+        dataSource = new DataSource();
+        dataSource.setCdmSchema("cdm");
+    }
+
+    @Test
+    public void shouldExtractAnalysisIds() {
+
+        assertThat(AchillesChangeDetector.analysisIds("where analysis_id = 404 or ANALYSIS_ID IN (402, 405)"))
+                .containsExactly(402, 404, 405);
+        assertThat(AchillesChangeDetector.analysisIds("select count(*) from person")).isEmpty();
+    }
+
+    @Test
+    public void shouldChangeFingerprintWithReferencedAnalysesOnly() throws Exception {
+
+        AchillesReportTask task = new AchillesReportTask("Conditions", Arrays.asList(PREVALENCE_SQL, BY_TYPE_SQL),
+                Collections.singletonList("conditions"), () -> 0);
+        Map<Integer, AnalysisFingerprint> analyses = new HashMap<>();
+        analyses.put(404, new AnalysisFingerprint(10, 42));
+        analyses.put(1, new AnalysisFingerprint(1, 1));
+
+        String fingerprint = detector.reportFingerprint(dataSource, task, analyses);
+        analyses.put(1, new AnalysisFingerprint(2, 7));
+        String unrelatedChange = detector.reportFingerprint(dataSource, task, analyses);
+        analyses.put(405, new AnalysisFingerprint(3, 5));
+        String relatedChange = detector.reportFingerprint(dataSource, task, analyses);
+
+        assertThat(fingerprint).isNotNull().isEqualTo(unrelatedChange);
+        assertThat(relatedChange).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    public void shouldNotFingerprintReportWithUnknownInputs() throws Exception {
+
+        AchillesReportTask task = new AchillesReportTask("Person", Arrays.asList(PREVALENCE_SQL, CDM_SQL),
+                Collections.singletonList("person.json"), () -> 0);
+
+        assertThat(detector.reportFingerprint(dataSource, task, new HashMap<>())).isNull();
+    }
+
+    @Test
+    public void shouldSkipUnchangedReportsAfterFullExport() throws Exception {
+
+        Connection connection = mock(Connection.class, RETURNS_DEEP_STUBS);
+        when(connection.getMetaData().getTables(any(), any(), any(), any()).next()).thenReturn(false);
+        CdmConnectionRegistry connectionRegistry = mock(CdmConnectionRegistry.class);
+        when(connectionRegistry.getConnection(dataSource)).thenReturn(connection);
+        List<AchillesReportState> states = new ArrayList<>();
+        AchillesReportStateRepository reportStateRepository = mock(AchillesReportStateRepository.class);
+        when(reportStateRepository.findByDataSource(dataSource)).thenAnswer(invocation -> new ArrayList<>(states));
+        when(reportStateRepository.save(any())).thenAnswer(invocation -> {
+            AchillesReportState state = invocation.getArgument(0);
+            if (!states.contains(state)) {
+                states.add(state);
+            }
+            return state;
+        });
+        AchillesAnalysisFingerprintRepository analysisFingerprintRepository = mock(AchillesAnalysisFingerprintRepository.class);
+        AchillesProperties properties = new AchillesProperties();
+        properties.getIncremental().setEnabled(true);
+        detector = new AchillesChangeDetector(sqlUtils, connectionRegistry, analysisFingerprintRepository,
+                reportStateRepository, properties);
+        AchillesReportTask conditions = new AchillesReportTask("Conditions", Arrays.asList(PREVALENCE_SQL, BY_TYPE_SQL),
+                Collections.singletonList("conditions"), () -> 0);
+        AchillesReportTask person = new AchillesReportTask("Person", Collections.singletonList(CDM_SQL),
+                Collections.singletonList("person.json"), () -> 0);
+        List<AchillesReportTask> tasks = Arrays.asList(conditions, person);
+
+        AchillesExportPlan first = detector.plan(dataSource, tasks);
+        detector.commit(dataSource, first);
+        AchillesExportPlan second = detector.plan(dataSource, tasks);
+
+        assertThat(first.getChanged()).containsExactly(conditions, person);
+        assertThat(first.isIncremental()).isFalse();
+        assertThat(second.getChanged()).containsExactly(person);
+        assertThat(second.getUnchanged()).containsExactly(conditions);
+    }
+}
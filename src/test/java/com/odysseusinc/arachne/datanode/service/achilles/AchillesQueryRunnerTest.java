@@ -0,0 +1,115 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.config.properties.CdmConnectionPoolProperties;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import com.odysseusinc.arachne.datanode.util.datasource.QueryRunner;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AchillesQueryRunnerTest {
+
+    private AchillesTaskExecutor taskExecutor;
+    private AchillesQueryRunner runner;
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+
+        AchillesProperties properties = new AchillesProperties();
+        properties.getExecutor().setReportParallelism(3);
+        properties.getExecutor().setMaxPerDataSource(4);
+        properties.getExecutor().setMaxPerServer(4);
+        taskExecutor = new AchillesTaskExecutor(properties, new CdmConnectionPoolProperties());
+        runner = new AchillesQueryRunner(properties, taskExecutor);
+        dataSource = new DataSource();
+        dataSource.setId(1L);
+        dataSource.setConnectionString("jdbc:postgresql://warehouse:5432/cdm");
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+
+        runner.shutdown();
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldLimitQueriesInFlight() throws Exception {
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        List<QueryRunner.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep();
+                running.decrementAndGet();
+                completed.incrementAndGet();
+            });
+        }
+
+        runner.runAll(dataSource, tasks);
+
+        assertThat(completed.get()).isEqualTo(10);
+        assertThat(peak.get()).isLessThanOrEqualTo(3);
+        assertThat(taskExecutor.getStats().getActiveByDataSource()).isEmpty();
+    }
+
+    @Test
+    public void shouldRunQueriesOnReportConnectionWhenNoSlotIsFree() throws Exception {
+
+        // all connections of the data source are taken, one of them by the report itself
+        for (int i = 0; i < 4; i++) {
+            assertThat(taskExecutor.tryAcquireQuerySlot(dataSource)).isTrue();
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<QueryRunner.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep();
+                running.decrementAndGet();
+            });
+        }
+
+        runner.runAll(dataSource, tasks);
+
+        assertThat(peak.get()).isEqualTo(1);
+        assertThat(taskExecutor.getStats().getActiveByDataSource()).containsEntry(1L, 4);
+    }
+
+    @Test
+    public void shouldRethrowQueryFailure() {
+
+        List<QueryRunner.Task> tasks = new ArrayList<>();
+        tasks.add(this::sleep);
+        tasks.add(() -> {
+            throw new SQLException("relation does not exist");
+        });
+        tasks.add(this::sleep);
+
+        assertThatThrownBy(() -> runner.runAll(dataSource, tasks))
+                .isInstanceOf(SQLException.class)
+                .hasMessage("relation does not exist");
+    }
+
+    private void sleep() {
+
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
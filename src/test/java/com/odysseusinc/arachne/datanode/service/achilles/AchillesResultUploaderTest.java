@@ -0,0 +1,95 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.dto.achilles.AchillesUploadDTO;
+import com.odysseusinc.arachne.datanode.service.client.portal.CentralSystemClient;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.util.unit.DataSize;
+
+public class AchillesResultUploaderTest {
+
+    private static final Long CENTRAL_ID = 7L;
+    private static final String UPLOAD_ID = "upload-1";
+
+    @TempDir
+    Path tempDir;
+
+    private CentralSystemClient client;
+    private AchillesResultUploader uploader;
+    private final Map<Integer, byte[]> received = new ConcurrentHashMap<>();
+    private final List<Integer> sent = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+
+        client = mock(CentralSystemClient.class);
+        AchillesProperties properties = new AchillesProperties();
+        properties.getUpload().setPartSize(DataSize.ofBytes(1000));
+        properties.getUpload().setParallelism(3);
+        uploader = new AchillesResultUploader(client, new RetryTemplate(), properties);
+
+        AchillesUploadDTO started = new AchillesUploadDTO();
+        started.setUploadId(UPLOAD_ID);
+        when(client.startAchillesUpload(eq(CENTRAL_ID), any())).thenReturn(started);
+        when(client.getAchillesUpload(CENTRAL_ID, UPLOAD_ID)).thenAnswer(invocation -> {
+            AchillesUploadDTO status = new AchillesUploadDTO();
+            status.setUploadId(UPLOAD_ID);
+            status.setReceivedParts(new ArrayList<>(received.keySet()));
+            return status;
+        });
+    }
+
+    @Test
+    public void shouldResumeFromAcknowledgedParts() throws Exception {
+
+        byte[] content = new byte[4500];
+        new Random(42).nextBytes(content);
+        File archive = Files.write(tempDir.resolve("archive"), content).toFile();
+        AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            int part = invocation.getArgument(2);
+            synchronized (sent) {
+                sent.add(part);
+            }
+            if (part == 3 && failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("connection reset");
+            }
+            received.put(part, invocation.getArgument(4));
+            return null;
+        }).when(client).sendAchillesUploadPart(eq(CENTRAL_ID), eq(UPLOAD_ID), anyInt(), anyString(), any());
+
+        uploader.upload(CENTRAL_ID, archive);
+
+        assertThat(received).hasSize(5);
+        assertThat(sent).hasSize(6).containsOnlyOnce(0, 1, 2, 4);
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        for (int part = 0; part < 5; part++) {
+            assembled.write(received.get(part));
+        }
+        assertThat(assembled.toByteArray()).isEqualTo(content);
+        verify(client).completeAchillesUpload(eq(CENTRAL_ID), eq(UPLOAD_ID), any());
+    }
+}
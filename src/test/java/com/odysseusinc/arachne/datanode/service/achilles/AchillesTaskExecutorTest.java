@@ -0,0 +1,90 @@
+package com.odysseusinc.arachne.datanode.service.achilles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.odysseusinc.arachne.datanode.config.properties.AchillesProperties;
+import com.odysseusinc.arachne.datanode.config.properties.CdmConnectionPoolProperties;
+import com.odysseusinc.arachne.datanode.model.datasource.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class AchillesTaskExecutorTest {
+
+    private AchillesTaskExecutor executor;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldResolveDatabaseServer() {
+
+        assertThat(AchillesTaskExecutor.serverKey(dataSource(1L, "jdbc:postgresql://Db.local:5432/cdm")))
+                .isEqualTo("db.local:5432");
+        assertThat(AchillesTaskExecutor.serverKey(dataSource(2L, "jdbc:sqlserver://mssql:1433;databaseName=cdm")))
+                .isEqualTo("mssql:1433");
+        assertThat(AchillesTaskExecutor.serverKey(dataSource(3L, "jdbc:oracle:thin:@oracle:1521:orcl")))
+                .isEqualTo("oracle:1521");
+    }
+
+    @Test
+    public void shouldLimitConcurrencyPerServer() throws Exception {
+
+        executor = executor(8, 4, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            DataSource dataSource = dataSource(id, "jdbc:postgresql://warehouse:5432/cdm" + id);
+            futures.addAll(executor.invokeAll(dataSource, tasks(4, running, peak)));
+        }
+
+        for (Future<Integer> future : futures) {
+            assertThat(future.get()).isEqualTo(1);
+        }
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+        assertThat(executor.getStats().getCompleted()).isEqualTo(12);
+        assertThat(executor.getStats().getActive()).isZero();
+        assertThat(executor.getStats().getQueued()).isZero();
+    }
+
+    private List<Callable<Integer>> tasks(int count, AtomicInteger running, AtomicInteger peak) {
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return 1;
+            });
+        }
+        return tasks;
+    }
+
+    private AchillesTaskExecutor executor(int maxConcurrency, int maxPerDataSource, int maxPerServer) {
+
+        AchillesProperties properties = new AchillesProperties();
+        properties.getExecutor().setMaxConcurrency(maxConcurrency);
+        properties.getExecutor().setMaxPerDataSource(maxPerDataSource);
+        properties.getExecutor().setMaxPerServer(maxPerServer);
+        return new AchillesTaskExecutor(properties, new CdmConnectionPoolProperties());
+    }
+
+    private DataSource dataSource(Long id, String connectionString) {
+
+        DataSource dataSource = new DataSource();
+        dataSource.setId(id);
+        dataSource.setConnectionString(connectionString);
+        return dataSource;
+    }
+}
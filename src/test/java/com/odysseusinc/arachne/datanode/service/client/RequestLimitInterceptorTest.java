@@ -0,0 +1,114 @@
+package com.odysseusinc.arachne.datanode.service.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+
+public class RequestLimitInterceptorTest {
+
+    @Test
+    public void shouldLimitSynchronousRequestsPerHost() throws Exception {
+
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+
+                    if (request.getPath().equals("/slow")) {
+                        received.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    return new MockResponse().setBody("ok");
+                }
+            });
+            RequestLimitInterceptor requestLimit = new RequestLimitInterceptor(10, 1, 200);
+            OkHttpClient client = new OkHttpClient.Builder().addInterceptor(requestLimit).build();
+
+            Future<String> slow = executor.submit(() -> call(client, server, "/slow"));
+            assertThat(received.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> call(client, server, "/fast")).isInstanceOf(InterruptedIOException.class);
+
+            release.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS)).isEqualTo("ok");
+            assertThat(call(client, server, "/fast")).isEqualTo("ok");
+            assertThat(requestLimit.getHostCount()).isZero();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotLimitStreamedRequests() throws Exception {
+
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+
+                    if (request.getPath().equals("/upload")) {
+                        received.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    return new MockResponse().setBody("ok");
+                }
+            });
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .addInterceptor(new RequestLimitInterceptor(10, 1, 200))
+                    .build();
+            RequestBody upload = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart("file", "file.zip", RequestBody.create(new byte[16], null))
+                    .build();
+
+            Request.Builder request = new Request.Builder().url(server.url("/upload")).post(upload);
+            Future<String> slow = executor.submit(() -> call(client, request));
+            assertThat(received.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(call(client, server, "/fast")).isEqualTo("ok");
+
+            release.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS)).isEqualTo("ok");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private String call(OkHttpClient client, MockWebServer server, String path) throws Exception {
+
+        return call(client, new Request.Builder().url(server.url(path)));
+    }
+
+    private String call(OkHttpClient client, Request.Builder request) throws Exception {
+
+        try (Response response = client.newCall(request.build()).execute()) {
+            return response.body().string();
+        }
+    }
+}
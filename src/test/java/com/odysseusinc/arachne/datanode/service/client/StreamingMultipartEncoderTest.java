@@ -0,0 +1,152 @@
+package com.odysseusinc.arachne.datanode.service.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import feign.Feign;
+import feign.Headers;
+import feign.Param;
+import feign.Request;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.codec.Encoder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+public class StreamingMultipartEncoderTest {
+
+    private final StreamingMultipartEncoder encoder = new StreamingMultipartEncoder();
+
+    interface UploadClient {
+
+        @RequestLine("POST /upload")
+        @Headers("Content-Type: multipart/form-data")
+        String upload(@Param("file") MultipartFile file, @Param("properties") Map<String, String> properties);
+    }
+
+    @Test
+    public void shouldSendFilesWithKnownLength() throws Exception {
+
+        Map<String, Object> form = new LinkedHashMap<>();
+        form.put("files", new MultipartFile[]{
+                new MockMultipartFile("file", "a.sql", null, "select 1".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("file", "b.json", null, "{}".getBytes(StandardCharsets.UTF_8))
+        });
+        form.put("properties", Collections.singletonMap("key", "value"));
+        RequestTemplate template = new RequestTemplate();
+
+        encoder.encode(form, Encoder.MAP_STRING_WILDCARD, template);
+
+        MultipartBody body = encoder.getForm(template.body());
+        assertThat(body.parts()).hasSize(3);
+        assertThat(template.headers().get("Content-Type")).containsExactly(body.contentType().toString());
+        Buffer written = new Buffer();
+        body.writeTo(written);
+        assertThat(body.contentLength()).isEqualTo(written.size());
+        String content = written.readUtf8();
+        assertThat(content).contains("filename=\"a.sql\"", "select 1", "filename=\"b.json\"", "{\"key\":\"value\"}");
+    }
+
+    @Test
+    public void shouldSendStreamsChunked() throws Exception {
+
+        RequestTemplate template = new RequestTemplate();
+
+        encoder.encode(Collections.singletonMap("file", new ByteArrayInputStream(new byte[]{1, 2, 3})),
+                Encoder.MAP_STRING_WILDCARD, template);
+
+        MultipartBody body = encoder.getForm(template.body());
+        assertThat(body.contentLength()).isEqualTo(-1);
+        Buffer written = new Buffer();
+        body.writeTo(written);
+        assertThat(written.size()).isGreaterThan(3);
+        assertThatThrownBy(() -> body.writeTo(new Buffer())).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldSendFormThroughFeignClient() throws Exception {
+
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("ok"));
+            UploadClient client = Feign.builder()
+                    .encoder(encoder)
+                    .client(encoder.client(new OkHttpClient()))
+                    .target(UploadClient.class, server.url("/").toString());
+
+            String response = client.upload(
+                    new MockMultipartFile("file", "a.sql", null, "select 1".getBytes(StandardCharsets.UTF_8)),
+                    Collections.singletonMap("key", "value"));
+
+            assertThat(response).isEqualTo("ok");
+            RecordedRequest request = server.takeRequest();
+            assertThat(request.getHeader("Content-Type")).startsWith("multipart/form-data; boundary=");
+            assertThat(request.getBodySize()).isEqualTo(Long.parseLong(request.getHeader("Content-Length")));
+            assertThat(request.getBody().readUtf8()).contains("filename=\"a.sql\"", "select 1", "{\"key\":\"value\"}");
+        }
+    }
+
+    @Test
+    public void shouldKeepFormUntilRequestIsSent() throws Exception {
+
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("ok"));
+            UploadClient client = Feign.builder()
+                    .encoder(encoder)
+                    // runs after the template is encoded and copied, before the request is sent
+                    .requestInterceptor(template -> collectGarbage())
+                    .client(encoder.client(new OkHttpClient()))
+                    .target(UploadClient.class, server.url("/").toString());
+
+            String response = client.upload(
+                    new MockMultipartFile("file", "a.sql", null, "select 1".getBytes(StandardCharsets.UTF_8)),
+                    Collections.singletonMap("key", "value"));
+
+            assertThat(response).isEqualTo("ok");
+            assertThat(server.takeRequest().getBody().readUtf8()).contains("select 1");
+        }
+    }
+
+    @Test
+    public void shouldSendFormOfCopiedTemplateAfterGc() throws Exception {
+
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("ok"));
+            RequestTemplate encoded = new RequestTemplate().method(Request.HttpMethod.POST).uri("/upload");
+            encoder.encode(Collections.singletonMap("file", new MockMultipartFile("file", "a.sql", null,
+                    "select 1".getBytes(StandardCharsets.UTF_8))), Encoder.MAP_STRING_WILDCARD, encoded);
+            RequestTemplate resolved = encoded.resolve(Collections.emptyMap());
+            resolved.target(server.url("/").toString());
+            encoded = null;
+            collectGarbage();
+
+            Response response = encoder.client(new OkHttpClient())
+                    .execute(resolved.request(), new Request.Options());
+
+            assertThat(response.status()).isEqualTo(200);
+            RecordedRequest request = server.takeRequest();
+            assertThat(request.getHeader("Content-Type")).startsWith("multipart/form-data; boundary=");
+            assertThat(request.getBody().readUtf8()).contains("filename=\"a.sql\"", "select 1");
+        }
+    }
+
+    private static void collectGarbage() {
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+    }
+}
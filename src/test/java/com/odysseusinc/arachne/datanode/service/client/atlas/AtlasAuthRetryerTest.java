@@ -0,0 +1,37 @@
+package com.odysseusinc.arachne.datanode.service.client.atlas;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+public class AtlasAuthRetryerTest {
+
+    private final Request request = Request.create(Request.HttpMethod.GET, "http://atlas/WebAPI/cohortdefinition",
+            Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+
+    @Test
+    public void shouldRethrowRejectionAfterRetry() {
+
+        FeignException rejected = FeignException.errorStatus("AtlasClient#getCohortDefinitions()", Response.builder()
+                .status(401)
+                .reason("Unauthorized")
+                .headers(Collections.emptyMap())
+                .request(request)
+                .build());
+        RetryableException retry = new RetryableException(401, "Atlas rejected the token", Request.HttpMethod.GET,
+                rejected, null, request);
+        Retryer retryer = new AtlasAuthRetryer(new Retryer.Default());
+
+        assertThatCode(() -> retryer.continueOrPropagate(retry)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> retryer.continueOrPropagate(retry)).isSameAs(rejected);
+        assertThatCode(() -> retryer.clone().continueOrPropagate(retry)).doesNotThrowAnyException();
+    }
+}
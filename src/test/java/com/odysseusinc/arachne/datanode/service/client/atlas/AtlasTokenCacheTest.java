@@ -0,0 +1,94 @@
+package com.odysseusinc.arachne.datanode.service.client.atlas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class AtlasTokenCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration REFRESH_BEFORE = Duration.ofSeconds(30);
+
+    private final AtomicInteger logins = new AtomicInteger();
+
+    @Test
+    public void shouldLoginOnceForConcurrentRequests() throws Exception {
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtlasTokenCache cache = new AtlasTokenCache("atlas", () -> {
+            sleep();
+            return Optional.of(new AtlasToken("token-" + logins.incrementAndGet(), null));
+        }, TTL, REFRESH_BEFORE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<String>>> tokens = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tokens.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getToken();
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<String>> token : tokens) {
+                assertThat(token.get()).contains("token-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(logins).hasValue(1);
+    }
+
+    @Test
+    public void shouldRefreshBeforeExpiry() {
+
+        AtlasTokenCache cache = new AtlasTokenCache("atlas", () -> Optional.of(
+                new AtlasToken("token-" + logins.incrementAndGet(), Instant.now().plusSeconds(10))), TTL, REFRESH_BEFORE);
+
+        assertThat(cache.getToken()).contains("token-1");
+        assertThat(cache.getToken()).contains("token-2");
+    }
+
+    @Test
+    public void shouldLoginAgainAfterRejectedToken() {
+
+        AtlasTokenCache cache = new AtlasTokenCache("atlas", () -> Optional.of(
+                new AtlasToken("token-" + logins.incrementAndGet(), null)), TTL, REFRESH_BEFORE);
+
+        assertThat(cache.getToken()).contains("token-1");
+        cache.invalidate("token-0");
+        assertThat(cache.getToken()).contains("token-1");
+        cache.invalidate("token-1");
+        assertThat(cache.getToken()).contains("token-2");
+    }
+
+    @Test
+    public void shouldReadJwtExpiry() {
+
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"exp\":1700000000}".getBytes());
+
+        assertThat(AtlasToken.fromJwt("e30." + payload + ".c2ln").getExpiresAt())
+                .isEqualTo(Instant.ofEpochSecond(1700000000));
+        assertThat(AtlasToken.fromJwt("opaque").getExpiresAt()).isNull();
+    }
+
+    private static void sleep() {
+
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.odysseusinc.arachne.datanode.service.client.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.odysseusinc.arachne.execution_engine_common.util.CommonFileUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import okio.Buffer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ZipFolderRequestBodyTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldSendSameEntriesAsStoredArchive() throws Exception {
+
+        Path folder = Files.createDirectory(tempDir.resolve("analysis"));
+        write(folder.resolve("main.R"), "source('lib/run.R')");
+        write(folder.resolve("lib/run.R"), "run()");
+        write(folder.resolve("lib/sql/cohort.sql"), "SELECT 1");
+        Files.createDirectories(folder.resolve("output/empty"));
+        File archive = tempDir.resolve("analysis.zip").toFile();
+        CommonFileUtils.compressAndSplit(folder.toFile(), archive, null);
+
+        Buffer body = new Buffer();
+        new ZipFolderRequestBody(folder.toFile()).writeTo(body);
+
+        Map<String, String> sent = new TreeMap<>();
+        try (ZipInputStream zip = new ZipInputStream(body.inputStream())) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                sent.put(entry.getName(), IOUtils.toString(zip, StandardCharsets.UTF_8));
+            }
+        }
+        Map<String, String> stored = new TreeMap<>();
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                try (InputStream input = zip.getInputStream(entry)) {
+                    stored.put(entry.getName(), IOUtils.toString(input, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        assertThat(sent).isEqualTo(stored);
+        assertThat(sent).containsKeys("main.R", "lib/", "lib/sql/cohort.sql", "output/", "output/empty/");
+    }
+
+    private void write(Path file, String content) throws IOException {
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -3,9 +3,13 @@ package com.odysseusinc.arachne.datanode.service.impl;
 import com.google.common.io.Files;
 import com.odysseusinc.arachne.datanode.model.analysis.Analysis;
 import com.odysseusinc.arachne.datanode.model.analysis.AnalysisFile;
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisFileArchiveType;
 import com.odysseusinc.arachne.datanode.model.analysis.AnalysisFileType;
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisResultEntry;
 import com.odysseusinc.arachne.datanode.repository.AnalysisFileRepository;
+import com.odysseusinc.arachne.datanode.repository.AnalysisResultEntryRepository;
 import com.odysseusinc.arachne.datanode.repository.AnalysisRepository;
+import com.odysseusinc.arachne.datanode.service.AnalysisStdoutService;
 import com.odysseusinc.arachne.datanode.service.Const;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisResultStatusDTO;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,12 +20,16 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.ZipFile;
 
 import static java.nio.file.Files.copy;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,8 +45,12 @@ public class AnalysisResultsServiceImplTest {
     @Mock
     private AnalysisFileRepository analysisFileRepository;
     @Mock
+    private AnalysisResultEntryRepository analysisResultEntryRepository;
+    @Mock
     private AnalysisRepository analysisRepository;
     @Mock
+    private AnalysisStdoutService stdoutService;
+    @Mock
     private Analysis analysis;
     @InjectMocks
     private AnalysisResultsServiceImpl analysisResultsService;
@@ -46,6 +58,8 @@ public class AnalysisResultsServiceImplTest {
 
     @Captor
     private ArgumentCaptor<List<AnalysisFile>> captor;
+    @Captor
+    private ArgumentCaptor<List<AnalysisResultEntry>> entriesCaptor;
 
     @BeforeEach
     public void setUp() {
@@ -116,4 +130,31 @@ public class AnalysisResultsServiceImplTest {
         assertThat(updatedAnalysis.getStatus()).isEqualTo(AnalysisResultStatusDTO.EXECUTED);
     }
 
+    @Test
+    public void shouldReadResultFileAtManifestOffset() throws IOException {
+        when(analysis.getId()).thenReturn(analysisId);
+
+        final String zipFile = new File(Const.class.getResource(RESULTS_SUCCESSFUL_ZIP).getFile()).getPath();
+        final Path archivePath = testWorkingDir.toPath().resolve(RESULTS_SUCCESSFUL_ZIP);
+        copy(Paths.get(zipFile), archivePath);
+        analysisResultsService.saveResults(analysis, testWorkingDir);
+
+        verify(analysisFileRepository).saveAll(captor.capture());
+        verify(analysisResultEntryRepository).saveAll(entriesCaptor.capture());
+        final AnalysisFile archive = captor.getValue().get(0);
+        assertThat(archive.getArchiveType()).isEqualTo(AnalysisFileArchiveType.ZIP);
+        final AnalysisResultEntry entry = entriesCaptor.getValue().stream()
+                .filter(e -> !e.isDirectory())
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+
+        when(analysisRepository.findById(analysisId)).thenReturn(Optional.of(analysis));
+        when(analysisFileRepository.findAllByAnalysisIdAndType(analysisId, AnalysisFileType.ANALYSYS_RESULT)).thenReturn(captor.getValue());
+        when(analysisResultEntryRepository.findFirstByAnalysisFileIdAndName(archive.getId(), entry.getName())).thenReturn(Optional.of(entry));
+        final Resource resource = analysisResultsService.getAnalysisResultFile(analysisId, entry.getName());
+
+        try (ZipFile expected = new ZipFile(archivePath.toFile()); InputStream actual = resource.getInputStream()) {
+            assertThat(actual).hasSameContentAs(expected.getInputStream(expected.getEntry(entry.getName())));
+        }
+    }
 }
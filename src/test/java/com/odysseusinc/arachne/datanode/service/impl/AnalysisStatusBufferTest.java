@@ -0,0 +1,170 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.odysseusinc.arachne.datanode.exception.ServiceNotAvailableException;
+import com.odysseusinc.arachne.datanode.service.AnalysisService;
+import com.odysseusinc.arachne.datanode.service.AnalysisStatusUpdate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisStatusBufferTest {
+
+    private AnalysisService analysisService;
+    private AnalysisStatusBuffer buffer;
+    private final List<AnalysisStatusUpdate> saved = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+
+        analysisService = mock(AnalysisService.class);
+        when(analysisService.findExecutingCallbackPassword(anyLong())).thenReturn(Optional.empty());
+        when(analysisService.findExecutingCallbackPassword(1L)).thenReturn(Optional.of("secret"));
+        when(analysisService.findExecutingCallbackPassword(2L)).thenReturn(Optional.of("other"));
+        when(analysisService.findExecutingCallbackPassword(3L)).thenReturn(Optional.of("third"));
+        buffer = new AnalysisStatusBuffer(analysisService, 2, 3, 2, 4, 60000);
+    }
+
+    @Test
+    public void shouldMergeCallbacksOfAnalysis() {
+
+        doAnswer(invocation -> saved.addAll(invocation.getArgument(0))).when(analysisService).updateStatuses(anyList());
+
+        buffer.submit(1L, "secret", "a");
+        buffer.submit(2L, "other", "x");
+        buffer.submit(1L, "secret", "b");
+        buffer.flush();
+
+        assertThat(saved).extracting(AnalysisStatusUpdate::getAnalysisId).containsExactly(1L, 2L);
+        assertThat(saved).extracting(AnalysisStatusUpdate::getStdout).containsExactly("ab", "x");
+    }
+
+    @Test
+    public void shouldIgnoreCallbacksOfUnknownAnalyses() {
+
+        buffer.submit(1L, "wrong", "a");
+        buffer.submit(42L, "secret", "b");
+        buffer.submit(1L, "secret", "c");
+        buffer.submit(1L, "secret", "d");
+        buffer.flush();
+
+        verify(analysisService, times(1)).findExecutingCallbackPassword(1L);
+        verify(analysisService).updateStatuses(argThat(updates -> updates.size() == 1
+                && "cd".equals(updates.get(0).getStdout())));
+    }
+
+    @Test
+    public void shouldLookUpAnalysesWhichAreNotExecutingAgain() {
+
+        buffer.submit(42L, "secret", "a");
+        buffer.submit(42L, "secret", "b");
+
+        verify(analysisService, times(2)).findExecutingCallbackPassword(42L);
+    }
+
+    @Test
+    public void shouldRejectCallbacksWhenBufferIsFull() {
+
+        buffer.submit(1L, "secret", "a");
+        buffer.submit(2L, "other", "x");
+        buffer.submit(1L, "secret", "b");
+
+        assertThatThrownBy(() -> buffer.submit(3L, "third", "y")).isInstanceOf(ServiceNotAvailableException.class);
+    }
+
+    @Test
+    public void shouldFlushEarlyWhenStdoutIsLong() {
+
+        doAnswer(invocation -> saved.addAll(invocation.getArgument(0))).when(analysisService).updateStatuses(anyList());
+
+        buffer.submit(1L, "secret", "abcd");
+        buffer.submit(2L, "other", "x");
+
+        assertThat(saved).extracting(AnalysisStatusUpdate::getStdout).containsExactly("abcd");
+    }
+
+    @Test
+    public void shouldRejectCallbacksWhileLongStdoutIsNotSaved() {
+
+        doThrow(new IllegalStateException("database is down")).when(analysisService).updateStatuses(anyList());
+        buffer.submit(1L, "secret", "abcd");
+
+        assertThatThrownBy(() -> buffer.submit(1L, "secret", "e")).isInstanceOf(ServiceNotAvailableException.class);
+    }
+
+    @Test
+    public void shouldSaveOtherUpdatesOfFailedBatch() {
+
+        doAnswer(invocation -> {
+            List<AnalysisStatusUpdate> updates = invocation.getArgument(0);
+            if (updates.stream().anyMatch(update -> update.getAnalysisId() == 2L)) {
+                throw new IllegalStateException("analysis is locked");
+            }
+            return saved.addAll(updates);
+        }).when(analysisService).updateStatuses(anyList());
+
+        buffer.submit(1L, "secret", "a");
+        buffer.submit(2L, "other", "x");
+        buffer.flush();
+
+        assertThat(saved).extracting(AnalysisStatusUpdate::getAnalysisId).containsExactly(1L);
+
+        buffer.flush();
+        buffer.flush();
+        buffer.flush();
+
+        verify(analysisService, times(3)).updateStatuses(argThat(updates ->
+                updates.size() == 1 && updates.get(0).getAnalysisId() == 2L));
+    }
+
+    @Test
+    public void shouldRetryFailedUpdatesAheadOfNewOnes() {
+
+        doThrow(new IllegalStateException("database is down")).when(analysisService).updateStatuses(anyList());
+        buffer.submit(1L, "secret", "a");
+        buffer.flush();
+
+        doAnswer(invocation -> saved.addAll(invocation.getArgument(0))).when(analysisService).updateStatuses(anyList());
+        buffer.submit(1L, "secret", "b");
+        buffer.flush();
+        buffer.flush();
+
+        assertThat(saved).extracting(AnalysisStatusUpdate::getStdout).containsExactly("ab");
+    }
+
+    @Test
+    public void shouldDropUnsavedUpdatesBeforeResults() {
+
+        doThrow(new IllegalStateException("database is down")).when(analysisService).updateStatuses(anyList());
+        buffer.submit(1L, "secret", "a");
+        buffer.submit(2L, "other", "x");
+        buffer.flushBeforeResults(1L);
+
+        doAnswer(invocation -> saved.addAll(invocation.getArgument(0))).when(analysisService).updateStatuses(anyList());
+        buffer.flush();
+
+        assertThat(saved).extracting(AnalysisStatusUpdate::getAnalysisId).containsExactly(2L);
+    }
+
+    @Test
+    public void shouldSkipEmptyFlush() {
+
+        buffer.flush();
+
+        verify(analysisService, never()).updateStatuses(anyList());
+    }
+}
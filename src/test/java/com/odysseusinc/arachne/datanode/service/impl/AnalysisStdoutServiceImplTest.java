@@ -0,0 +1,84 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+import com.odysseusinc.arachne.datanode.model.analysis.AnalysisStdoutChunk;
+import com.odysseusinc.arachne.datanode.repository.AnalysisStdoutChunkRepository;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisStdoutServiceImplTest {
+
+    private static final Long ANALYSIS_ID = 5L;
+
+    private final List<AnalysisStdoutChunk> chunks = new ArrayList<>();
+    private AnalysisStdoutServiceImpl stdoutService;
+
+    @BeforeEach
+    public void setUp() {
+
+        AnalysisStdoutChunkRepository repository = mock(AnalysisStdoutChunkRepository.class);
+        lenient().when(repository.saveAll(any())).thenAnswer(invocation -> {
+            ((Iterable<AnalysisStdoutChunk>) invocation.getArgument(0)).forEach(chunks::add);
+            return null;
+        });
+        lenient().when(repository.findFirstByAnalysisIdOrderBySeqDesc(ANALYSIS_ID)).thenAnswer(invocation ->
+                chunks.isEmpty() ? Optional.empty() : Optional.of(chunks.get(chunks.size() - 1)));
+        lenient().when(repository.findRange(eq(ANALYSIS_ID), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(1);
+            long to = invocation.getArgument(2);
+            return chunks.stream()
+                    .filter(chunk -> chunk.getEndOffset() > from && chunk.getStartOffset() < to)
+                    .collect(Collectors.toList());
+        });
+        lenient().when(repository.findTop16ByAnalysisIdAndSeqGreaterThanOrderBySeq(eq(ANALYSIS_ID), anyInt()))
+                .thenAnswer(invocation -> {
+                    int seq = invocation.getArgument(1);
+                    return chunks.stream()
+                            .filter(chunk -> chunk.getSeq() > seq)
+                            .limit(16)
+                            .collect(Collectors.toList());
+                });
+        stdoutService = new AnalysisStdoutServiceImpl(repository, 4);
+    }
+
+    @Test
+    public void shouldAppendChunks() {
+
+        stdoutService.append(ANALYSIS_ID, "first line\n");
+        stdoutService.append(ANALYSIS_ID, "");
+        stdoutService.append(ANALYSIS_ID, "second\n");
+
+        assertThat(chunks).extracting(AnalysisStdoutChunk::getSeq).containsExactly(0, 1, 2, 3, 4);
+        assertThat(chunks).extracting(AnalysisStdoutChunk::getStartOffset).containsExactly(0L, 4L, 8L, 12L, 16L);
+        assertThat(chunks).extracting(AnalysisStdoutChunk::getContent)
+                .containsExactly("firs", "t li", "ne\ns", "econ", "d\n");
+        assertThat(stdoutService.length(ANALYSIS_ID)).isEqualTo(18L);
+    }
+
+    @Test
+    public void shouldReadRangeAndTail() throws Exception {
+
+        String stdout = "Running analysis\nDone\n";
+        stdoutService.append(ANALYSIS_ID, stdout.substring(0, 9));
+        stdoutService.append(ANALYSIS_ID, stdout.substring(9));
+
+        assertThat(stdoutService.read(ANALYSIS_ID, 3, 10)).isEqualTo(stdout.substring(3, 13));
+        assertThat(stdoutService.read(ANALYSIS_ID, 20, 10)).isEqualTo(stdout.substring(20));
+        assertThat(stdoutService.tail(ANALYSIS_ID, 5)).isEqualTo("Done\n");
+        StringWriter writer = new StringWriter();
+        stdoutService.writeTo(ANALYSIS_ID, writer);
+        assertThat(writer.toString()).isEqualTo(stdout);
+    }
+}
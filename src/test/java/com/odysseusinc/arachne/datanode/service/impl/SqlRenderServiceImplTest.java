@@ -0,0 +1,57 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.odysseusinc.arachne.datanode.dto.atlas.CohortDefinition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ohdsi.circe.cohortdefinition.CohortExpression;
+import org.ohdsi.circe.cohortdefinition.CohortExpressionQueryBuilder;
+
+public class SqlRenderServiceImplTest {
+
+    private CohortExpressionQueryBuilder queryBuilder;
+    private SqlRenderServiceImpl sqlRenderService;
+
+    @BeforeEach
+    public void setUp() {
+
+        queryBuilder = mock(CohortExpressionQueryBuilder.class);
+        when(queryBuilder.buildExpressionQuery(any(CohortExpression.class), any())).thenReturn("select @target_cohort_id");
+        sqlRenderService = new SqlRenderServiceImpl(queryBuilder, 1_000_000);
+    }
+
+    @Test
+    public void shouldBuildSameExpressionOnce() {
+
+        String first = sqlRenderService.renderSql(cohort("{\"Title\":\"A\",\"ConceptSets\":[]}"),
+                new String[]{"target_cohort_id"}, new String[]{"1"});
+        String second = sqlRenderService.renderSql(cohort("{\"ConceptSets\":[], \"Title\":\"A\"}"),
+                new String[]{"target_cohort_id"}, new String[]{"2"});
+
+        assertThat(first).isEqualTo("select 1");
+        assertThat(second).isEqualTo("select 2");
+        verify(queryBuilder, times(1)).buildExpressionQuery(any(CohortExpression.class), any());
+    }
+
+    @Test
+    public void shouldRebuildChangedExpression() {
+
+        sqlRenderService.renderSql(cohort("{\"Title\":\"A\"}"));
+        sqlRenderService.renderSql(cohort("{\"Title\":\"B\"}"));
+
+        verify(queryBuilder, times(2)).buildExpressionQuery(any(CohortExpression.class), any());
+    }
+
+    private CohortDefinition cohort(String expression) {
+
+        CohortDefinition cohort = new CohortDefinition();
+        cohort.setExpression(expression);
+        return cohort;
+    }
+}
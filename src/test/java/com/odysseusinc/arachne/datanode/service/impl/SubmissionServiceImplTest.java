@@ -0,0 +1,94 @@
+package com.odysseusinc.arachne.datanode.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.odysseusinc.arachne.datanode.dto.submission.SubmissionDTO;
+import com.odysseusinc.arachne.datanode.repository.DataSourceRepository;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Collections;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SubmissionServiceImplTest {
+
+    private EntityManager em;
+    private Query rowsQuery;
+    private SubmissionServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+
+        em = mock(EntityManager.class);
+        rowsQuery = mock(Query.class);
+        Query countQuery = mock(Query.class);
+        when(em.createNativeQuery(startsWith("SELECT a.id"))).thenReturn(rowsQuery);
+        when(em.createNativeQuery(startsWith("SELECT count(*)"))).thenReturn(countQuery);
+        when(countQuery.getSingleResult()).thenReturn(BigInteger.valueOf(25));
+        Timestamp submitted = new Timestamp(1000);
+        when(rowsQuery.getResultList()).thenReturn(Collections.singletonList(new Object[]{
+                BigInteger.valueOf(42), "title", "study", "DIRECT_UPLOAD", null, "John", "Doe", "jd@example.com",
+                "EXECUTING", submitted, null}));
+        DataSourceRepository dataSourceRepository = mock(DataSourceRepository.class);
+        service = new SubmissionServiceImpl(dataSourceRepository, new GenericConversionService());
+        ReflectionTestUtils.setField(service, "em", em);
+    }
+
+    @Test
+    public void shouldReadPageAfterLastRowForKeysetSort() {
+
+        Page<SubmissionDTO> page = service.list(PageRequest.of(5, 10, Sort.Direction.DESC, "submitted"), 42L);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(em, times(2)).createNativeQuery(sql.capture());
+        assertThat(sql.getAllValues().get(0))
+                .contains("WHERE a.submitted IS NOT NULL AND (a.submitted, a.id) < (SELECT a.submitted, a.id FROM analyses a WHERE a.id = :after)")
+                .contains("ORDER BY a.submitted DESC, a.id DESC");
+        verify(rowsQuery).setParameter("after", 42L);
+        verify(rowsQuery).setParameter("offset", 0L);
+        assertThat(page.getTotalElements()).isEqualTo(25);
+        SubmissionDTO submission = page.getContent().get(0);
+        assertThat(submission.getId()).isEqualTo(42L);
+        assertThat(submission.getStatus()).isEqualTo("EXECUTING");
+        assertThat(submission.getAuthor().fullName()).isEqualTo("John Doe");
+    }
+
+    @Test
+    public void shouldSkipRowsForSortWithNulls() {
+
+        service.list(PageRequest.of(5, 10, Sort.Direction.ASC, "analysis"), 42L);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(em, times(2)).createNativeQuery(sql.capture());
+        assertThat(sql.getAllValues().get(0))
+                .doesNotContain(":after")
+                .contains("ORDER BY a.title ASC, a.id ASC");
+        verify(rowsQuery).setParameter("offset", 50L);
+    }
+
+    @Test
+    public void shouldSortByIdAtRequestedPosition() {
+
+        service.list(PageRequest.of(0, 10, Sort.by(Sort.Order.asc("analysis"), Sort.Order.desc("id"),
+                Sort.Order.asc("submitted"))), null);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(em, times(2)).createNativeQuery(sql.capture());
+        assertThat(sql.getAllValues().get(0))
+                .doesNotContain("a.submitted IS NOT NULL")
+                .contains("ORDER BY a.title ASC, a.id DESC LIMIT");
+    }
+}
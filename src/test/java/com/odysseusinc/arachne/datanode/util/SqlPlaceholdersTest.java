@@ -0,0 +1,56 @@
+package com.odysseusinc.arachne.datanode.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class SqlPlaceholdersTest {
+
+    private static final Map<String, String> REPLACEMENTS = ImmutableMap.<String, String>builder()
+            .put("@cdm_database_schema", "cdm")
+            .put("@results_database_schema", "results")
+            .put("@target_database_schema", "target")
+            .put("@vocab_database_schema", "vocab")
+            .put("@vocabulary_database_schema", "vocab")
+            .put("@target_cohort_table", "cohort")
+            .put("@target_cohort_id", "42")
+            .put("@generateStats;", "1")
+            .build();
+    private static final String[] FRAGMENTS = {"select * from ", ".person", " where ", "@", "@target", "_id", ";",
+            "\n", "@cdm_database", "@generateStats", "@unknown_schema", " = "};
+
+    private final SqlPlaceholders placeholders = new SqlPlaceholders(REPLACEMENTS);
+
+    @Test
+    public void shouldSubstituteSameAsSequentialReplace() {
+
+        Random random = new Random(42);
+        String[] names = REPLACEMENTS.keySet().toArray(new String[0]);
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder sql = new StringBuilder();
+            for (int j = random.nextInt(30); j > 0; j--) {
+                sql.append(random.nextBoolean() ? names[random.nextInt(names.length)] : FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertThat(placeholders.substitute(sql.toString())).isEqualTo(replaceSequentially(sql.toString()));
+        }
+    }
+
+    @Test
+    public void shouldReturnSameStringWithoutPlaceholders() {
+
+        String sql = "select count(*) from @unknown.person";
+
+        assertThat(placeholders.substitute(sql)).isSameAs(sql);
+    }
+
+    private String replaceSequentially(String sql) {
+
+        for (Map.Entry<String, String> replacement : REPLACEMENTS.entrySet()) {
+            sql = sql.replaceAll(replacement.getKey(), replacement.getValue());
+        }
+        return sql;
+    }
+}
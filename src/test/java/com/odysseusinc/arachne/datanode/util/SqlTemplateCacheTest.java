@@ -0,0 +1,53 @@
+package com.odysseusinc.arachne.datanode.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.odysseusinc.arachne.commons.types.DBMSType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+public class SqlTemplateCacheTest {
+
+    private static final String SQL = "select * into #codesets from @cdm_database_schema.concept";
+
+    private final SqlTemplateCache cache = new SqlTemplateCache(100, 1_000_000);
+    private final List<String> translatedSessions = new ArrayList<>();
+    private final Function<String, String> translator = session -> {
+        translatedSessions.add(session);
+        return "create table temp." + session + "codesets as select * from @cdm_database_schema.concept";
+    };
+
+    @Test
+    public void shouldTranslateOnceAndKeepSessionIdPerCaller() {
+
+        String first = cache.translate(SQL, null, DBMSType.ORACLE, "abcd1234", "temp", translator);
+        String second = cache.translate(SQL, null, DBMSType.ORACLE, "efgh5678", "temp", translator);
+
+        assertThat(translatedSessions).containsExactly(SqlTemplateCache.SESSION_ID_PLACEHOLDER);
+        assertThat(first).isEqualTo(translator.apply("abcd1234"));
+        assertThat(second).isEqualTo(translator.apply("efgh5678"));
+    }
+
+    @Test
+    public void shouldTranslateAgainForAnotherDialectOrTempSchema() {
+
+        cache.translate(SQL, null, DBMSType.ORACLE, "abcd1234", "temp", translator);
+        cache.translate(SQL, null, DBMSType.POSTGRESQL, "abcd1234", "temp", translator);
+        cache.translate(SQL, null, DBMSType.POSTGRESQL, "abcd1234", "scratch", translator);
+
+        assertThat(translatedSessions).hasSize(3);
+    }
+
+    @Test
+    public void shouldNotCacheStatementsContainingPlaceholder() {
+
+        String sql = "select '" + SqlTemplateCache.SESSION_ID_PLACEHOLDER + "'";
+
+        cache.translate(sql, null, DBMSType.ORACLE, "abcd1234", "temp", translator);
+        cache.translate(sql, null, DBMSType.ORACLE, "abcd1234", "temp", translator);
+
+        assertThat(translatedSessions).containsExactly("abcd1234", "abcd1234");
+    }
+}
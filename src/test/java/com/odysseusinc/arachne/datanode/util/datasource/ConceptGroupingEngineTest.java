@@ -0,0 +1,182 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+public class ConceptGroupingEngineTest {
+
+    private static final ConceptIdSet CONCEPTS = ConceptIdSet.of(1, 2, 3);
+
+    @Test
+    public void shouldGroupSortedRows() throws Exception {
+
+        Map<Object, String> documents = group(
+                rows(new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{3, "c"}, new Object[]{9, "x"}),
+                rows(new Object[]{2, "d"}));
+
+        assertThat(documents).containsOnlyKeys(1, 2, 3);
+        assertThat(json(documents.get(1))).isEqualTo(json("{\"FIRST\":{\"NAME\":[\"a\",\"b\"]},\"SECOND\":{\"NAME\":[\"\"]}}"));
+        assertThat(json(documents.get(2))).isEqualTo(json("{\"FIRST\":{\"NAME\":[\"\"]},\"SECOND\":{\"NAME\":[\"d\"]}}"));
+        assertThat(json(documents.get(3))).isEqualTo(json("{\"FIRST\":{\"NAME\":[\"c\"]},\"SECOND\":{\"NAME\":[\"\"]}}"));
+    }
+
+    @Test
+    public void shouldGroupUnsortedRowsSameAsSorted() throws Exception {
+
+        Map<Object, String> sorted = group(
+                rows(new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{3, "c"}),
+                rows(new Object[]{2, "d"}, new Object[]{3, "e"}));
+        Map<Object, String> unsorted = group(
+                rows(new Object[]{3, "c"}, new Object[]{1, "a"}, new Object[]{1, "b"}),
+                rows(new Object[]{3, "e"}, new Object[]{2, "d"}));
+
+        assertThat(unsorted).isEqualTo(sorted);
+    }
+
+    @Test
+    public void shouldGroupDecimalConceptIds() throws Exception {
+
+        Map<Object, String> documents = group(
+                rows(new Object[]{1.0, "a"}, new Object[]{new BigDecimal("3.00"), "c"}, new Object[]{1.5, "x"}),
+                rows(new Object[]{1L, "b"}, new Object[]{new BigDecimal("2.5"), "y"}));
+
+        assertThat(documents).containsOnlyKeys(1, 2, 3);
+        assertThat(json(documents.get(1))).isEqualTo(json("{\"FIRST\":{\"NAME\":[\"a\"]},\"SECOND\":{\"NAME\":[\"b\"]}}"));
+        assertThat(json(documents.get(3))).isEqualTo(json("{\"FIRST\":{\"NAME\":[\"c\"]},\"SECOND\":{\"NAME\":[\"\"]}}"));
+    }
+
+    @Test
+    public void shouldGroupOpenCursorsSameAsSpilledRows() throws Exception {
+
+        Map<Object, String> spilled = group(
+                rows(new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{3, "c"}),
+                rows(new Object[]{2, "d"}, new Object[]{3, "e"}));
+        Map<Object, String> sortedSpill = new TreeMap<>();
+        Map<Object, String> unsortedSpill = new TreeMap<>();
+        try (ConceptGroupingEngine engine = new ConceptGroupingEngine(CONCEPTS)) {
+            engine.open(engine.reserve(), "FIRST", "CONCEPT_ID", null,
+                    rows(new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{3, "c"}));
+            engine.add("SECOND", "CONCEPT_ID", null, rows(new Object[]{2, "d"}, new Object[]{3, "e"}));
+            engine.write(collect(sortedSpill));
+        }
+        try (ConceptGroupingEngine engine = new ConceptGroupingEngine(CONCEPTS, 2)) {
+            engine.open(engine.reserve(), "FIRST", "CONCEPT_ID", null,
+                    rows(new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{3, "c"}));
+            engine.add("SECOND", "CONCEPT_ID", null, rows(new Object[]{3, "e"}, new Object[]{2, "d"}));
+            engine.write(collect(unsortedSpill));
+        }
+
+        assertThat(sortedSpill).isEqualTo(spilled);
+        assertThat(unsortedSpill).isEqualTo(spilled);
+    }
+
+    @Test
+    public void shouldFailOnUnorderedOpenCursor() throws Exception {
+
+        try (ConceptGroupingEngine engine = new ConceptGroupingEngine(CONCEPTS)) {
+            engine.open(engine.reserve(), "FIRST", "CONCEPT_ID", null,
+                    rows(new Object[]{3, "c"}, new Object[]{1, "a"}));
+
+            assertThatThrownBy(() -> engine.write(collect(new TreeMap<>()))).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    public void shouldSkipConceptsWithoutRowsAndDefaults() throws Exception {
+
+        Map<Object, String> documents = new TreeMap<>();
+        try (ConceptGroupingEngine engine = new ConceptGroupingEngine(CONCEPTS)) {
+            engine.add("FIRST", "CONCEPT_ID", null, processor(Collections.emptyMap(), new Object[]{2, "a"}));
+            assertThat(engine.write(collect(documents))).isEqualTo(1);
+        }
+
+        assertThat(documents).containsOnlyKeys(2);
+    }
+
+    private Map<Object, String> group(ConceptRowProcessor first, ConceptRowProcessor second) throws Exception {
+
+        Map<Object, String> documents = new TreeMap<>();
+        try (ConceptGroupingEngine engine = new ConceptGroupingEngine(CONCEPTS, 2)) {
+            engine.add("FIRST", "CONCEPT_ID", null, first);
+            engine.add("SECOND", "CONCEPT_ID", null, second);
+            assertThat(engine.write(collect(documents))).isEqualTo(documents.size());
+        }
+        return documents;
+    }
+
+    private JsonElement json(String value) {
+
+        return new JsonParser().parse(value);
+    }
+
+    private ResultWriter<ConceptDocument> collect(Map<Object, String> documents) {
+
+        return document -> {
+            StringWriter out = new StringWriter();
+            try (JsonWriter writer = new JsonWriter(out)) {
+                document.getJson().writeTo(writer);
+            }
+            documents.put(document.getConceptId(), out.toString());
+        };
+    }
+
+    private ConceptRowProcessor rows(Object[]... rows) {
+
+        return processor(Collections.singletonMap("NAME", ""), rows);
+    }
+
+    private ConceptRowProcessor processor(Map<String, Object> defaultValue, Object[]... rows) {
+
+        return resultSet -> new ConceptRowCursor() {
+
+            private final Iterator<Object[]> iterator = Arrays.asList(rows).iterator();
+            private Object[] current;
+
+            @Override
+            public List<String> getColumns() {
+
+                return Collections.singletonList("NAME");
+            }
+
+            @Override
+            public Map<String, Object> getDefaultValue() {
+
+                return defaultValue;
+            }
+
+            @Override
+            public boolean next() throws SQLException {
+
+                current = iterator.hasNext() ? iterator.next() : null;
+                return current != null;
+            }
+
+            @Override
+            public Object getKey() {
+
+                return current[0];
+            }
+
+            @Override
+            public Object[] getValues() {
+
+                return new Object[]{current[1]};
+            }
+        };
+    }
+}
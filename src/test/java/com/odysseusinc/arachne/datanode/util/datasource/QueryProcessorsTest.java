@@ -0,0 +1,30 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class QueryProcessorsTest {
+
+    @Test
+    public void shouldOrderQueryByColumn() {
+
+        assertThat(QueryProcessors.orderBy("SELECT concept_id, count_value FROM results -- totals\n;", "CONCEPT_ID"))
+                .isEqualTo("SELECT * FROM (\nSELECT concept_id, count_value FROM results -- totals\n) ordered_rows ORDER BY CONCEPT_ID");
+    }
+
+    @Test
+    public void shouldIgnoreNestedAndQuotedOrderBy() {
+
+        String sql = "SELECT c.concept_id FROM (SELECT TOP 10 concept_id FROM a ORDER BY 1) c"
+                + " WHERE c.name <> 'order by' /* order by */";
+
+        assertThat(QueryProcessors.orderBy(sql, "CONCEPT_ID")).endsWith("ORDER BY CONCEPT_ID");
+    }
+
+    @Test
+    public void shouldKeepQueryOrderedByItself() {
+
+        assertThat(QueryProcessors.orderBy("SELECT concept_id FROM a ORDER\n BY count_value DESC", "CONCEPT_ID")).isNull();
+    }
+}
@@ -0,0 +1,114 @@
+package com.odysseusinc.arachne.datanode.util.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ResultWritersTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldWriteSameJsonAsGson() throws IOException {
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("CONCEPT_NAME", Arrays.asList("<b>Drug</b>", "Condition \"A\""));
+        data.put("COUNT_VALUE", Arrays.asList(1, 2L, 3));
+        data.put("EMPTY", null);
+        data.put("NESTED", Collections.singletonMap(7, Arrays.asList("x", null)));
+
+        assertThat(writeEntry(data)).isEqualTo(new Gson().toJson(data));
+    }
+
+    @Test
+    public void shouldWriteIntegralDoublesCompact() throws IOException {
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("Y_PREVALENCE_1000PP", Arrays.asList(12.0D, 0.25D, -3.0D));
+
+        assertThat(writeEntry(data)).isEqualTo("{\"Y_PREVALENCE_1000PP\":[12,0.25,-3]}");
+    }
+
+    @Test
+    public void shouldWriteColumnVectorsSameAsLists() throws Exception {
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getInt(1)).thenReturn(7, 8);
+        when(resultSet.getDouble(2)).thenReturn(1.0D, 0.5D);
+        when(resultSet.getString(3)).thenReturn("a", null);
+        ColumnVector ints = ColumnVector.forSqlType(Types.INTEGER);
+        ColumnVector doubles = ColumnVector.forSqlType(Types.NUMERIC);
+        ColumnVector strings = ColumnVector.forSqlType(Types.VARCHAR);
+        for (int row = 0; row < 2; row++) {
+            ints.read(resultSet, 1);
+            doubles.read(resultSet, 2);
+            strings.read(resultSet, 3);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("COUNT_VALUE", ints);
+        data.put("Y_PREVALENCE_1000PP", doubles);
+        data.put("CONCEPT_NAME", strings);
+
+        String json = writeEntry(data);
+
+        assertThat(ints).containsExactly(7, 8);
+        assertThat(json).isEqualTo("{\"COUNT_VALUE\":[7,8],\"Y_PREVALENCE_1000PP\":[1,0.5],\"CONCEPT_NAME\":[\"a\",null]}");
+    }
+
+    @Test
+    public void shouldWriteConceptEntriesIntoArchive() throws IOException {
+
+        File file = tempDir.resolve("achilles.zip").toFile();
+        try (ResultArchive archive = new ResultArchive(file)) {
+            ResultWriters.toJsonEntry(archive, "drug_treemap.json")
+                    .write(ResultTransformers.toJsonStream().transform(Collections.singletonMap("A", "treemap")));
+            ResultWriter<ConceptDocument> writer = ResultWriters.toConceptJsonEntries(archive, "drugs", "drug_%d.json");
+            writer.write(new ConceptDocument(1, ResultTransformers.toJsonStream().transform(Collections.singletonMap("A", "first"))));
+            writer.write(new ConceptDocument(3, ResultTransformers.toJsonStream().transform(Collections.singletonMap("A", "<b>"))));
+        }
+
+        try (ZipFile zip = new ZipFile(file)) {
+            assertThat(zip.stream().map(ZipEntry::getName))
+                    .containsExactly("drug_treemap.json", "drugs/", "drugs/drug_1.json", "drugs/drug_3.json");
+            assertThat(read(zip, "drugs/drug_1.json")).isEqualTo("{\"A\":\"first\"}");
+            assertThat(read(zip, "drugs/drug_3.json")).isEqualTo(new Gson().toJson(Collections.singletonMap("A", "<b>")));
+        }
+    }
+
+    private String writeEntry(Object data) throws IOException {
+
+        File file = tempDir.resolve("report.zip").toFile();
+        try (ResultArchive archive = new ResultArchive(file)) {
+            ResultWriters.toJsonEntry(archive, "report.json").write(ResultTransformers.toJsonStream().transform(data));
+        }
+        try (ZipFile zip = new ZipFile(file)) {
+            return read(zip, "report.json");
+        }
+    }
+
+    private String read(ZipFile zip, String name) throws IOException {
+
+        try (InputStream input = zip.getInputStream(zip.getEntry(name))) {
+            return IOUtils.toString(input, StandardCharsets.UTF_8);
+        }
+    }
+}